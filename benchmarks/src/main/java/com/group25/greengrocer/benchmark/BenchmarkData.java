@@ -0,0 +1,65 @@
+package com.group25.greengrocer.benchmark;
+
+import com.group25.greengrocer.model.Order;
+import com.group25.greengrocer.model.OrderItem;
+import com.group25.greengrocer.model.OrderStatus;
+import com.group25.greengrocer.model.UnitType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Fixed sample data shared by the benchmarks. Generated from a constant seed
+ * so every run measures the same input.
+ */
+final class BenchmarkData {
+
+    private static final String[] PRODUCT_NAMES = { "Tomato", "Cucumber", "Potato", "Onion", "Apple", "Banana",
+            "Orange", "Strawberry", "Organic Carrot", "Watermelon" };
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @return a delivered order with typical totals and a note
+     */
+    static Order order() {
+        Order order = new Order();
+        order.setId(123_456);
+        order.setCustomerId(4_242);
+        order.setCarrierId(17L);
+        order.setStatus(OrderStatus.DELIVERED);
+        order.setOrderTime(LocalDateTime.of(2025, 1, 15, 10, 30));
+        order.setRequestedDeliveryTime(LocalDateTime.of(2025, 1, 16, 12, 0));
+        order.setDeliveredTime(LocalDateTime.of(2025, 1, 16, 11, 45));
+        order.setSubtotal(86.40);
+        order.setLoyaltyDiscountRate(0.05);
+        order.setDiscountTotal(4.32);
+        order.setVatRate(0.18);
+        order.setVatTotal(14.77);
+        order.setTotal(96.85);
+        order.setNote("Please ring the bell");
+        return order;
+    }
+
+    /**
+     * @param count number of order lines
+     * @return order lines with product names, mixing weighed and piece items
+     */
+    static List<OrderItem> items(int count) {
+        SplittableRandom rng = new SplittableRandom(42);
+        List<OrderItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean piece = i % 4 == 3;
+            double quantity = piece ? 1 + rng.nextInt(5) : Math.round((0.25 + rng.nextDouble() * 3) * 100) / 100.0;
+            double price = Math.round((0.5 + rng.nextDouble() * 9.5) * 100) / 100.0;
+            OrderItem item = new OrderItem(i + 1, 123_456, 1 + rng.nextInt(500), piece ? UnitType.PCS : UnitType.KG,
+                    quantity, price, Math.round(quantity * price * 100) / 100.0);
+            item.setProductName(PRODUCT_NAMES[i % PRODUCT_NAMES.length]);
+            items.add(item);
+        }
+        return items;
+    }
+}
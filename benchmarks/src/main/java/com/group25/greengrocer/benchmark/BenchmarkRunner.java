@@ -0,0 +1,29 @@
+package com.group25.greengrocer.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar.
+ *
+ * Accepts the usual JMH command line (benchmark name patterns, -f, -wi, -i,
+ * -rf json, ...) and always adds the GC profiler, so each result reports the
+ * allocation rate next to the throughput. gc.alloc.rate.norm is the number
+ * of bytes allocated per operation, which is the figure to compare between
+ * runs since it does not depend on the machine's speed.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,62 @@
+package com.group25.greengrocer.benchmark;
+
+import com.group25.greengrocer.model.Product;
+import com.group25.greengrocer.service.PricingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dynamic pricing as done by the unit price binding of every product card in
+ * CustomerController: take the snapshot stock, then apply the
+ * double-price-below-threshold rule.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DynamicPriceBenchmark {
+
+    private static final int PRODUCTS = 512;
+
+    private final Product[] products = new Product[PRODUCTS];
+
+    /**
+     * Snapshot stock per product, as held by CustomerController.ProductState.
+     */
+    private final double[] stocks = new double[PRODUCTS];
+
+    private final PricingService pricingService = new PricingService();
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom rng = new SplittableRandom(42);
+        for (int i = 0; i < PRODUCTS; i++) {
+            double threshold = 5 + rng.nextInt(20);
+            products[i] = new Product(i + 1, "Product " + i, 0.5 + rng.nextDouble() * 9.5, rng.nextInt(100),
+                    i % 2 == 0 ? "Vegetable" : "Fruit", threshold, i % 4 == 0, null);
+            // About a third of the products are below their threshold
+            stocks[i] = i % 3 == 0 ? threshold - 1 : products[i].getStock();
+        }
+    }
+
+    @Benchmark
+    public double getDynamicPrice() {
+        int i = next++ & (PRODUCTS - 1);
+        return pricingService.getDynamicPrice(products[i], stocks[i]);
+    }
+}
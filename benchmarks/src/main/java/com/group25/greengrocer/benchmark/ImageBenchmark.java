@@ -0,0 +1,88 @@
+package com.group25.greengrocer.benchmark;
+
+import com.group25.greengrocer.util.ImageUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ImageUtil on an uploaded photo: compressAndResize (decode, scale down to at
+ * most 1024 pixels and re-encode as JPEG) as used for license and profile
+ * images, and createProductImageVariants, which additionally encodes the
+ * medium and small thumbnails of a product image.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageBenchmark {
+
+    /**
+     * Size of the uploaded image, WIDTHxHEIGHT. 800x600 needs no scaling,
+     * 3000x2000 is a typical phone photo.
+     */
+    @Param({ "800x600", "3000x2000" })
+    public String size;
+
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] parts = size.split("x");
+        int width = Integer.parseInt(parts[0]);
+        int height = Integer.parseInt(parts[1]);
+
+        // Gradient plus noise, so the JPEG codec does comparable work to a photo
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(46, 125, 50), width, height, new Color(230, 126, 34)));
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        SplittableRandom rng = new SplittableRandom(42);
+        for (int y = 0; y < height; y += 2) {
+            for (int x = 0; x < width; x += 2) {
+                int rgb = image.getRGB(x, y);
+                image.setRGB(x, y, rgb ^ rng.nextInt(0x202020));
+            }
+        }
+
+        file = File.createTempFile("image-benchmark", ".jpg");
+        ImageIO.write(image, "jpg", file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public byte[] compressAndResize() {
+        return ImageUtil.compressAndResize(file);
+    }
+
+    @Benchmark
+    public ImageUtil.ProductImages createProductImageVariants() {
+        return ImageUtil.createProductImageVariants(file);
+    }
+}
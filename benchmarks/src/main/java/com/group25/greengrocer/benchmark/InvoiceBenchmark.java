@@ -0,0 +1,65 @@
+package com.group25.greengrocer.benchmark;
+
+import com.group25.greengrocer.model.Order;
+import com.group25.greengrocer.model.OrderItem;
+import com.group25.greengrocer.util.PdfInvoiceUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF invoice rendering as done by the invoice workers after every checkout
+ * and on invoice download.
+ *
+ * generateInvoice runs on one thread, so its score is invoices per second
+ * per core. generateInvoiceAllCores renders on one thread per core through
+ * the same shared InvoiceTemplate, as the worker pool does at peak; its
+ * score divided by the number of cores shows how well rendering scales.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvoiceBenchmark {
+
+    /**
+     * Number of order lines on the invoice.
+     */
+    @Param({ "5", "50" })
+    public int items;
+
+    private Order order;
+
+    private List<OrderItem> orderItems;
+
+    @Setup
+    public void setUp() {
+        order = BenchmarkData.order();
+        orderItems = BenchmarkData.items(items);
+    }
+
+    @Benchmark
+    public byte[] generateInvoice() {
+        return PdfInvoiceUtil.generateInvoice(order, orderItems);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public byte[] generateInvoiceAllCores() {
+        return PdfInvoiceUtil.generateInvoice(order, orderItems);
+    }
+}
@@ -0,0 +1,53 @@
+package com.group25.greengrocer.benchmark;
+
+import com.group25.greengrocer.model.CustomerLoyalty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CustomerLoyalty tier and discount calculation, run for every customer when
+ * the owner opens the loyalty panel.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LoyaltyTierBenchmark {
+
+    private static final int TOTALS = 1024;
+
+    /**
+     * Spend totals covering every tier, visited round-robin so branch
+     * prediction sees a realistic mix.
+     */
+    private final double[] totals = new double[TOTALS];
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom rng = new SplittableRandom(42);
+        for (int i = 0; i < TOTALS; i++) {
+            totals[i] = rng.nextDouble() * 5_000;
+        }
+    }
+
+    @Benchmark
+    public CustomerLoyalty calculateTier() {
+        double total = totals[next++ & (TOTALS - 1)];
+        return new CustomerLoyalty(next, "customer", total);
+    }
+}
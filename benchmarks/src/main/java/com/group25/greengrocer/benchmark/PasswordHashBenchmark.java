@@ -0,0 +1,36 @@
+package com.group25.greengrocer.benchmark;
+
+import com.group25.greengrocer.service.AuthService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SHA-256 password hashing used by login, registration, profile and carrier
+ * management (all delegate to AuthService.hashPassword).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHashBenchmark {
+
+    @Param({ "cust", "a-much-longer-passphrase-with-42-characters" })
+    public String password;
+
+    @Benchmark
+    public String hashPassword() {
+        return AuthService.hashPassword(password);
+    }
+}
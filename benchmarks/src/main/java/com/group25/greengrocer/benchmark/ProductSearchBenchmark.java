@@ -0,0 +1,80 @@
+package com.group25.greengrocer.benchmark;
+
+import com.group25.greengrocer.model.Product;
+import com.group25.greengrocer.service.ProductSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductSearchIndex.search as called by the owner panel and the customer
+ * shop while typing, over a catalog named like DataGenerator's products. Each
+ * name ends with a serial number, so the vocabulary grows with the catalog,
+ * the worst case for typo lookups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductSearchBenchmark {
+
+    private static final String[] VEGETABLES = { "Tomato", "Cucumber", "Potato", "Onion", "Carrot", "Pepper",
+            "Eggplant", "Zucchini", "Lettuce", "Spinach", "Broccoli", "Cabbage", "Garlic", "Leek", "Pumpkin" };
+
+    private static final String[] FRUITS = { "Apple", "Banana", "Orange", "Pear", "Grape", "Strawberry", "Cherry",
+            "Peach", "Apricot", "Plum", "Watermelon", "Melon", "Lemon", "Kiwi", "Pomegranate", "Fig" };
+
+    private static final String[] VARIETIES = { "", "Organic ", "Local ", "Cherry ", "Premium ", "Village ",
+            "Imported ", "Baby " };
+
+    @Param({ "1000", "100000" })
+    public int products;
+
+    /**
+     * What is typed: a short prefix, two words, and a word with a typo.
+     */
+    @Param({ "to", "cherry tom", "strawbery" })
+    public String query;
+
+    private ProductSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom rng = new SplittableRandom(42);
+        List<Product> catalog = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            boolean fruit = i % 2 == 0;
+            String[] names = fruit ? FRUITS : VEGETABLES;
+            String name = VARIETIES[rng.nextInt(VARIETIES.length)] + names[rng.nextInt(names.length)] + " " + i;
+            catalog.add(new Product(i + 1, name, 1.0, 100, fruit ? "Fruit" : "Vegetable", 5, false, false));
+        }
+        catalog.sort(Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER));
+        index = ProductSearchIndex.build(catalog);
+    }
+
+    @Benchmark
+    public int[] search() {
+        return index.search(query, null, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int[] searchInCategory() {
+        return index.search(query, "Fruit", Integer.MAX_VALUE);
+    }
+}
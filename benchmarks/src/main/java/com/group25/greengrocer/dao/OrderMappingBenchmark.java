@@ -0,0 +1,121 @@
+package com.group25.greengrocer.dao;
+
+import com.group25.greengrocer.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderDao.mapRowToOrder over an in-memory result set of ROWS orders, i.e.
+ * the per-row cost of getAllOrders, findByCustomerId and the carrier queries
+ * without the database round trip. Lives in the dao package because
+ * mapRowToOrder is package-private.
+ *
+ * One operation maps all ROWS rows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderMappingBenchmark {
+
+    private static final int ROWS = 1_000;
+
+    private static final String[] COLUMNS = { "id", "customer_id", "carrier_id", "status", "order_time",
+            "requested_delivery_time", "delivered_time", "cancelled_time", "vat_rate", "subtotal", "discount_total",
+            "vat_total", "total", "applied_coupon_id", "loyalty_discount_rate", "note", "invoice_status",
+            "updated_at" };
+
+    private static final int[] TYPES = { Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP,
+            Types.TIMESTAMP, Types.TIMESTAMP, Types.TIMESTAMP, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE,
+            Types.DOUBLE, Types.DOUBLE, Types.BIGINT, Types.DOUBLE, Types.VARCHAR, Types.VARCHAR,
+            Types.TIMESTAMP };
+
+    private final OrderDao orderDao = new OrderDao();
+
+    private CachedRowSet rows;
+
+    @Setup
+    public void setUp() throws SQLException {
+        RowSetMetaDataImpl meta = new RowSetMetaDataImpl();
+        meta.setColumnCount(COLUMNS.length);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            meta.setColumnName(i + 1, COLUMNS[i]);
+            meta.setColumnLabel(i + 1, COLUMNS[i]);
+            meta.setColumnType(i + 1, TYPES[i]);
+            meta.setNullable(i + 1, RowSetMetaDataImpl.columnNullable);
+        }
+
+        rows = RowSetProvider.newFactory().createCachedRowSet();
+        rows.setMetaData(meta);
+        SplittableRandom rng = new SplittableRandom(42);
+        long start = Timestamp.valueOf("2025-01-01 00:00:00").getTime();
+        for (int i = 0; i < ROWS; i++) {
+            boolean delivered = rng.nextInt(4) != 0;
+            long orderTime = start + rng.nextLong(365L * 24 * 60 * 60 * 1000);
+            double subtotal = Math.round(rng.nextDouble() * 20_000) / 100.0;
+
+            rows.moveToInsertRow();
+            rows.updateLong(1, i + 1);
+            rows.updateLong(2, 1 + rng.nextInt(100_000));
+            if (delivered) {
+                rows.updateLong(3, 1 + rng.nextInt(200));
+            } else {
+                rows.updateNull(3);
+            }
+            rows.updateString(4, delivered ? "DELIVERED" : "PLACED");
+            rows.updateTimestamp(5, new Timestamp(orderTime));
+            rows.updateTimestamp(6, new Timestamp(orderTime + 86_400_000L));
+            if (delivered) {
+                rows.updateTimestamp(7, new Timestamp(orderTime + 90_000_000L));
+            } else {
+                rows.updateNull(7);
+            }
+            rows.updateNull(8);
+            rows.updateDouble(9, 0.18);
+            rows.updateDouble(10, subtotal);
+            rows.updateDouble(11, 0.0);
+            rows.updateDouble(12, Math.round(subtotal * 18) / 100.0);
+            rows.updateDouble(13, Math.round(subtotal * 118) / 100.0);
+            rows.updateNull(14);
+            rows.updateDouble(15, 0.0);
+            if (rng.nextInt(8) == 0) {
+                rows.updateString(16, "Please ring the bell");
+            } else {
+                rows.updateNull(16);
+            }
+            rows.updateString(17, delivered ? "READY" : "PENDING");
+            rows.updateTimestamp(18, new Timestamp(delivered ? orderTime + 90_000_000L : orderTime));
+            rows.insertRow();
+            rows.moveToCurrentRow();
+        }
+    }
+
+    @Benchmark
+    public void mapRows(Blackhole blackhole) throws SQLException {
+        rows.beforeFirst();
+        while (rows.next()) {
+            Order order = orderDao.mapRowToOrder(rows);
+            blackhole.consume(order);
+        }
+    }
+}
@@ -43,6 +43,23 @@ public class MainApp extends Application {
         stage.setScene(scene);
         stage.setTitle(App.APP_TITLE);
         stage.show();
+
+        // Render invoices still queued from an earlier run
+        com.group25.greengrocer.service.InvoiceService.getInstance().start();
+    }
+
+    /**
+     * Releases application resources when the JavaFX runtime shuts down.
+     *
+     * Stops the invoice workers and the background DAO executor and closes
+     * the pooled database connections so the MySQL server does not keep
+     * sessions open for an application that has already exited.
+     */
+    @Override
+    public void stop() {
+        com.group25.greengrocer.service.InvoiceService.getInstance().shutdown();
+        com.group25.greengrocer.dao.AsyncDao.shutdown();
+        com.group25.greengrocer.util.DbAdapter.closeConnection();
     }
 
     /**
@@ -0,0 +1,41 @@
+package com.group25.greengrocer.config;
+
+/**
+ * In-memory cache configuration constants.
+ *
+ * Every value has a default suited to a single shop workstation and can be
+ * overridden with a JVM system property, in the same way as DbConfig (for
+ * example -Dgreengrocer.imageCache.maxBytes=134217728).
+ */
+public final class CacheConfig {
+
+    /**
+     * Memory budget of the decoded product image cache in bytes, counted as
+     * width x height x 4 per image. Images beyond the budget are only softly
+     * referenced, so the garbage collector may reclaim them under memory
+     * pressure.
+     */
+    public static final long IMAGE_CACHE_MAX_BYTES = Long.getLong("greengrocer.imageCache.maxBytes",
+            64L * 1024 * 1024);
+
+    /**
+     * Minimum time between two catalog refreshes requested through
+     * CatalogService.refreshIfStale, so that screens reloading in quick
+     * succession share one delta query.
+     */
+    public static final long CATALOG_REFRESH_INTERVAL_MS = Long.getLong("greengrocer.catalog.refreshIntervalMs",
+            2000);
+
+    /**
+     * How far back each catalog delta query looks before the newest change
+     * already applied. A transaction that updated a product but committed
+     * after a refresh still carries its older updated_at value; the overlap
+     * makes sure such rows are picked up by the next refresh. Rows seen again
+     * are recognized by their unchanged updated_at and skipped.
+     */
+    public static final long CATALOG_WATERMARK_OVERLAP_MS = Long.getLong("greengrocer.catalog.watermarkOverlapMs",
+            5000);
+
+    private CacheConfig() {
+    }
+}
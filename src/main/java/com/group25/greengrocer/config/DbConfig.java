@@ -0,0 +1,183 @@
+package com.group25.greengrocer.config;
+
+/**
+ * Database configuration constants.
+ *
+ * This class centralizes the JDBC connection settings and the connection pool
+ * tuning values used by DbAdapter. Every value has a sensible default for the
+ * local development database and can be overridden with a JVM system property
+ * (for example -Dgreengrocer.db.url=jdbc:mysql://db-host:3306/grocery_db).
+ *
+ * Two profiles are available, selected with -Dgreengrocer.db.profile:
+ * "mysql" (the default) connects to the MySQL server above, "embedded" runs
+ * the same DAOs against an in-process H2 database in MySQL compatibility
+ * mode. The embedded database is created by the schema migrations on first
+ * use and seeded with demo accounts and products, so the application, its
+ * benchmarks and regression checks run without an external server.
+ */
+public final class DbConfig {
+
+    /**
+     * Name of the profile using the MySQL server.
+     */
+    public static final String PROFILE_MYSQL = "mysql";
+
+    /**
+     * Name of the profile using the embedded in-process database.
+     */
+    public static final String PROFILE_EMBEDDED = "embedded";
+
+    /**
+     * The selected database profile.
+     */
+    public static final String PROFILE = System.getProperty("greengrocer.db.profile", PROFILE_MYSQL).trim()
+            .toLowerCase();
+
+    /**
+     * Whether the embedded in-process database is used.
+     */
+    public static final boolean EMBEDDED = PROFILE_EMBEDDED.equals(PROFILE);
+
+    /**
+     * Database connection URL. The embedded default is a named in-memory
+     * database that lives until the JVM exits; point it at a file
+     * (jdbc:h2:./data/grocery_db;MODE=MySQL;...) to keep data between runs.
+     */
+    public static final String URL = System.getProperty("greengrocer.db.url", EMBEDDED
+            ? "jdbc:h2:mem:grocery_db;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1"
+            : "jdbc:mysql://localhost:3306/grocery_db");
+
+    /**
+     * Database username for authentication.
+     */
+    public static final String USER = System.getProperty("greengrocer.db.user", EMBEDDED ? "sa" : "myuser");
+
+    /**
+     * Database password for authentication.
+     */
+    public static final String PASSWORD = System.getProperty("greengrocer.db.password", EMBEDDED ? "" : "1234");
+
+    /**
+     * Whether the embedded database is filled with demo accounts and products
+     * when it is empty. Ignored for the MySQL profile.
+     */
+    public static final boolean EMBEDDED_DEMO_DATA = Boolean.parseBoolean(
+            System.getProperty("greengrocer.db.embedded.demoData", "true"));
+
+    /**
+     * Number of connections the pool keeps open even when the application is idle.
+     */
+    public static final int POOL_MIN_SIZE = Integer.getInteger("greengrocer.db.pool.minSize", 2);
+
+    /**
+     * Upper bound on the number of physical connections opened by the pool.
+     */
+    public static final int POOL_MAX_SIZE = Integer.getInteger("greengrocer.db.pool.maxSize", 10);
+
+    /**
+     * Maximum time in milliseconds a caller waits for a free connection before
+     * getConnection() fails with an SQLException.
+     */
+    public static final long POOL_CONNECTION_TIMEOUT_MS = Long.getLong("greengrocer.db.pool.connectionTimeoutMs",
+            10_000L);
+
+    /**
+     * Time in milliseconds after which an unused connection above the minimum
+     * pool size is closed by the housekeeping task.
+     */
+    public static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("greengrocer.db.pool.idleTimeoutMs", 600_000L);
+
+    /**
+     * Maximum age in milliseconds of a physical connection. Older connections are
+     * retired when they are returned or found idle, which keeps them below the
+     * server's wait_timeout.
+     */
+    public static final long POOL_MAX_LIFETIME_MS = Long.getLong("greengrocer.db.pool.maxLifetimeMs", 1_800_000L);
+
+    /**
+     * Timeout in seconds for the Connection.isValid() check performed when a
+     * connection is borrowed from the pool.
+     */
+    public static final int POOL_VALIDATION_TIMEOUT_SECONDS = Integer
+            .getInteger("greengrocer.db.pool.validationTimeoutSeconds", 2);
+
+    /**
+     * Interval in milliseconds between two runs of the housekeeping task that
+     * evicts idle connections and refills the pool to its minimum size.
+     */
+    public static final long POOL_HOUSEKEEPING_INTERVAL_MS = Long
+            .getLong("greengrocer.db.pool.housekeepingIntervalMs", 30_000L);
+
+    /**
+     * Time in milliseconds a borrowed connection may be held before it is
+     * reported as a possible leak together with the borrower's stack trace.
+     * A value of 0 disables leak detection.
+     */
+    public static final long POOL_LEAK_DETECTION_THRESHOLD_MS = Long
+            .getLong("greengrocer.db.pool.leakDetectionThresholdMs", 30_000L);
+
+    /**
+     * Number of prepared statements cached per pooled connection. A value of 0
+     * disables the statement cache.
+     */
+    public static final int STATEMENT_CACHE_SIZE = Integer.getInteger("greengrocer.db.statementCacheSize", 64);
+
+    /**
+     * Whether MySQL connections use server-side prepared statements. Combined
+     * with the statement cache this lets repeated queries skip server-side
+     * parsing.
+     */
+    public static final boolean USE_SERVER_PREPARED_STATEMENTS = Boolean.parseBoolean(
+            System.getProperty("greengrocer.db.useServerPrepStmts", "true"));
+
+    /**
+     * Whether MySQL connections send a JDBC batch to the server in as few
+     * round trips as possible (multi-row inserts, multi-statement updates)
+     * instead of one statement at a time.
+     */
+    public static final boolean REWRITE_BATCHED_STATEMENTS = Boolean.parseBoolean(
+            System.getProperty("greengrocer.db.rewriteBatchedStatements", "true"));
+
+    /**
+     * Whether statement executions are timed and reported to QueryMetrics.
+     */
+    public static final boolean QUERY_METRICS_ENABLED = Boolean.parseBoolean(
+            System.getProperty("greengrocer.db.queryMetrics", "true"));
+
+    /**
+     * Executions taking at least this many milliseconds are logged as slow
+     * queries together with their bound parameters. A negative value disables
+     * the slow-query log.
+     */
+    public static final long SLOW_QUERY_THRESHOLD_MS = Long.getLong("greengrocer.db.slowQueryThresholdMs", 200L);
+
+    /**
+     * Number of slow queries kept in memory for the owner's diagnostics view.
+     */
+    public static final int SLOW_QUERY_LOG_SIZE = Integer.getInteger("greengrocer.db.slowQueryLogSize", 100);
+
+    /**
+     * Whether pending schema migrations are applied when the connection pool
+     * is created.
+     */
+    public static final boolean MIGRATE_ON_STARTUP = Boolean.parseBoolean(
+            System.getProperty("greengrocer.db.migrateOnStartup", "true"));
+
+    /**
+     * How long a starting workstation waits for another one that is applying
+     * the schema migrations on the same MySQL server.
+     */
+    public static final int MIGRATION_LOCK_TIMEOUT_SECONDS = Integer.getInteger(
+            "greengrocer.db.migrationLockTimeoutSeconds", 120);
+
+    /**
+     * Whether the EXPLAIN check of the hot DAO queries runs after the
+     * migrations. Off by default because it adds a round trip per query to the
+     * application start.
+     */
+    public static final boolean VERIFY_QUERY_PLANS = Boolean.parseBoolean(
+            System.getProperty("greengrocer.db.verifyQueryPlans", "false"));
+
+    private DbConfig() {
+    }
+}
@@ -0,0 +1,51 @@
+package com.group25.greengrocer.config;
+
+/**
+ * Invoice queue configuration constants.
+ *
+ * Every value has a default suited to a single shop workstation and can be
+ * overridden with a JVM system property, in the same way as DbConfig (for
+ * example -Dgreengrocer.invoice.workers=4).
+ */
+public final class InvoiceConfig {
+
+    /**
+     * Number of threads rendering invoices. Rendering is CPU-bound, so the
+     * default leaves half of the cores to the UI and the database driver.
+     */
+    public static final int WORKERS = Integer.getInteger("greengrocer.invoice.workers",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+    /**
+     * Interval at which the queue is checked for due jobs: jobs left over
+     * from an earlier run, jobs queued by another workstation and retries.
+     * Invoices of orders placed here are started right away.
+     */
+    public static final long POLL_INTERVAL_MS = Long.getLong("greengrocer.invoice.pollIntervalMs", 5000);
+
+    /**
+     * Maximum number of due jobs read per poll.
+     */
+    public static final int POLL_BATCH_SIZE = Integer.getInteger("greengrocer.invoice.pollBatchSize", 32);
+
+    /**
+     * Number of attempts after which a job is given up and its order marked
+     * FAILED. The invoice is still rendered on demand when downloaded.
+     */
+    public static final int MAX_ATTEMPTS = Integer.getInteger("greengrocer.invoice.maxAttempts", 5);
+
+    /**
+     * Delay before the first retry of a failed job. Each further retry waits
+     * twice as long, up to RETRY_MAX_DELAY_MS.
+     */
+    public static final long RETRY_BASE_DELAY_MS = Long.getLong("greengrocer.invoice.retryBaseDelayMs", 5000);
+
+    /**
+     * Longest delay between two attempts of a job.
+     */
+    public static final long RETRY_MAX_DELAY_MS = Long.getLong("greengrocer.invoice.retryMaxDelayMs",
+            10 * 60 * 1000L);
+
+    private InvoiceConfig() {
+    }
+}
@@ -0,0 +1,31 @@
+package com.group25.greengrocer.config;
+
+/**
+ * Order change feed configuration constants.
+ *
+ * Every value has a default suited to a single shop workstation and can be
+ * overridden with a JVM system property, in the same way as DbConfig (for
+ * example -Dgreengrocer.orderFeed.pollIntervalMs=1000).
+ */
+public final class OrderFeedConfig {
+
+    /**
+     * Interval at which OrderChangeFeed reads the orders changed since its
+     * last poll, while at least one view is subscribed. Each poll is one
+     * index range scan on orders.updated_at that returns nothing when nothing
+     * changed.
+     */
+    public static final long POLL_INTERVAL_MS = Long.getLong("greengrocer.orderFeed.pollIntervalMs", 500);
+
+    /**
+     * How far back each poll looks before the newest change already
+     * delivered. An order updated by a transaction that committed after a
+     * poll still carries its older updated_at value; the overlap makes sure
+     * it is picked up by the next poll. Rows seen again are recognized by
+     * their unchanged updated_at and skipped.
+     */
+    public static final long WATERMARK_OVERLAP_MS = Long.getLong("greengrocer.orderFeed.watermarkOverlapMs", 5000);
+
+    private OrderFeedConfig() {
+    }
+}
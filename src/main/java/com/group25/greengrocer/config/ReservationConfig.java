@@ -0,0 +1,28 @@
+package com.group25.greengrocer.config;
+
+/**
+ * Stock reservation configuration constants.
+ *
+ * Every value has a default suited to a single shop workstation and can be
+ * overridden with a JVM system property, in the same way as DbConfig (for
+ * example -Dgreengrocer.reservation.holdTtlMs=600000).
+ */
+public final class ReservationConfig {
+
+    /**
+     * How long a cart holds stock after its last change. An abandoned cart
+     * releases its products once the hold expires; every change to a cart
+     * line renews the hold of that line, and checkout renews all of them.
+     * Counted in whole seconds.
+     */
+    public static final long HOLD_TTL_MS = Long.getLong("greengrocer.reservation.holdTtlMs", 15 * 60 * 1000L);
+
+    /**
+     * Interval at which the rows of expired holds are deleted. Expired holds
+     * stop counting against the stock right away, whatever this interval.
+     */
+    public static final long SWEEP_INTERVAL_MS = Long.getLong("greengrocer.reservation.sweepIntervalMs", 30_000L);
+
+    private ReservationConfig() {
+    }
+}
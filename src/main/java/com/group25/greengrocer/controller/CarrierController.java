@@ -3,6 +3,7 @@ package com.group25.greengrocer.controller;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
+import com.group25.greengrocer.dao.AsyncDao;
 import com.group25.greengrocer.dao.OrderDao;
 import com.group25.greengrocer.model.Order;
 
@@ -110,6 +111,20 @@ public class CarrierController {
     private com.group25.greengrocer.dao.OrderItemDao orderItemDao = new com.group25.greengrocer.dao.OrderItemDao();
     private com.group25.greengrocer.dao.UserDao userDao = new com.group25.greengrocer.dao.UserDao();
     private DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private com.group25.greengrocer.service.OrderChangeFeed orderChangeFeed = com.group25.greengrocer.service.OrderChangeFeed
+            .getInstance();
+    private final java.util.function.Consumer<List<Order>> orderChanges = this::applyOrderChanges;
+
+    /**
+     * Order changes received while a table is loading, with their rows. A
+     * load replaces its table, so these are applied again on top of its rows.
+     * Only used on the FX thread.
+     */
+    private final List<Order> changesDuringLoad = new java.util.ArrayList<>();
+    private final List<OrderDisplay> rowsDuringLoad = new java.util.ArrayList<>();
+    private int loadsInFlight;
+    private com.group25.greengrocer.service.OrderClaimService orderClaimService = com.group25.greengrocer.service.OrderClaimService
+            .getInstance();
 
     // Session data
     private long carrierId;
@@ -139,6 +154,7 @@ public class CarrierController {
         this.carrierUsername = username;
         welcomeText.setText(username);
 
+        orderChangeFeed.subscribe(orderChanges);
         handleRefreshAll();
     }
 
@@ -180,8 +196,9 @@ public class CarrierController {
 
     private void updateRatingDisplay() {
         if (ratingLabel != null) {
-            double avg = ratingDao.getAverageRating((int) carrierId);
-            ratingLabel.setText(String.format("Rating: %.1f/5", avg));
+            AsyncDao.load(() -> ratingDao.getAverageRating((int) carrierId),
+                    avg -> ratingLabel.setText(String.format("Rating: %.1f/5", avg)),
+                    null);
         }
     }
 
@@ -350,135 +367,283 @@ public class CarrierController {
 
     @FXML
     private void handleRefreshAvailable() {
-        try {
-            List<Order> orders = orderDao.findAvailableOrders();
-            ObservableList<OrderDisplay> displayOrders = FXCollections.observableArrayList();
+        loadsInFlight++;
+        AsyncDao.load(() -> toActiveOrderDisplays(orderDao.findAvailableOrders()),
+                displayOrders -> {
+                    availableOrdersTable.setItems(displayOrders);
+                    System.out.println("Loaded " + displayOrders.size() + " available orders");
+                    finishLoad();
+                },
+                e -> {
+                    finishLoad();
+                    showError("Failed to load available orders: " + e.getMessage());
+                });
+    }
 
-            for (Order order : orders) {
-                com.group25.greengrocer.dao.UserDao.UserProfile user = userDao.findById(order.getCustomerId());
-                String customerName = user != null ? user.getFullName() : "Unknown";
-                String customerAddress = user != null ? user.getAddressLine() : "Unknown";
-
-                displayOrders.add(new OrderDisplay(
-                        order.getId(),
-                        customerName,
-                        customerAddress,
-                        order.getRequestedDeliveryTime() != null
-                                ? order.getRequestedDeliveryTime().format(dateFormatter)
-                                : "N/A",
-                        String.format("$%.2f", order.getTotal()),
-                        null,
-                        null,
-                        order.getNote()));
-            }
+    @FXML
+    private void handleRefreshCurrent() {
+        loadsInFlight++;
+        AsyncDao.load(() -> toActiveOrderDisplays(orderDao.findByCarrierId(carrierId)),
+                displayOrders -> {
+                    currentOrdersTable.setItems(displayOrders);
+                    System.out.println("Loaded " + displayOrders.size() + " current orders");
+                    finishLoad();
+                },
+                e -> {
+                    finishLoad();
+                    showError("Failed to load current orders: " + e.getMessage());
+                });
+    }
 
-            availableOrdersTable.setItems(displayOrders);
-            System.out.println("Loaded " + orders.size() + " available orders");
-            updateStats();
-        } catch (Exception e) {
-            e.printStackTrace();
-            showError("Failed to load available orders: " + e.getMessage());
+    @FXML
+    private void handleRefreshCompleted() {
+        loadsInFlight++;
+        AsyncDao.load(this::loadCompletedOrderDisplays,
+                displayOrders -> {
+                    completedOrdersTable.setItems(displayOrders);
+                    System.out.println("Loaded " + displayOrders.size() + " completed orders");
+                    finishLoad();
+                },
+                e -> {
+                    finishLoad();
+                    showError("Failed to load completed orders: " + e.getMessage());
+                });
+    }
+
+    /**
+     * Re-applies the changes received since the loads in flight started,
+     * which may have committed after a load read its rows.
+     */
+    private void finishLoad() {
+        applyRows(changesDuringLoad, rowsDuringLoad);
+        if (--loadsInFlight == 0) {
+            changesDuringLoad.clear();
+            rowsDuringLoad.clear();
         }
     }
 
-    @FXML
-    private void handleRefreshCurrent() {
-        try {
-            List<Order> orders = orderDao.findByCarrierId(carrierId);
-            ObservableList<OrderDisplay> displayOrders = FXCollections.observableArrayList();
+    /**
+     * Builds the rows of the available and current order tables. Runs on a
+     * background thread, so it must not touch any UI node.
+     */
+    private ObservableList<OrderDisplay> toActiveOrderDisplays(List<Order> orders) throws java.sql.SQLException {
+        ObservableList<OrderDisplay> displayOrders = FXCollections.observableArrayList();
 
-            for (Order order : orders) {
-                com.group25.greengrocer.dao.UserDao.UserProfile user = userDao.findById(order.getCustomerId());
-                String customerName = user != null ? user.getFullName() : "Unknown";
-                String customerAddress = user != null ? user.getAddressLine() : "Unknown";
-
-                displayOrders.add(new OrderDisplay(
-                        order.getId(),
-                        customerName,
-                        customerAddress,
-                        order.getRequestedDeliveryTime() != null
-                                ? order.getRequestedDeliveryTime().format(dateFormatter)
-                                : "N/A",
-                        String.format("$%.2f", order.getTotal()),
-                        null,
-                        null,
-                        order.getNote()));
+        for (Order order : orders) {
+            displayOrders.add(toActiveOrderDisplay(order));
+        }
+        return displayOrders;
+    }
+
+    private OrderDisplay toActiveOrderDisplay(Order order) throws java.sql.SQLException {
+        com.group25.greengrocer.dao.UserDao.UserProfile user = userDao.findById(order.getCustomerId());
+        String customerName = user != null ? user.getFullName() : "Unknown";
+        String customerAddress = user != null ? user.getAddressLine() : "Unknown";
+
+        return new OrderDisplay(
+                order.getId(),
+                customerName,
+                customerAddress,
+                order.getRequestedDeliveryTime() != null
+                        ? order.getRequestedDeliveryTime().format(dateFormatter)
+                        : "N/A",
+                String.format("$%.2f", order.getTotal()),
+                null,
+                null,
+                order.getNote());
+    }
+
+    /**
+     * Builds the rows of the completed order table. Runs on a background
+     * thread, so it must not touch any UI node.
+     */
+    private ObservableList<OrderDisplay> loadCompletedOrderDisplays() throws java.sql.SQLException {
+        List<Order> orders = orderDao.findCompletedByCarrierId(carrierId);
+        ObservableList<OrderDisplay> displayOrders = FXCollections.observableArrayList();
+
+        List<com.group25.greengrocer.model.CarrierRating> ratings = ratingDao
+                .getRatingsByCarrierId((int) carrierId);
+        java.util.Map<Integer, Integer> ratingMap = new java.util.HashMap<>();
+        for (com.group25.greengrocer.model.CarrierRating r : ratings) {
+            ratingMap.put(r.getOrderId(), r.getRating());
+        }
+
+        for (Order order : orders) {
+            String ratingStr = "-";
+            if (ratingMap.containsKey((int) order.getId())) {
+                ratingStr = String.valueOf(ratingMap.get((int) order.getId()));
             }
 
-            currentOrdersTable.setItems(displayOrders);
-            System.out.println("Loaded " + orders.size() + " current orders");
-            updateStats();
-        } catch (Exception e) {
-            e.printStackTrace();
-            showError("Failed to load current orders: " + e.getMessage());
+            displayOrders.add(toCompletedOrderDisplay(order, ratingStr));
         }
+        return displayOrders;
     }
 
-    @FXML
-    private void handleRefreshCompleted() {
+    private OrderDisplay toCompletedOrderDisplay(Order order, String rating) throws java.sql.SQLException {
+        com.group25.greengrocer.dao.UserDao.UserProfile user = userDao.findById(order.getCustomerId());
+        String customerName = user != null ? user.getFullName() : "Unknown";
+
+        return new OrderDisplay(
+                order.getId(),
+                customerName,
+                null, // Address not needed for completed
+                order.getRequestedDeliveryTime() != null
+                        ? order.getRequestedDeliveryTime().format(dateFormatter)
+                        : "N/A",
+                String.format("$%.2f", order.getTotal()),
+                order.getDeliveredTime() != null
+                        ? order.getDeliveredTime().format(dateFormatter)
+                        : "N/A",
+                rating,
+                order.getNote());
+    }
+
+    /**
+     * Receives changed orders from the OrderChangeFeed on its thread, builds
+     * their rows and moves them into, within or out of the three tables on
+     * the FX thread, instead of reloading the tables.
+     */
+    private void applyOrderChanges(List<Order> orders) {
+        List<Order> changed = new java.util.ArrayList<>();
+        List<OrderDisplay> rows = new java.util.ArrayList<>();
         try {
-            List<Order> orders = orderDao.findCompletedByCarrierId(carrierId);
-            ObservableList<OrderDisplay> displayOrders = FXCollections.observableArrayList();
-
-            List<com.group25.greengrocer.model.CarrierRating> ratings = ratingDao
-                    .getRatingsByCarrierId((int) carrierId);
-            java.util.Map<Integer, Integer> ratingMap = new java.util.HashMap<>();
-            for (com.group25.greengrocer.model.CarrierRating r : ratings) {
-                ratingMap.put(r.getOrderId(), r.getRating());
+            for (Order order : orders) {
+                boolean available = order.getStatus() == com.group25.greengrocer.model.OrderStatus.PLACED
+                        && order.getCarrierId() == null;
+                boolean mine = order.getCarrierId() != null && order.getCarrierId() == carrierId;
+                boolean current = mine && order.getStatus() == com.group25.greengrocer.model.OrderStatus.ASSIGNED;
+                boolean completed = mine && order.getStatus() == com.group25.greengrocer.model.OrderStatus.DELIVERED;
+
+                changed.add(order);
+                if (available || current) {
+                    rows.add(toActiveOrderDisplay(order));
+                } else if (completed) {
+                    rows.add(toCompletedOrderDisplay(order, "-"));
+                } else {
+                    rows.add(null); // Not shown to this carrier (any more)
+                }
             }
+        } catch (java.sql.SQLException e) {
+            e.printStackTrace();
+            return; // The next refresh shows the changes
+        }
 
-            for (Order order : orders) {
-                com.group25.greengrocer.dao.UserDao.UserProfile user = userDao.findById(order.getCustomerId());
-                String customerName = user != null ? user.getFullName() : "Unknown";
+        AsyncDao.FX.execute(() -> {
+            if (loadsInFlight > 0) {
+                changesDuringLoad.addAll(changed);
+                rowsDuringLoad.addAll(rows);
+            }
+            applyRows(changed, rows);
+        });
+    }
 
-                String ratingStr = "-";
-                if (ratingMap.containsKey((int) order.getId())) {
-                    ratingStr = String.valueOf(ratingMap.get((int) order.getId()));
+    /**
+     * Moves changed orders into, within or out of the three tables. Applying
+     * the same change twice gives the same tables.
+     *
+     * @param changed the changed orders
+     * @param rows    their rows, null for orders not shown to this carrier
+     */
+    private void applyRows(List<Order> changed, List<OrderDisplay> rows) {
+        for (int i = 0; i < changed.size(); i++) {
+            Order order = changed.get(i);
+            OrderDisplay row = rows.get(i);
+            removeRow(availableOrdersTable.getItems(), order.getId());
+            removeRow(currentOrdersTable.getItems(), order.getId());
+            OrderDisplay rated = removeRow(completedOrdersTable.getItems(), order.getId());
+            if (row == null) {
+                continue;
+            }
+            if (row.getDeliveredDate() != null) {
+                if (rated != null) {
+                    row = new OrderDisplay(row.getOrderId(), row.getCustomerName(), null, row.getDeliveryDate(),
+                            row.getTotal(), row.getDeliveredDate(), rated.getRating(), row.getNote());
                 }
+                insertSorted(completedOrdersTable.getItems(), row, byDeliveredDateDesc());
+            } else if (order.getCarrierId() == null) {
+                insertSorted(availableOrdersTable.getItems(), row, byDeliveryDate());
+            } else {
+                insertSorted(currentOrdersTable.getItems(), row, byDeliveryDate());
+            }
+        }
+        updateStats();
+    }
 
-                displayOrders.add(new OrderDisplay(
-                        order.getId(),
-                        customerName,
-                        null, // Address not needed for completed
-                        order.getRequestedDeliveryTime() != null
-                                ? order.getRequestedDeliveryTime().format(dateFormatter)
-                                : "N/A",
-                        String.format("$%.2f", order.getTotal()),
-                        order.getDeliveredTime() != null
-                                ? order.getDeliveredTime().format(dateFormatter)
-                                : "N/A",
-                        ratingStr,
-                        order.getNote()));
+    private OrderDisplay removeRow(List<OrderDisplay> rows, long orderId) {
+        for (java.util.Iterator<OrderDisplay> it = rows.iterator(); it.hasNext();) {
+            OrderDisplay row = it.next();
+            if (row.getOrderId() == orderId) {
+                it.remove();
+                return row;
             }
+        }
+        return null;
+    }
 
-            completedOrdersTable.setItems(displayOrders);
-            System.out.println("Loaded " + orders.size() + " completed orders");
-            updateStats();
-        } catch (Exception e) {
-            e.printStackTrace();
-            showError("Failed to load completed orders: " + e.getMessage());
+    private void insertSorted(List<OrderDisplay> rows, OrderDisplay row, java.util.Comparator<OrderDisplay> order) {
+        int index = 0;
+        while (index < rows.size() && order.compare(rows.get(index), row) <= 0) {
+            index++;
         }
+        rows.add(index, row);
     }
 
-    private void handleSelectOrder(OrderDisplay orderDisplay) {
+    /**
+     * Same order as the available and current order queries.
+     */
+    private java.util.Comparator<OrderDisplay> byDeliveryDate() {
+        return java.util.Comparator.comparing(row -> parseDisplayDate(row.getDeliveryDate()),
+                java.util.Comparator.nullsFirst(java.util.Comparator.naturalOrder()));
+    }
+
+    /**
+     * Same order as the completed order query.
+     */
+    private java.util.Comparator<OrderDisplay> byDeliveredDateDesc() {
+        return java.util.Comparator.comparing(row -> parseDisplayDate(row.getDeliveredDate()),
+                java.util.Comparator.nullsLast(java.util.Comparator.reverseOrder()));
+    }
+
+    private java.time.LocalDateTime parseDisplayDate(String text) {
         try {
-            orderDao.assignCarrier(orderDisplay.getOrderId(), carrierId);
-            showInfo("Order #" + orderDisplay.getOrderId() + " assigned successfully!");
-            handleRefreshAll();
-        } catch (java.sql.SQLException e) {
-            e.printStackTrace();
-            if (e.getMessage().contains("Order already assigned") || e.getMessage().contains("not found")) {
-                showError("Bu sipariş başka bir carrier tarafından alındı"); // Race condition message
-            } else {
-                showError("Failed to select order: " + e.getMessage());
-            }
-            handleRefreshAll(); // Refresh to remove the stale order
-        } catch (Exception e) {
-            e.printStackTrace();
-            showError("An unexpected error occurred: " + e.getMessage());
+            return java.time.LocalDateTime.parse(text, dateFormatter);
+        } catch (java.time.format.DateTimeParseException e) {
+            return null; // "N/A"
         }
     }
 
+    private void handleSelectOrder(OrderDisplay orderDisplay) {
+        AsyncDao.load(() -> orderClaimService.claim(orderDisplay.getOrderId(), carrierId),
+                claimed -> {
+                    if (claimed) {
+                        showInfo("Order #" + orderDisplay.getOrderId() + " assigned successfully!");
+                    } else {
+                        showError("Bu sipariş başka bir carrier tarafından alındı"); // Race condition message
+                    }
+                    orderChangeFeed.pollNow(); // Moves or removes the order
+                },
+                e -> showError("Failed to select order: " + e.getMessage()));
+    }
+
+    /**
+     * Takes the next available order, earliest requested delivery first,
+     * without picking one from the list. Carriers claiming at the same time
+     * always get different orders.
+     */
+    @FXML
+    private void handleClaimNextOrder() {
+        AsyncDao.load(() -> orderClaimService.claimNext(carrierId, 1),
+                claimed -> {
+                    if (claimed.isEmpty()) {
+                        showInfo("There are no available orders right now.");
+                    } else {
+                        showInfo("Order #" + claimed.get(0).getId() + " assigned successfully!");
+                    }
+                    orderChangeFeed.pollNow();
+                },
+                e -> showError("Failed to claim an order: " + e.getMessage()));
+    }
+
     private void handleCompleteOrder(OrderDisplay orderDisplay) {
         // Create a dialog to enter delivery date
         javafx.scene.control.Dialog<java.time.LocalDateTime> dialog = new javafx.scene.control.Dialog<>();
@@ -536,7 +701,7 @@ public class CarrierController {
                 orderDao.completeOrderWithDate(orderDisplay.getOrderId(), deliveryDateTime);
                 showInfo("Order #" + orderDisplay.getOrderId() + " completed successfully!\nDelivery: "
                         + deliveryDateTime.format(dateFormatter));
-                handleRefreshAll();
+                orderChangeFeed.pollNow();
             } catch (Exception e) {
                 e.printStackTrace();
                 showError("Failed to complete order: " + e.getMessage());
@@ -579,6 +744,7 @@ public class CarrierController {
             javafx.fxml.FXMLLoader loader = new javafx.fxml.FXMLLoader(
                     getClass().getResource("/fxml/login.fxml"));
             javafx.scene.Parent root = loader.load();
+            orderChangeFeed.unsubscribe(orderChanges);
             welcomeText.getScene().setRoot(root);
         } catch (java.io.IOException e) {
             e.printStackTrace();
@@ -652,6 +818,7 @@ public class CarrierController {
             ProfileController profileController = loader.getController();
             profileController.setUserSession(carrierId, carrierUsername, "carrier");
 
+            orderChangeFeed.unsubscribe(orderChanges);
             welcomeText.getScene().setRoot(root);
         } catch (java.io.IOException e) {
             e.printStackTrace();
@@ -1,13 +1,12 @@
 package com.group25.greengrocer.controller;
 
-import com.group25.greengrocer.dao.ProductDao;
+import com.group25.greengrocer.dao.AsyncDao;
 import com.group25.greengrocer.model.Product;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
 import javafx.scene.image.ImageView;
-import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.layout.BorderPane;
@@ -28,11 +27,14 @@ import com.group25.greengrocer.model.Message;
 import com.group25.greengrocer.dao.MessageDao;
 import com.group25.greengrocer.dao.OrderDao;
 import java.io.File;
-import java.io.FileOutputStream;
 
 import javafx.collections.ObservableList;
 import com.group25.greengrocer.dao.UserDao;
 import com.group25.greengrocer.service.LoyaltyService;
+import com.group25.greengrocer.service.CatalogService;
+import com.group25.greengrocer.service.PricingService;
+import com.group25.greengrocer.service.InvoiceService;
+import com.group25.greengrocer.service.StockReservationService;
 import com.group25.greengrocer.model.Coupon;
 import com.group25.greengrocer.dao.CouponDao;
 
@@ -41,23 +43,23 @@ public class CustomerController {
     @FXML
     private Text welcomeText;
     @FXML
-    private FlowPane vegPane;
-    @FXML
-    private FlowPane fruitPane;
-    @FXML
     private TabPane productTabPane;
     @FXML
-    private ToggleButton vegetablesToggle;
-    @FXML
-    private ToggleButton fruitsToggle;
-    @FXML
-    private ToggleGroup categoryToggleGroup;
-    @FXML
     private HBox selectorBar;
     @FXML
-    private ScrollPane vegetableView;
+    private TextField productSearchField;
+
+    /**
+     * Virtualized product grid: each cell is one row of cards, and only the
+     * rows in view have cells.
+     */
     @FXML
-    private ScrollPane fruitView;
+    private ListView<List<ProductState>> productGrid;
+
+    /**
+     * One toggle per category, created from the catalog's categories.
+     */
+    private final ToggleGroup categoryToggleGroup = new ToggleGroup();
 
     // Header Buttons for Animation
     @FXML
@@ -69,71 +71,109 @@ public class CustomerController {
 
     @FXML
     public void initialize() {
-        // Create Vegetables Toggle Content: Icon + Label in VBox
-        javafx.scene.shape.SVGPath vegIcon = new javafx.scene.shape.SVGPath();
-        vegIcon.setContent(
-                "M17,8C8,10 5.9,16.17 3.82,21.34L5.71,22L6.66,19.7C7.14,19.87 7.64,20 8,20C19,20 22,3 22,3C21,5 14,5.25 9,6.25C4,7.25 2,11.5 2,13.5C2,15.5 3.75,17.25 3.75,17.25C7,8 17,8 17,8Z");
-        vegIcon.getStyleClass().add("selector-icon");
-        vegIcon.setScaleX(0.9);
-        vegIcon.setScaleY(0.9);
-
-        Label vegLabel = new Label("Vegetables");
-        vegLabel.getStyleClass().add("selector-label");
-
-        VBox vegBox = new VBox(6, vegIcon, vegLabel);
-        vegBox.setAlignment(javafx.geometry.Pos.CENTER);
-        vegetablesToggle.setGraphic(vegBox);
-
-        // Create Fruits Toggle Content: Icon + Label in VBox
-        javafx.scene.shape.SVGPath fruitIcon = new javafx.scene.shape.SVGPath();
-        fruitIcon.setContent(
-                "M20,10C22,13 17,22 15,22C13,22 13,21 12,21C11,21 11,22 9,22C7,22 2,13 4,10C6,7 9,7 11,8V5H13V8C15,7 18,7 20,10Z");
-        fruitIcon.getStyleClass().add("selector-icon");
-        fruitIcon.setScaleX(0.9);
-        fruitIcon.setScaleY(0.9);
-
-        Label fruitLabel = new Label("Fruits");
-        fruitLabel.getStyleClass().add("selector-label");
-
-        VBox fruitBox = new VBox(6, fruitIcon, fruitLabel);
-        fruitBox.setAlignment(javafx.geometry.Pos.CENTER);
-        fruitsToggle.setGraphic(fruitBox);
-
         // Setup tables
         setupOrderTable();
         setupMessageTable();
 
-        // Set default selection
-        vegetablesToggle.setSelected(true);
+        setupProductGrid();
 
-        // Add listener to toggle views
+        // Category toggles are created once the categories are known; the
+        // products of a category are only loaded when its toggle is selected
         categoryToggleGroup.selectedToggleProperty().addListener((obs, oldToggle, newToggle) -> {
-            if (newToggle == vegetablesToggle) {
-                vegetableView.setVisible(true);
-                vegetableView.setManaged(true);
-                fruitView.setVisible(false);
-                fruitView.setManaged(false);
-            } else if (newToggle == fruitsToggle) {
-                vegetableView.setVisible(false);
-                vegetableView.setManaged(false);
-                fruitView.setVisible(true);
-                fruitView.setManaged(true);
+            if (newToggle == null) {
+                oldToggle.setSelected(true); // Keep one category selected
+            } else if (oldToggle != null) {
+                productGrid.scrollTo(0);
+                refreshProductCards();
             }
         });
+        AsyncDao.load(catalogService::getCategories, this::createCategoryToggles, null);
 
         // Apply smooth hover animations
         applyHoverScale(shopButton, 1.05);
         applyHoverScale(cartButton, 1.05);
         applyHoverScale(menuButton, 1.05);
-        applyHoverScale(vegetablesToggle, 1.05);
-        applyHoverScale(fruitsToggle, 1.05);
 
-        refreshProductCards();
+        // Search as the customer types, once typing pauses
+        javafx.animation.PauseTransition searchDebounce = new javafx.animation.PauseTransition(
+                javafx.util.Duration.millis(150));
+        searchDebounce.setOnFinished(e -> refreshProductCards());
+        productSearchField.textProperty().addListener((obs, oldText, newText) -> searchDebounce.playFromStart());
 
         // Default: Shop View
         updateNavigationState("SHOP");
     }
 
+    /**
+     * Adds a toggle for every category, sorted by name, with vegetables
+     * selected first as before, and shows the selected category.
+     */
+    private void createCategoryToggles(java.util.Map<String, Integer> categories) {
+        List<String> names = new java.util.ArrayList<>(categories.keySet());
+        java.util.Collections.sort(names);
+        ToggleButton first = null;
+        ToggleButton vegetables = null;
+        int index = 0;
+        for (String name : names) {
+            ToggleButton toggle = createCategoryToggle(name);
+            selectorBar.getChildren().add(index++, toggle);
+            if (first == null) {
+                first = toggle;
+            }
+            if (vegetables == null && name.toLowerCase().startsWith("veg")) {
+                vegetables = toggle;
+            }
+        }
+        ToggleButton initial = vegetables != null ? vegetables : first;
+        if (initial != null) {
+            initial.setSelected(true);
+        }
+        refreshProductCards();
+    }
+
+    private ToggleButton createCategoryToggle(String category) {
+        ToggleButton toggle = new ToggleButton();
+        toggle.setUserData(category);
+        toggle.setToggleGroup(categoryToggleGroup);
+        toggle.getStyleClass().add("selector-toggle");
+        toggle.setPrefWidth(110);
+        toggle.setPrefHeight(40);
+
+        // Icon + Label in VBox; the known categories have their own icon
+        String lower = category.toLowerCase();
+        String iconPath = null;
+        String text = category;
+        if (lower.startsWith("veg")) {
+            iconPath = "M17,8C8,10 5.9,16.17 3.82,21.34L5.71,22L6.66,19.7C7.14,19.87 7.64,20 8,20C19,20 22,3 22,3C21,5 14,5.25 9,6.25C4,7.25 2,11.5 2,13.5C2,15.5 3.75,17.25 3.75,17.25C7,8 17,8 17,8Z";
+            text = "Vegetables";
+        } else if (lower.startsWith("fruit")) {
+            iconPath = "M20,10C22,13 17,22 15,22C13,22 13,21 12,21C11,21 11,22 9,22C7,22 2,13 4,10C6,7 9,7 11,8V5H13V8C15,7 18,7 20,10Z";
+            text = "Fruits";
+        }
+
+        Label label = new Label(text);
+        label.getStyleClass().add("selector-label");
+        VBox box = new VBox(6, label);
+        box.setAlignment(javafx.geometry.Pos.CENTER);
+        if (iconPath != null) {
+            javafx.scene.shape.SVGPath icon = new javafx.scene.shape.SVGPath();
+            icon.setContent(iconPath);
+            icon.getStyleClass().add("selector-icon");
+            icon.setScaleX(0.9);
+            icon.setScaleY(0.9);
+            box.getChildren().add(0, icon);
+        }
+        toggle.setGraphic(box);
+
+        applyHoverScale(toggle, 1.05);
+        return toggle;
+    }
+
+    private String getSelectedCategory() {
+        Toggle selected = categoryToggleGroup.getSelectedToggle();
+        return selected != null ? (String) selected.getUserData() : null;
+    }
+
     private void updateNavigationState(String currentView) {
         if (shopButton == null)
             return;
@@ -211,30 +251,94 @@ public class CustomerController {
 
     // --- Order History Views ---
 
-    private final ProductDao productDao = new ProductDao();
+    private final CatalogService catalogService = CatalogService.getInstance();
+    private final StockReservationService reservationService = StockReservationService.getInstance();
+
+    /**
+     * Identifies this window's cart to the reservation service.
+     */
+    private final String cartId = java.util.UUID.randomUUID().toString();
+
+    /**
+     * Products whose hold is being checked. Further clicks on them are
+     * ignored until the check is back, so holds apply in click order.
+     */
+    private final java.util.Set<Integer> pendingHolds = new java.util.HashSet<>();
     private final UserDao userDao = new UserDao();
     private final LoyaltyService loyaltyService = new LoyaltyService();
+    private final PricingService pricingService = new PricingService();
     private final List<CartItem> cart = new java.util.ArrayList<>();
 
+    /**
+     * Observable state of one product in the shop, shared by the card showing
+     * it and its cart line. Cart clicks only change these properties and the
+     * bound labels follow, so a quantity change updates one card without
+     * rebuilding anything or querying the database.
+     */
+    private class ProductState {
+        final javafx.beans.property.ObjectProperty<Product> product = new javafx.beans.property.SimpleObjectProperty<>();
+
+        /** Stock as last read from the catalog snapshot */
+        final javafx.beans.property.DoubleProperty stock = new javafx.beans.property.SimpleDoubleProperty();
+
+        /** Quantity in the cart, 0 if the product is not in the cart */
+        final javafx.beans.property.DoubleProperty quantity = new javafx.beans.property.SimpleDoubleProperty();
+
+        final javafx.beans.binding.DoubleBinding unitPrice = javafx.beans.binding.Bindings.createDoubleBinding(
+                () -> product.get() == null ? 0.0 : pricingService.getDynamicPrice(product.get(), stock.get()),
+                product, stock);
+
+        final javafx.beans.binding.BooleanBinding inCart = quantity.greaterThan(0);
+
+        ProductState(Product product) {
+            update(product);
+            quantity.addListener((obs, oldQty, newQty) -> updateCartTotal());
+            unitPrice.addListener((obs, oldPrice, newPrice) -> updateCartTotal());
+        }
+
+        void update(Product newProduct) {
+            product.set(newProduct);
+            stock.set(newProduct.getStock());
+        }
+    }
+
+    /**
+     * A product in the cart. The quantity lives in the product's state, so the
+     * shop card and the cart view show the same value.
+     */
     private class CartItem {
-        Product product;
-        double quantity;
+        final ProductState state;
+
+        CartItem(ProductState state) {
+            this.state = state;
+        }
+
+        Product getProduct() {
+            return state.product.get();
+        }
+
+        double getQuantity() {
+            return state.quantity.get();
+        }
 
-        CartItem(Product product, double quantity) {
-            this.product = product;
-            this.quantity = quantity;
+        void setQuantity(double quantity) {
+            state.quantity.set(quantity);
         }
 
         double getEffectivePrice() {
-            double currentStock = localStockMap.getOrDefault(product.getId(), product.getStock());
-            return (currentStock < product.getThreshold()) ? product.getPrice() * 2 : product.getPrice();
+            return state.unitPrice.get();
         }
 
         double getTotalPrice() {
-            return getEffectivePrice() * quantity;
+            return getEffectivePrice() * getQuantity();
         }
     }
 
+    /**
+     * Shop state by product id, kept across refreshes.
+     */
+    private final java.util.Map<Integer, ProductState> productStates = new java.util.HashMap<>();
+
     private long customerId;
     private String customerUsername;
 
@@ -266,7 +370,7 @@ public class CustomerController {
             row.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
             row.setStyle("-fx-padding: 5; -fx-border-color: #eee; -fx-border-width: 0 0 1 0;");
 
-            Label name = new Label(item.product.getName());
+            Label name = new Label(item.getProduct().getName());
             name.setStyle("-fx-font-weight: bold;");
             name.setWrapText(true);
             name.setPrefWidth(Region.USE_COMPUTED_SIZE);
@@ -274,7 +378,7 @@ public class CustomerController {
             // Name should grow to fill space
             HBox.setHgrow(name, javafx.scene.layout.Priority.ALWAYS);
 
-            Label qty = new Label(String.format("x %.2f %s", item.quantity, item.product.isPiece() ? "qty" : "kg"));
+            Label qty = new Label(String.format("x %.2f %s", item.getQuantity(), item.getProduct().isPiece() ? "qty" : "kg"));
             qty.setMinWidth(80); // Ensure min width for alignment
             qty.setAlignment(javafx.geometry.Pos.CENTER_RIGHT);
             qty.setStyle("-fx-text-fill: #666;");
@@ -365,6 +469,30 @@ public class CustomerController {
             return;
         }
 
+        // Renew the holds; a cart left alone may have lost them to other carts
+        java.util.Map<Product, Double> lines = new java.util.LinkedHashMap<>();
+        for (CartItem ci : cart) {
+            lines.put(ci.getProduct(), ci.getQuantity());
+        }
+        AsyncDao.load(() -> {
+            for (java.util.Map.Entry<Product, Double> line : lines.entrySet()) {
+                int productId = line.getKey().getId();
+                if (!reservationService.reserve(cartId, productId, line.getValue())) {
+                    return "Not enough stock available for " + line.getKey().getName() + "! Max: "
+                            + reservationService.getAvailable(cartId, productId);
+                }
+            }
+            return null;
+        }, shortage -> {
+            if (shortage != null) {
+                showAlert(Alert.AlertType.ERROR, "Stock Error", shortage);
+            } else {
+                placeOrder();
+            }
+        }, e -> showAlert(Alert.AlertType.ERROR, "Connection Error", "Could not check the stock: " + e.getMessage()));
+    }
+
+    private void placeOrder() {
         try {
             // Get Note from Payment Screen
             String orderNote = paymentNoteArea.getText();
@@ -417,13 +545,13 @@ public class CustomerController {
             for (CartItem ci : cart) {
                 com.group25.greengrocer.model.OrderItem oi = new com.group25.greengrocer.model.OrderItem(
                         0, 0,
-                        ci.product.getId(),
-                        ci.product.isPiece() ? com.group25.greengrocer.model.UnitType.PCS
+                        ci.getProduct().getId(),
+                        ci.getProduct().isPiece() ? com.group25.greengrocer.model.UnitType.PCS
                                 : com.group25.greengrocer.model.UnitType.KG,
-                        ci.quantity,
+                        ci.getQuantity(),
                         ci.getEffectivePrice(),
                         ci.getTotalPrice());
-                oi.setProductName(ci.product.getName());
+                oi.setProductName(ci.getProduct().getName());
                 orderItems.add(oi);
             }
 
@@ -431,10 +559,15 @@ public class CustomerController {
             com.group25.greengrocer.service.OrderService orderService = new com.group25.greengrocer.service.OrderService();
             orderService.placeOrder(order, orderItems);
 
-            // Success
+            // Success. The stock is reduced in the database, so the holds
+            // can go; the cards show the reduced stock once the catalog has
+            // read it back.
+            AsyncDao.run(() -> reservationService.releaseAll(cartId));
+            AsyncDao.deliver(AsyncDao.run(catalogService::refresh), ignored -> refreshProductCards(), null);
+            for (CartItem ci : cart) {
+                ci.setQuantity(0);
+            }
             cart.clear();
-            localStockMap.clear(); // Clear local cache to force refresh from DB on next load
-            refreshProductCards();
             updateCartView();
 
             showAlert(Alert.AlertType.INFORMATION, "Order Successful",
@@ -447,123 +580,279 @@ public class CustomerController {
         } catch (Exception e) {
             e.printStackTrace();
             showAlert(Alert.AlertType.ERROR, "Order Failed", "Could not place order: " + e.getMessage());
+            // Stock is only verified here, so show the current stock on the cards
+            AsyncDao.deliver(AsyncDao.run(catalogService::refresh), ignored -> refreshProductCards(), null);
         }
     }
 
+    /**
+     * Incremented on every refresh so that a slow, older load cannot overwrite
+     * the cards of a newer one.
+     */
+    private int productLoadGeneration;
+
+    /**
+     * Reloads the products of the selected category only.
+     */
     private void refreshProductCards() {
-        loadProducts("Vegetable", vegPane);
-        loadProducts("Fruit", fruitPane);
+        int generation = ++productLoadGeneration;
+        String category = getSelectedCategory();
+        if (category != null) {
+            loadProducts(category, productSearchField.getText(), generation);
+        }
     }
 
-    // Optimized to reuse nodes and prevent animation reset
-    private void loadProducts(String category, FlowPane pane) {
-        List<Product> products = productDao.getProductsByCategory(category);
-        ObservableList<javafx.scene.Node> children = pane.getChildren();
-
-        // 1. Update existing nodes or create new ones
-        for (int i = 0; i < products.size(); i++) {
-            Product product = products.get(i);
+    private void loadProducts(String category, String query, int generation) {
+        AsyncDao.load(() -> {
+            catalogService.refreshIfStale();
+            if (query != null && !query.isBlank()) {
+                return catalogService.search(query, category, Integer.MAX_VALUE);
+            }
+            return catalogService.getProductsByCategory(category);
+        }, products -> {
+            if (generation == productLoadGeneration) {
+                showProducts(products);
+            }
+        }, null);
+    }
 
-            // Update local stock map initially
-            localStockMap.put(product.getId(), product.getStock());
+    /**
+     * Products of the selected category, in display order.
+     */
+    private List<ProductState> shownProducts = new java.util.ArrayList<>();
+
+    /**
+     * Cards per grid row, from the width of the grid.
+     */
+    private int gridColumns = 1;
+
+    /** Card width plus the horizontal gap, in pixels */
+    private static final double CARD_SLOT_WIDTH = 170;
+
+    private void setupProductGrid() {
+        productGrid.setCellFactory(list -> new ProductRowCell());
+        productGrid.widthProperty().addListener((obs, oldWidth, newWidth) -> {
+            // Minus the grid padding and the scroll bar
+            int columns = Math.max(1, (int) ((newWidth.doubleValue() - 60) / CARD_SLOT_WIDTH));
+            if (columns != gridColumns) {
+                gridColumns = columns;
+                updateGridRows();
+            }
+        });
+    }
 
-            VBox card;
-            if (i < children.size() && children.get(i) instanceof VBox) {
-                // Reuse existing node
-                card = (VBox) children.get(i);
+    /**
+     * Shows the products of the selected category. The states are updated in
+     * place, so cards bound to them change without being rebuilt; the rows
+     * are only replaced when the products or their order changed.
+     */
+    private void showProducts(List<Product> products) {
+        List<ProductState> states = new java.util.ArrayList<>(products.size());
+        for (Product product : products) {
+            ProductState state = productStates.get(product.getId());
+            if (state == null) {
+                state = new ProductState(product);
+                productStates.put(product.getId(), state);
             } else {
-                // Create new node
-                card = createBaseProductCard();
-                if (i < children.size()) {
-                    children.set(i, card); // Replace wrong node if any
-                } else {
-                    children.add(card); // Append new
-                }
+                state.update(product);
             }
-
-            // Update UI content on the reused/new card
-            updateProductCardUI(card, product);
+            states.add(state);
         }
 
-        // 2. Remove excess nodes if any
-        if (pane.getChildren().size() > products.size()) {
-            pane.getChildren().remove(products.size(), pane.getChildren().size());
+        if (!states.equals(shownProducts)) {
+            shownProducts = states;
+            updateGridRows();
         }
     }
 
-    private VBox createBaseProductCard() {
-        VBox card = new VBox(5);
-        card.getStyleClass().add("product-card");
-        card.setPrefWidth(150);
-
-        // Apply smooth scale animation to the ROOT node of the card
-        applyHoverScale(card, 1.05); // 1.05 scale as per request
+    private void updateGridRows() {
+        List<List<ProductState>> rows = new java.util.ArrayList<>();
+        for (int i = 0; i < shownProducts.size(); i += gridColumns) {
+            rows.add(shownProducts.subList(i, Math.min(i + gridColumns, shownProducts.size())));
+        }
+        productGrid.getItems().setAll(rows);
+    }
 
-        return card;
+    private ProductState stateOf(Product product) {
+        return productStates.computeIfAbsent(product.getId(), id -> new ProductState(product));
     }
 
-    private double getDynamicPrice(Product product) {
-        double currentStock = localStockMap.getOrDefault(product.getId(), product.getStock());
-        return (currentStock < product.getThreshold()) ? product.getPrice() * 2 : product.getPrice();
+    /**
+     * A grid row. The ListView creates only as many of these as fit on screen
+     * and reuses them while scrolling, and each row reuses its cards, so the
+     * number of card nodes does not grow with the catalog.
+     */
+    private class ProductRowCell extends ListCell<List<ProductState>> {
+        private final HBox row = new HBox(20);
+        private final List<ProductCard> cards = new java.util.ArrayList<>();
+
+        ProductRowCell() {
+            row.setAlignment(javafx.geometry.Pos.TOP_CENTER);
+            setText(null);
+        }
+
+        @Override
+        protected void updateItem(List<ProductState> states, boolean empty) {
+            super.updateItem(states, empty);
+            if (empty || states == null) {
+                for (ProductCard card : cards) {
+                    card.bind(null);
+                }
+                setGraphic(null);
+                return;
+            }
+            while (cards.size() < states.size()) {
+                cards.add(new ProductCard());
+            }
+            row.getChildren().clear();
+            for (int i = 0; i < cards.size(); i++) {
+                ProductCard card = cards.get(i);
+                card.bind(i < states.size() ? states.get(i) : null);
+                if (i < states.size()) {
+                    row.getChildren().add(card.root);
+                }
+            }
+            setGraphic(row);
+        }
     }
 
-    private void updateProductCardUI(VBox card, Product product) {
-        // Store ID for reference (optional but good practice)
-        card.setUserData(product.getId());
+    /**
+     * A reusable shop card, bound to the state of whichever product its row
+     * currently shows.
+     */
+    private class ProductCard {
+        final VBox root = createBaseProductCard();
+        private final ImageView imgView = new ImageView();
+        private final Label nameLabel = new Label();
+        private final Label priceLabel = new Label();
+        private final Button addToCartBtn = new Button("Add to Cart");
+        private final Label qtyLabel = new Label();
+        private final HBox qtyBox = new HBox();
+
+        /** Reloads the image when the bound product gets a new one */
+        private final javafx.beans.value.ChangeListener<Product> imageListener = (obs, oldProduct, newProduct) -> {
+            if (oldProduct.getImageVersion() != newProduct.getImageVersion()
+                    || oldProduct.hasImage() != newProduct.hasImage()) {
+                showProductImage(imgView, newProduct);
+            }
+        };
 
-        // Clear children to rebuild content (this does NOT trigger mouse exit on the
-        // card itself)
-        card.getChildren().clear();
+        private ProductState state;
 
-        if (product.getProductImage() != null) {
-            ImageView imgView = new ImageView(product.getProductImage());
+        ProductCard() {
             imgView.setFitWidth(100);
             imgView.setFitHeight(100);
             imgView.setPreserveRatio(true);
             imgView.getStyleClass().add("product-image");
-            card.getChildren().add(imgView);
+            nameLabel.getStyleClass().add("product-name");
+            priceLabel.getStyleClass().add("product-price");
+
+            addToCartBtn.getStyleClass().add("button-primary");
+            addToCartBtn.setMaxWidth(Double.MAX_VALUE);
+            addToCartBtn.setOnAction(e -> handleAddToCart(state.product.get()));
+
+            qtyBox.getStyleClass().add("qty-box");
+            Button minusBtn = new Button("-");
+            minusBtn.getStyleClass().add("qty-btn");
+            minusBtn.setOnAction(e -> handleDecrement(findInCart(state.product.get())));
+            qtyLabel.getStyleClass().add("qty-text");
+            qtyLabel.setTooltip(new Tooltip("Click to edit manually"));
+            qtyLabel.setOnMouseClicked(e -> handleManualQuantity(findInCart(state.product.get())));
+            qtyLabel.getStyleClass().add("qty-label-interactive");
+            Button plusBtn = new Button("+");
+            plusBtn.getStyleClass().add("qty-btn");
+            plusBtn.setOnAction(e -> handleIncrement(findInCart(state.product.get())));
+            qtyBox.getChildren().addAll(minusBtn, qtyLabel, plusBtn);
+
+            root.getChildren().addAll(imgView, nameLabel, priceLabel, addToCartBtn, qtyBox);
         }
 
-        Label nameLabel = new Label(product.getName());
-        nameLabel.getStyleClass().add("product-name");
+        void bind(ProductState newState) {
+            if (newState == state) {
+                return;
+            }
+            if (state != null) {
+                state.product.removeListener(imageListener);
+                nameLabel.textProperty().unbind();
+                priceLabel.textProperty().unbind();
+                qtyLabel.textProperty().unbind();
+                addToCartBtn.visibleProperty().unbind();
+                addToCartBtn.managedProperty().unbind();
+                qtyBox.visibleProperty().unbind();
+                qtyBox.managedProperty().unbind();
+            }
+            state = newState;
+            if (state == null) {
+                imgView.setImage(null);
+                return;
+            }
 
-        double currentPrice = getDynamicPrice(product);
-        Label priceLabel = new Label("$" + currentPrice + " per " + (product.isPiece() ? "piece" : "kg"));
-        priceLabel.getStyleClass().add("product-price");
+            ProductState bound = state;
+            showProductImage(imgView, bound.product.get());
+            bound.product.addListener(imageListener);
+            nameLabel.textProperty().bind(javafx.beans.binding.Bindings.createStringBinding(
+                    () -> bound.product.get().getName(), bound.product));
+            priceLabel.textProperty().bind(javafx.beans.binding.Bindings.createStringBinding(
+                    () -> "$" + bound.unitPrice.get() + " per " + (bound.product.get().isPiece() ? "piece" : "kg"),
+                    bound.unitPrice, bound.product));
+            qtyLabel.textProperty().bind(quantityText(bound));
+
+            // Exactly one of the two is shown, depending on whether the product is in the cart
+            addToCartBtn.visibleProperty().bind(bound.inCart.not());
+            addToCartBtn.managedProperty().bind(bound.inCart.not());
+            qtyBox.visibleProperty().bind(bound.inCart);
+            qtyBox.managedProperty().bind(bound.inCart);
+        }
+    }
+
+    private VBox createBaseProductCard() {
+        VBox card = new VBox(5);
+        card.getStyleClass().add("product-card");
+        card.setPrefWidth(150);
 
-        // Check if item is in cart
-        CartItem cartItem = findInCart(product);
+        // Apply smooth scale animation to the ROOT node of the card
+        applyHoverScale(card, 1.05); // 1.05 scale as per request
 
-        if (cartItem == null) {
-            Button addToCartBtn = new Button("Add to Cart");
-            addToCartBtn.getStyleClass().add("button-primary");
-            addToCartBtn.setMaxWidth(Double.MAX_VALUE);
-            addToCartBtn.setOnAction(e -> handleAddToCart(product));
-            card.getChildren().addAll(nameLabel, priceLabel, addToCartBtn);
-        } else {
-            card.getChildren().addAll(nameLabel, priceLabel, createQtyBox(cartItem));
-        }
+        return card;
+    }
+
+    private javafx.beans.binding.StringBinding quantityText(ProductState state) {
+        return javafx.beans.binding.Bindings.createStringBinding(
+                () -> String.format(state.product.get().isPiece() ? "%.0f" : "%.2f", state.quantity.get()),
+                state.quantity, state.product);
+    }
+
+    private void showProductImage(ImageView imgView, Product product) {
+        imgView.setImage(null);
+        imgView.setVisible(product.hasImage());
+        imgView.setManaged(product.hasImage());
+        com.group25.greengrocer.util.ProductImageCache.loadInto(product, imgView, 100);
     }
 
     private HBox createQtyBox(CartItem item) {
+        return createQtyBox(item.state);
+    }
+
+    private HBox createQtyBox(ProductState state) {
         HBox qtyBox = new HBox();
         qtyBox.getStyleClass().add("qty-box");
 
         Button minusBtn = new Button("-");
         minusBtn.getStyleClass().add("qty-btn");
-        minusBtn.setOnAction(e -> handleDecrement(item));
+        minusBtn.setOnAction(e -> handleDecrement(findInCart(state.product.get())));
 
-        Label qtyLabel = new Label(String.format(item.product.isPiece() ? "%.0f" : "%.2f", item.quantity));
+        Label qtyLabel = new Label();
+        qtyLabel.textProperty().bind(quantityText(state));
         qtyLabel.getStyleClass().add("qty-text");
 
         // Make the label itself interactive to save space as requested
         qtyLabel.setTooltip(new Tooltip("Click to edit manually"));
-        qtyLabel.setOnMouseClicked(e -> handleManualQuantity(item));
+        qtyLabel.setOnMouseClicked(e -> handleManualQuantity(findInCart(state.product.get())));
         qtyLabel.getStyleClass().add("qty-label-interactive");
 
         Button plusBtn = new Button("+");
         plusBtn.getStyleClass().add("qty-btn");
-        plusBtn.setOnAction(e -> handleIncrement(item));
+        plusBtn.setOnAction(e -> handleIncrement(findInCart(state.product.get())));
 
         qtyBox.getChildren().addAll(minusBtn, qtyLabel, plusBtn);
 
@@ -571,9 +860,9 @@ public class CustomerController {
     }
 
     private void handleManualQuantity(CartItem item) {
-        TextInputDialog dialog = new TextInputDialog(String.valueOf(item.quantity));
+        TextInputDialog dialog = new TextInputDialog(String.valueOf(item.getQuantity()));
         dialog.setTitle("Set Quantity");
-        dialog.setHeaderText("Enter quantity for " + item.product.getName());
+        dialog.setHeaderText("Enter quantity for " + item.getProduct().getName());
         dialog.setContentText("Quantity:");
 
         // Style the dialog
@@ -605,7 +894,7 @@ public class CustomerController {
                 }
 
                 // 3. Check integer constraint for Piece items
-                if (item.product.isPiece()) {
+                if (item.getProduct().isPiece()) {
                     if (qty % 1 != 0) {
                         showAlert(Alert.AlertType.ERROR, "Invalid Input",
                                 "This item is sold by piece. Please enter a whole number.");
@@ -613,21 +902,9 @@ public class CustomerController {
                     }
                 }
 
-                // 4. Check Stock
-                int productId = item.product.getId();
-                double maxStock = localStockMap.getOrDefault(productId, item.product.getStock());
-
-                if (qty > maxStock) {
-                    showAlert(Alert.AlertType.ERROR, "Stock Error", "Not enough stock available! Max: " + maxStock);
-                    return;
-                }
-
-                // Apply change
-                item.quantity = qty;
-                refreshProductCards();
-                if (cartView.isVisible()) {
-                    updateCartView();
-                }
+                // 4. Hold the stock against other carts, then apply the
+                // change; the card and cart row are bound to it
+                holdStock(item.getProduct(), qty, () -> item.setQuantity(qty));
 
             } catch (NumberFormatException e) {
                 showAlert(Alert.AlertType.ERROR, "Invalid Input", "Please enter a valid number.");
@@ -637,68 +914,82 @@ public class CustomerController {
 
     private CartItem findInCart(Product product) {
         for (CartItem item : cart) {
-            if (item.product.getId() == product.getId()) {
+            if (item.getProduct().getId() == product.getId()) {
                 return item;
             }
         }
         return null;
     }
 
-    // Local map to track stock without querying DB on every click
-    private final java.util.Map<Integer, Double> localStockMap = new java.util.HashMap<>();
-
     private void handleIncrement(CartItem item) {
-        double step = item.product.isPiece() ? 1.0 : 0.25;
-        double newQty = item.quantity + step;
-
-        // Check local stock map
-        int productId = item.product.getId();
-        double maxStock = localStockMap.getOrDefault(productId, item.product.getStock());
-
-        if (newQty > maxStock) {
-            showAlert(Alert.AlertType.ERROR, "Stock Error", "Not enough stock available! Max: " + maxStock);
-            return;
-        }
+        double step = item.getProduct().isPiece() ? 1.0 : 0.25;
+        double newQty = item.getQuantity() + step;
 
-        item.quantity = newQty;
-        // Optionally update the map if we want to track "remaining" stock vs "total"
-        // stock.
-        // But for validation "newQty > maxStock" is correct if maxStock is the Total DB
-        // stock.
-
-        refreshProductCards();
-        if (cartView.isVisible()) {
-            updateCartView();
-        }
+        holdStock(item.getProduct(), newQty, () -> item.setQuantity(newQty));
     }
 
     private void handleAddToCart(Product product) {
-        // Initialize/Update local stock map if not present
-        localStockMap.putIfAbsent(product.getId(), product.getStock());
-        double maxStock = localStockMap.get(product.getId());
+        ProductState state = stateOf(product);
+
+        holdStock(product, 1.0, () -> {
+            cart.add(new CartItem(state));
+            state.quantity.set(1.0);
+        });
+    }
 
-        if (maxStock < 1) {
-            showAlert(Alert.AlertType.ERROR, "Stock Error", "Out of stock!");
+    /**
+     * Holds a quantity of a product for this cart in the background and runs
+     * onHeld on the FX thread once the hold is granted. Checkout verifies the
+     * stock again.
+     *
+     * @param product  the product
+     * @param quantity the new quantity in the cart; 0 releases the hold
+     * @param onHeld   applies the quantity to the cart
+     */
+    private void holdStock(Product product, double quantity, Runnable onHeld) {
+        int productId = product.getId();
+        if (!pendingHolds.add(productId)) {
             return;
         }
-        cart.add(new CartItem(product, 1.0));
-        refreshProductCards();
+        // Returns the available quantity if the hold was refused, null if granted
+        AsyncDao.load(() -> reservationService.reserve(cartId, productId, quantity) ? null
+                : reservationService.getAvailable(cartId, productId),
+                available -> {
+                    pendingHolds.remove(productId);
+                    if (available == null) {
+                        onHeld.run();
+                    } else if (available <= 0) {
+                        showAlert(Alert.AlertType.ERROR, "Stock Error", "Out of stock!");
+                    } else {
+                        showAlert(Alert.AlertType.ERROR, "Stock Error", "Not enough stock available! Max: " + available);
+                    }
+                },
+                e -> {
+                    pendingHolds.remove(productId);
+                    showAlert(Alert.AlertType.ERROR, "Connection Error", "Could not check the stock: " + e.getMessage());
+                });
     }
 
     private void handleDecrement(CartItem item) {
-        double step = item.product.isPiece() ? 1.0 : 0.25;
-        double newQty = item.quantity - step;
+        double step = item.getProduct().isPiece() ? 1.0 : 0.25;
+        double newQty = item.getQuantity() - step;
 
         if (newQty <= 0) {
             Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
             alert.setTitle("Remove Item");
             alert.setHeaderText(null);
-            alert.setContentText("Do you want to remove " + item.product.getName() + " from your cart?");
+            alert.setContentText("Do you want to remove " + item.getProduct().getName() + " from your cart?");
             styleAlert(alert);
 
             java.util.Optional<ButtonType> result = alert.showAndWait();
             if (result.isPresent() && result.get() == ButtonType.OK) {
-                cart.remove(item);
+                holdStock(item.getProduct(), 0, () -> {
+                    cart.remove(item);
+                    item.setQuantity(0);
+                    if (cartView.isVisible()) {
+                        updateCartView();
+                    }
+                });
             }
             // If No, do nothing (keep at current qty) or logic could be to define min as
             // step.
@@ -706,11 +997,7 @@ public class CustomerController {
             // hiçbir şey değişmeyecek"
             // So we don't update qty if they say no.
         } else {
-            item.quantity = newQty;
-        }
-        refreshProductCards();
-        if (cartView.isVisible()) {
-            updateCartView();
+            holdStock(item.getProduct(), newQty, () -> item.setQuantity(newQty));
         }
     }
 
@@ -728,21 +1015,19 @@ public class CustomerController {
         // Show selector bar
         selectorBar.setVisible(true);
         selectorBar.setManaged(true);
-        // Show the currently selected view (vegetable or fruit)
-        if (vegetablesToggle.isSelected()) {
-            vegetableView.setVisible(true);
-            vegetableView.setManaged(true);
-        } else {
-            fruitView.setVisible(true);
-            fruitView.setManaged(true);
-        }
+        // Show the grid of the currently selected category
+        productGrid.setVisible(true);
+        productGrid.setManaged(true);
         refreshProductCards();
         updateNavigationState("SHOP");
     }
 
+    /**
+     * Rebuilds the cart rows. Only needed when items are added or removed;
+     * quantity changes update the bound labels and the total directly.
+     */
     private void updateCartView() {
         cartItemsContainer.getChildren().clear();
-        double total = 0;
 
         for (CartItem item : cart) {
             HBox row = new HBox(20);
@@ -750,32 +1035,41 @@ public class CustomerController {
             row.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
             row.setPadding(new javafx.geometry.Insets(10));
 
-            if (item.product.getProductImage() != null) {
-                ImageView imgView = new ImageView(item.product.getProductImage());
+            if (item.getProduct().hasImage()) {
+                ImageView imgView = new ImageView();
                 imgView.setFitWidth(50);
                 imgView.setFitHeight(50);
                 imgView.setPreserveRatio(true);
                 imgView.getStyleClass().add("cart-image");
+                com.group25.greengrocer.util.ProductImageCache.loadInto(item.getProduct(), imgView, 50);
                 row.getChildren().add(imgView);
             }
 
-            Label name = new Label(item.product.getName());
+            Label name = new Label(item.getProduct().getName());
             name.setPrefWidth(150);
             name.setStyle("-fx-font-weight: bold;");
 
             // Reuse the QtyBox here!
             HBox qtyBox = createQtyBox(item);
 
-            Label lineTotal = new Label(String.format("$%.2f", item.getTotalPrice()));
+            Label lineTotal = new Label();
+            lineTotal.textProperty().bind(javafx.beans.binding.Bindings.createStringBinding(
+                    () -> String.format("$%.2f", item.getTotalPrice()), item.state.quantity, item.state.unitPrice));
             lineTotal.setPrefWidth(80);
             lineTotal.setStyle("-fx-font-weight: bold; -fx-text-fill: #2e7d32;");
 
             row.getChildren().addAll(name, qtyBox, lineTotal);
             cartItemsContainer.getChildren().add(row);
+        }
 
+        updateCartTotal();
+    }
+
+    private void updateCartTotal() {
+        double total = 0;
+        for (CartItem item : cart) {
             total += item.getTotalPrice();
         }
-
         cartTotalLabel.setText(String.format("$%.2f", total));
     }
 
@@ -797,6 +1091,7 @@ public class CustomerController {
 
     @FXML
     private void handleLogout() {
+        AsyncDao.run(() -> reservationService.releaseAll(cartId));
         try {
             Parent root = FXMLLoader.load(getClass().getResource("/fxml/login.fxml"));
             welcomeText.getScene().setRoot(root);
@@ -875,10 +1170,8 @@ public class CustomerController {
     private void hideAllViews() {
         selectorBar.setVisible(false);
         selectorBar.setManaged(false);
-        vegetableView.setVisible(false);
-        vegetableView.setManaged(false);
-        fruitView.setVisible(false);
-        fruitView.setManaged(false);
+        productGrid.setVisible(false);
+        productGrid.setManaged(false);
         cartView.setVisible(false);
         paymentView.setVisible(false);
         profileView.setVisible(false);
@@ -1211,6 +1504,8 @@ public class CustomerController {
     @FXML
     private TableColumn<com.group25.greengrocer.model.Order, String> colOrderStatus;
     @FXML
+    private TableColumn<com.group25.greengrocer.model.Order, String> colOrderInvoice;
+    @FXML
     private TableColumn<com.group25.greengrocer.model.Order, Void> colOrderAction;
 
     @FXML
@@ -1239,9 +1534,8 @@ public class CustomerController {
     }
 
     private void refreshOrders() {
-        try {
-            System.out.println("Refreshing orders for customer ID: " + customerId);
-            List<Order> orders = orderDao.findByCustomerId(customerId);
+        System.out.println("Refreshing orders for customer ID: " + customerId);
+        AsyncDao.load(() -> orderDao.findByCustomerId(customerId), orders -> {
             System.out.println("Found " + orders.size() + " orders.");
             if (!orders.isEmpty()) {
                 Order first = orders.get(0);
@@ -1250,10 +1544,7 @@ public class CustomerController {
             }
             ordersTable.setItems(FXCollections.observableArrayList(orders));
             ordersTable.refresh();
-        } catch (Exception e) {
-            e.printStackTrace();
-            showAlert(Alert.AlertType.ERROR, "Error", "Failed to load orders: " + e.getMessage());
-        }
+        }, e -> showAlert(Alert.AlertType.ERROR, "Error", "Failed to load orders: " + e.getMessage()));
     }
 
     private void setupOrderTable() {
@@ -1262,6 +1553,7 @@ public class CustomerController {
                 cellData.getValue().getOrderTime().toLocalDate().toString()));
         colOrderTotal.setCellValueFactory(new PropertyValueFactory<>("total"));
         colOrderStatus.setCellValueFactory(new PropertyValueFactory<>("status"));
+        colOrderInvoice.setCellValueFactory(new PropertyValueFactory<>("invoiceStatus"));
 
         // Action Column: Download Invoice & Cancel
         colOrderAction.setCellFactory(param -> new TableCell<>() {
@@ -1303,33 +1595,28 @@ public class CustomerController {
     }
 
     private void handleDownloadInvoice(Order order) {
-        try {
-            byte[] pdfData = orderDao.getInvoice(order.getId());
-            if (pdfData == null || pdfData.length == 0) {
-                showAlert(Alert.AlertType.WARNING, "Unavailable", "No invoice found for this order.");
-                return;
-            }
-
-            // Create a temporary file
+        // Streams the stored invoice into a temporary file, or renders it first
+        // if the background queue has not stored it yet
+        AsyncDao.load(() -> {
             File tempFile = File.createTempFile("invoice_" + order.getId() + "_", ".pdf");
             tempFile.deleteOnExit(); // File will be deleted when the VM exits (optional, maybe user wants to keep it
                                      // open)
+            InvoiceService.getInstance().writeInvoice(order.getId(), tempFile.toPath());
+            return tempFile;
+        }, tempFile -> {
+            try {
+                // Open the file
+                if (java.awt.Desktop.isDesktopSupported()) {
+                    java.awt.Desktop.getDesktop().open(tempFile);
+                } else {
+                    showAlert(Alert.AlertType.WARNING, "Not Supported", "Opening files is not supported on this platform.");
+                }
 
-            try (FileOutputStream fos = new FileOutputStream(tempFile)) {
-                fos.write(pdfData);
-            }
-
-            // Open the file
-            if (java.awt.Desktop.isDesktopSupported()) {
-                java.awt.Desktop.getDesktop().open(tempFile);
-            } else {
-                showAlert(Alert.AlertType.WARNING, "Not Supported", "Opening files is not supported on this platform.");
+            } catch (Exception e) {
+                e.printStackTrace();
+                showAlert(Alert.AlertType.ERROR, "Error", "Failed to open invoice: " + e.getMessage());
             }
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            showAlert(Alert.AlertType.ERROR, "Error", "Failed to open invoice: " + e.getMessage());
-        }
+        }, e -> showAlert(Alert.AlertType.ERROR, "Error", "Failed to open invoice: " + e.getMessage()));
     }
 
     // --- Messages Logic ---
@@ -1344,13 +1631,10 @@ public class CustomerController {
 
     @FXML
     private void handleRefreshMessages() {
-        try {
-            List<Message> messages = messageDao.getMessagesForUser(customerId); // Assuming this gets sent & received
-            messagesTable.setItems(FXCollections.observableArrayList(messages));
-        } catch (Exception e) {
-            e.printStackTrace();
-            showAlert(Alert.AlertType.ERROR, "Error", "Could not load messages.");
-        }
+        // Assuming this gets sent & received
+        AsyncDao.load(() -> messageDao.getMessagesForUser(customerId),
+                messages -> messagesTable.setItems(FXCollections.observableArrayList(messages)),
+                e -> showAlert(Alert.AlertType.ERROR, "Error", "Could not load messages."));
     }
 
     private void setupMessageTable() {
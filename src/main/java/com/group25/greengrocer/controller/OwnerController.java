@@ -1,5 +1,6 @@
 package com.group25.greengrocer.controller;
 
+import com.group25.greengrocer.dao.AsyncDao;
 import com.group25.greengrocer.dao.MessageDao;
 import com.group25.greengrocer.dao.OrderDao;
 import com.group25.greengrocer.dao.ProductDao;
@@ -30,8 +31,7 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.util.Map;
 import java.util.List;
@@ -49,8 +49,21 @@ public class OwnerController {
 
     // DAOs
     private ProductDao productDao = new ProductDao();
+    private final com.group25.greengrocer.service.CatalogService catalogService = com.group25.greengrocer.service.CatalogService
+            .getInstance();
     private UserDao userDao = new UserDao();
     private OrderDao orderDao = new OrderDao();
+    private final com.group25.greengrocer.service.OrderChangeFeed orderChangeFeed = com.group25.greengrocer.service.OrderChangeFeed
+            .getInstance();
+    private final java.util.function.Consumer<java.util.List<Order>> orderChanges = orders -> AsyncDao.FX
+            .execute(() -> receiveOrderChanges(orders));
+
+    /**
+     * Order changes received while the order tables are loading. The load
+     * replaces the tables, so these are applied again on top of its rows.
+     */
+    private final java.util.List<Order> orderChangesDuringLoad = new ArrayList<>();
+    private int orderLoadsInFlight;
     private MessageDao messageDao = new MessageDao();
     private com.group25.greengrocer.dao.CouponDao couponDao = new com.group25.greengrocer.dao.CouponDao();
 
@@ -72,8 +85,13 @@ public class OwnerController {
 
     private String currentCategoryFilter = "ALL";
     private String searchQuery = "";
-    private java.util.List<Product> allProducts = new java.util.ArrayList<>();
     private java.util.List<Product> filteredProducts = new java.util.ArrayList<>();
+
+    /**
+     * Pages through the products from the database while no search is
+     * active; null while search results are shown from filteredProducts.
+     */
+    private com.group25.greengrocer.service.ProductPager productPager;
     private Product selectedProduct;
     private int itemsPerPage = 5; // Default start value
     private static final double ROW_HEIGHT = 90.0; // Approx height of a row including padding
@@ -150,6 +168,8 @@ public class OwnerController {
     @FXML
     private TableColumn<Order, String> colPendingStatus;
     @FXML
+    private TableColumn<Order, String> colPendingInvoice;
+    @FXML
     private TableColumn<Order, Double> colPendingTotal;
     @FXML
     private TableColumn<Order, String> colPendingDate;
@@ -167,6 +187,8 @@ public class OwnerController {
     @FXML
     private TableColumn<Order, String> colDeliveryStatus;
     @FXML
+    private TableColumn<Order, String> colDeliveryInvoice;
+    @FXML
     private TableColumn<Order, Double> colDeliveryTotal;
     @FXML
     private TableColumn<Order, String> colDeliveryDate;
@@ -184,6 +206,8 @@ public class OwnerController {
     @FXML
     private TableColumn<Order, String> colCompletedStatus;
     @FXML
+    private TableColumn<Order, String> colCompletedInvoice;
+    @FXML
     private TableColumn<Order, Double> colCompletedTotal;
     @FXML
     private TableColumn<Order, String> colCompletedDate;
@@ -429,7 +453,7 @@ public class OwnerController {
             return;
         }
 
-        setupProductPagination();
+        showProductPages(1, 0);
 
         // Add listener for dynamic resizing
         paginationProducts.heightProperty().addListener((obs, oldVal, newVal) -> {
@@ -453,19 +477,22 @@ public class OwnerController {
         setupDatePickerValidation();
 
         // Initialize Combos
-        categoryMap = productDao.getCategories();
-        if (categoryMap != null && !categoryMap.isEmpty()) {
-            comboProdCategory.setItems(FXCollections.observableArrayList(categoryMap.keySet()));
-        } else {
-            // Fallback if DB is empty, though technically should be handled
-            comboProdCategory.setItems(FXCollections.observableArrayList());
-        }
+        AsyncDao.load(catalogService::getCategories, categories -> {
+            categoryMap = categories;
+            if (categoryMap != null && !categoryMap.isEmpty()) {
+                comboProdCategory.setItems(FXCollections.observableArrayList(categoryMap.keySet()));
+            } else {
+                // Fallback if DB is empty, though technically should be handled
+                comboProdCategory.setItems(FXCollections.observableArrayList());
+            }
+        }, null);
         comboDiscountType.setItems(FXCollections.observableArrayList("PERCENT", "AMOUNT"));
 
         // Initialize Panel Navigation - Show Products by default
         setupPanelNavigation();
         setupLoyaltyTable();
 
+        orderChangeFeed.subscribe(orderChanges);
         loadAllData();
 
         // Initialize dragging for profile picture
@@ -634,15 +661,37 @@ public class OwnerController {
      * Load Dashboard Statistics from Database
      */
     private void loadDashboardStats() {
-        try {
-            java.util.List<Order> allOrders = orderDao.getAllOrders();
+        // The four queries are independent, so run them concurrently
+        java.util.concurrent.CompletableFuture<java.util.List<Order>> ordersFuture = AsyncDao
+                .supply(orderDao::getAllOrders);
+        java.util.concurrent.CompletableFuture<Integer> customerCountFuture = AsyncDao
+                .supply(userDao::getCustomerCount);
+        java.util.concurrent.CompletableFuture<java.util.List<User>> carriersFuture = AsyncDao
+                .supply(userDao::getCarriers);
+        java.util.concurrent.CompletableFuture<Integer> ownerCountFuture = AsyncDao
+                .supply(userDao::getOwnerCount);
+
+        AsyncDao.deliver(
+                java.util.concurrent.CompletableFuture.allOf(ordersFuture, customerCountFuture, carriersFuture,
+                        ownerCountFuture),
+                ignored -> showDashboardStats(ordersFuture.join(), customerCountFuture.join(),
+                        carriersFuture.join(), ownerCountFuture.join()),
+                e -> {
+                    lblTotalUsers.setText("N/A");
+                    lblTotalCarriers.setText("N/A");
+                    lblTotalOrders.setText("N/A");
+                    lblDeliveredOrders.setText("N/A");
+                    lblRecentActivity.setText("Error loading statistics: " + e.getMessage());
+                });
+    }
 
-            // Total Users (customers) - fetch from DB
-            long totalUsers = userDao.getCustomerCount();
+    private void showDashboardStats(java.util.List<Order> allOrders, long totalUsers, java.util.List<User> allUsers,
+            int ownerCount) {
+        try {
             lblTotalUsers.setText(String.valueOf(totalUsers));
 
             // Total Carriers
-            int totalCarriers = userDao.getCarriers().size();
+            int totalCarriers = allUsers.size();
             lblTotalCarriers.setText(String.valueOf(totalCarriers));
 
             // Total Orders
@@ -691,8 +740,6 @@ public class OwnerController {
 
             // ===== LOAD PIE CHART =====
             // Get all users and count by role
-            java.util.List<User> allUsers = userDao.getCarriers(); // Get carriers
-            int ownerCount = userDao.getOwnerCount(); // Fetch actual owner count from DB
             int customerCount = (int) totalUsers;
             int carrierCount = allUsers.size();
 
@@ -750,6 +797,7 @@ public class OwnerController {
     @FXML
     private void handleLogout() {
         com.group25.greengrocer.util.Session.clear();
+        orderChangeFeed.unsubscribe(orderChanges);
         try {
             javafx.stage.Stage stage = (javafx.stage.Stage) pnlOverview.getScene().getWindow();
             javafx.scene.Parent root = javafx.fxml.FXMLLoader.load(getClass().getResource("/fxml/login.fxml"));
@@ -774,7 +822,8 @@ public class OwnerController {
         // Loyalty
 
         // Coupons
-        couponTable.setItems(FXCollections.observableArrayList(couponDao.getAllCoupons()));
+        AsyncDao.load(couponDao::getAllCoupons,
+                coupons -> couponTable.setItems(FXCollections.observableArrayList(coupons)), null);
     }
 
     // --- Marketing Logic ---
@@ -1062,14 +1111,16 @@ public class OwnerController {
     private void loadLoyaltyData() {
         if (loyaltyTable == null)
             return;
-        List<com.group25.greengrocer.model.CustomerLoyalty> loyaltyList = userDao.getAllCustomerLoyalty();
+        AsyncDao.load(() -> {
+            List<com.group25.greengrocer.model.CustomerLoyalty> loyaltyList = userDao.getAllCustomerLoyalty();
 
-        // Update database with calculated discount rates
-        for (com.group25.greengrocer.model.CustomerLoyalty loyalty : loyaltyList) {
-            userDao.updateCustomerLoyaltyRate(loyalty.getCustomerId(), loyalty.getDiscountRate());
-        }
-
-        loyaltyTable.setItems(javafx.collections.FXCollections.observableArrayList(loyaltyList));
+            // Update database with calculated discount rates
+            for (com.group25.greengrocer.model.CustomerLoyalty loyalty : loyaltyList) {
+                userDao.updateCustomerLoyaltyRate(loyalty.getCustomerId(), loyalty.getDiscountRate());
+            }
+            return loyaltyList;
+        }, loyaltyList -> loyaltyTable.setItems(javafx.collections.FXCollections.observableArrayList(loyaltyList)),
+                null);
     }
 
     // --- Product Logic ---
@@ -1086,46 +1137,58 @@ public class OwnerController {
         applyFilter();
     }
 
+    /**
+     * Delays the product search until typing pauses, so a burst of keystrokes
+     * filters the list once.
+     */
+    private final javafx.animation.PauseTransition productSearchDebounce = new javafx.animation.PauseTransition(
+            javafx.util.Duration.millis(150));
+
     @FXML
     private void handleProductSearch() {
-        searchQuery = txtProductSearch.getText();
-        applyFilter();
+        productSearchDebounce.setOnFinished(e -> {
+            searchQuery = txtProductSearch.getText();
+            applyFilter();
+        });
+        productSearchDebounce.playFromStart();
     }
 
     private void applyFilter() {
-        if (allProducts == null)
-            allProducts = new java.util.ArrayList<>();
+        applyFilter(paginationProducts.getCurrentPageIndex());
+    }
 
-        // Apply category filter
-        if ("ALL".equals(currentCategoryFilter)) {
-            filteredProducts = new java.util.ArrayList<>(allProducts);
-        } else {
-            filteredProducts = new java.util.ArrayList<>();
-            for (Product p : allProducts) {
-                if (p.getCategory() != null && p.getCategory().equalsIgnoreCase(currentCategoryFilter)) {
-                    filteredProducts.add(p);
-                }
-            }
-        }
+    /**
+     * Incremented on every filter change so that a slow, older search cannot
+     * overwrite the results of a newer filter.
+     */
+    private int productFilterGeneration;
 
-        // Apply search query filter
-        if (searchQuery != null && !searchQuery.trim().isEmpty()) {
-            java.util.List<Product> searchResults = new java.util.ArrayList<>();
-            String query = searchQuery.toLowerCase().trim();
-            for (Product p : filteredProducts) {
-                if (p.getName() != null && p.getName().toLowerCase().contains(query)) {
-                    searchResults.add(p);
-                }
-            }
-            filteredProducts = searchResults;
-        }
+    private void applyFilter(int targetPageIndex) {
+        int generation = ++productFilterGeneration;
+        String category = "ALL".equals(currentCategoryFilter) ? null : currentCategoryFilter;
 
         // Update Buttons Style
         updateFilterButtonStyle(btnFilterAll, "ALL");
         updateFilterButtonStyle(btnFilterFruit, "Fruit");
         updateFilterButtonStyle(btnFilterVeg, "Vegetable");
 
-        setupProductPagination();
+        if (searchQuery != null && !searchQuery.trim().isEmpty()) {
+            // Search within the category, ranked by the catalog's search index;
+            // the first search may load the catalog and build the index
+            String query = searchQuery;
+            AsyncDao.load(() -> catalogService.search(query, category, Integer.MAX_VALUE), products -> {
+                if (generation == productFilterGeneration) {
+                    productPager = null;
+                    filteredProducts = products;
+                    setupProductPagination(targetPageIndex);
+                }
+            }, null);
+        } else {
+            // Browse page by page; the database sorts and filters
+            productPager = new com.group25.greengrocer.service.ProductPager(productDao, category, itemsPerPage);
+            filteredProducts = null;
+            setupProductPagination(targetPageIndex);
+        }
     }
 
     private void updateFilterButtonStyle(Button btn, String filterName) {
@@ -1137,24 +1200,27 @@ public class OwnerController {
         }
     }
 
-    private void setupProductPagination() {
-        if (filteredProducts == null) {
-            if (allProducts != null)
-                filteredProducts = new java.util.ArrayList<>(allProducts);
-            else
-                filteredProducts = new java.util.ArrayList<>();
+    private void setupProductPagination(int targetPageIndex) {
+        if (productPager != null) {
+            com.group25.greengrocer.service.ProductPager pager = productPager;
+            // Read the target page while counting, so both arrive together
+            pager.getPage(Math.max(0, targetPageIndex));
+            AsyncDao.deliver(pager.getPageCount(), pageCount -> {
+                if (pager == productPager) {
+                    showProductPages(pageCount, targetPageIndex);
+                }
+            }, null);
+            return;
         }
 
         int pageCount = (int) Math.ceil((double) filteredProducts.size() / itemsPerPage);
-        if (pageCount == 0)
-            pageCount = 1;
+        showProductPages(Math.max(1, pageCount), targetPageIndex);
+    }
 
-        // Save current page index to try and restore it if possible (prevent jumping to
-        // 0 unnecessarily)
-        int currentIndex = paginationProducts.getCurrentPageIndex();
-        if (currentIndex >= pageCount) {
-            currentIndex = pageCount - 1;
-        }
+    private void showProductPages(int pageCount, int targetPageIndex) {
+        // Keep the requested page if it still exists (prevent jumping to 0
+        // unnecessarily)
+        int currentIndex = Math.max(0, Math.min(targetPageIndex, pageCount - 1));
 
         paginationProducts.setPageCount(pageCount);
         paginationProducts.setCurrentPageIndex(currentIndex);
@@ -1168,17 +1234,27 @@ public class OwnerController {
         // Ensure container grows
         javafx.scene.layout.VBox.setVgrow(listContainer, javafx.scene.layout.Priority.ALWAYS);
 
-        int fromIndex = pageIndex * itemsPerPage;
-        if (fromIndex >= filteredProducts.size()) {
-            return new ScrollPane(listContainer);
-        }
-
-        int toIndex = Math.min(fromIndex + itemsPerPage, filteredProducts.size());
-        List<Product> pageProducts = filteredProducts.subList(fromIndex, toIndex);
+        if (productPager != null) {
+            com.group25.greengrocer.service.ProductPager pager = productPager;
+            List<Product> pageProducts = pager.getPageIfLoaded(pageIndex);
+            if (pageProducts != null) {
+                pager.getPage(pageIndex); // Prefetches the neighbours
+                showProductRows(listContainer, pageProducts);
+            } else {
+                AsyncDao.deliver(pager.getPage(pageIndex), products -> {
+                    if (pager == productPager) {
+                        showProductRows(listContainer, products);
+                    }
+                }, null);
+            }
+        } else {
+            int fromIndex = pageIndex * itemsPerPage;
+            if (fromIndex >= filteredProducts.size()) {
+                return new ScrollPane(listContainer);
+            }
 
-        for (Product product : pageProducts) {
-            HBox row = createProductCard(product);
-            listContainer.getChildren().add(row);
+            int toIndex = Math.min(fromIndex + itemsPerPage, filteredProducts.size());
+            showProductRows(listContainer, filteredProducts.subList(fromIndex, toIndex));
         }
 
         // Return just the VBox if it fits, or ScrollPane if safety needed (user
@@ -1199,6 +1275,13 @@ public class OwnerController {
         return sp;
     }
 
+    private void showProductRows(VBox listContainer, List<Product> pageProducts) {
+        for (Product product : pageProducts) {
+            HBox row = createProductCard(product);
+            listContainer.getChildren().add(row);
+        }
+    }
+
     private HBox createProductCard(Product product) {
         HBox row = new HBox(15);
         row.getStyleClass().add("product-list-row");
@@ -1215,9 +1298,7 @@ public class OwnerController {
         img.setFitHeight(60);
         img.setFitWidth(60);
         img.setPreserveRatio(true);
-        if (product.getProductImage() != null) {
-            img.setImage(product.getProductImage());
-        }
+        com.group25.greengrocer.util.ProductImageCache.loadInto(product, img, 60);
 
         // Info Section (Name & Category)
         VBox infoBox = new VBox(5);
@@ -1259,11 +1340,8 @@ public class OwnerController {
         chkIsPiece.setSelected(product.isPiece());
         comboProdCategory.setValue(product.getCategory());
 
-        if (product.getProductImage() != null) {
-            imgProdPreview.setImage(product.getProductImage());
-        } else {
-            imgProdPreview.setImage(null);
-        }
+        imgProdPreview.setImage(null);
+        com.group25.greengrocer.util.ProductImageCache.loadInto(product, imgProdPreview, 80);
 
         // Disable Add New Product button when a product is selected
         btnAddNewProduct.setDisable(true);
@@ -1279,19 +1357,13 @@ public class OwnerController {
     }
 
     private void loadProducts(int targetPageIndex) {
-        allProducts = productDao.getAllProducts();
-        applyFilter();
-
-        // Restore page index safely
-        int maxPage = paginationProducts.getPageCount() - 1;
-        if (targetPageIndex > maxPage)
-            targetPageIndex = maxPage;
-        if (targetPageIndex < 0)
-            targetPageIndex = 0;
-
-        paginationProducts.setCurrentPageIndex(targetPageIndex);
-        // Force refresh of the current page view
-        paginationProducts.setPageFactory(this::createProductPage);
+        if (searchQuery != null && !searchQuery.trim().isEmpty()) {
+            // Search results come from the catalog; only reads the changed products
+            AsyncDao.load(catalogService::refresh, changes -> applyFilter(targetPageIndex), null);
+        } else {
+            // One page of rows, plus the product count
+            applyFilter(targetPageIndex);
+        }
     }
 
     // ... existing handleBrowseImage ...
@@ -1321,28 +1393,47 @@ public class OwnerController {
 
             Product newProd = new Product(0, name, price, stock, catName, threshold, isPiece, null);
 
-            FileInputStream fis = null;
-            if (selectedImageFile != null) {
-                fis = new FileInputStream(selectedImageFile);
-            }
-
-            productDao.addProduct(newProd, catId, fis);
-            // New product, go to last page or stay on current? Default to first or keep
-            // context?
-            // Usually new product -> reload resets. Let's keep it simple or go to page 0 to
-            // see it?
-            // User concern is mainly about "updating" resetting. For adding, maybe page 0
-            // is fine.
-            loadProducts(0);
-            clearProductFields();
-            NotificationUtil.showSuccess("Success", "Product added successfully.");
+            // Thumbnails are generated off the FX thread; large photos take a moment
+            File imageFile = selectedImageFile;
+            AsyncDao.deliver(AsyncDao.run(() -> {
+                productDao.addProduct(newProd, catId, readProductImages(imageFile));
+            }), ignored -> {
+                // New product, go to last page or stay on current? Default to first or keep
+                // context?
+                // Usually new product -> reload resets. Let's keep it simple or go to page 0 to
+                // see it?
+                // User concern is mainly about "updating" resetting. For adding, maybe page 0
+                // is fine.
+                loadProducts(0);
+                clearProductFields();
+                NotificationUtil.showSuccess("Success", "Product added successfully.");
+            }, error -> NotificationUtil.showError("File Error", "Image file could not be read."));
         } catch (NumberFormatException e) {
             NotificationUtil.showError("Invalid Input", "Please check number fields.");
-        } catch (FileNotFoundException e) {
-            NotificationUtil.showError("File Error", "Image file not found.");
         }
     }
 
+    /**
+     * Turns the chosen image file into the stored product image variants.
+     * Runs on a background thread.
+     *
+     * @param imageFile the chosen file, or null if no image was chosen
+     * @return the variants, or null if no image was chosen
+     * @throws IOException if the file is not a readable image
+     */
+    private static com.group25.greengrocer.util.ImageUtil.ProductImages readProductImages(File imageFile)
+            throws IOException {
+        if (imageFile == null) {
+            return null;
+        }
+        com.group25.greengrocer.util.ImageUtil.ProductImages images = com.group25.greengrocer.util.ImageUtil
+                .createProductImageVariants(imageFile);
+        if (images == null) {
+            throw new IOException("Not a readable image: " + imageFile);
+        }
+        return images;
+    }
+
     // ... existing handleDeleteProduct ...
     @FXML
     private void handleDeleteProduct() {
@@ -1384,22 +1475,21 @@ public class OwnerController {
             Product updateProd = new Product(selectedProduct.getId(), name, price, stock, catName, threshold, isPiece,
                     null);
 
-            FileInputStream fis = null;
-            if (selectedImageFile != null) {
-                fis = new FileInputStream(selectedImageFile);
-            }
-
-            productDao.updateProduct(updateProd, catId, fis);
-            // Update selected product's image references if changed, usually simpler to
-            // just reload
+            File imageFile = selectedImageFile;
             int currentPage = paginationProducts.getCurrentPageIndex();
-            loadProducts(currentPage);
+            AsyncDao.deliver(AsyncDao.run(() -> {
+                productDao.updateProduct(updateProd, catId, readProductImages(imageFile));
+            }), ignored -> {
+                // Update selected product's image references if changed, usually simpler to
+                // just reload
+                loadProducts(currentPage);
+
+                // Re-select logic if we want to keep selection?
+                // For now, let's clear or simple reload
+                NotificationUtil.showSuccess("Success", "Product updated successfully.");
+            }, error -> NotificationUtil.showError("Error", "Invalid input or file."));
 
-            // Re-select logic if we want to keep selection?
-            // For now, let's clear or simple reload
-            NotificationUtil.showSuccess("Success", "Product updated successfully.");
-
-        } catch (NumberFormatException | FileNotFoundException e) {
+        } catch (NumberFormatException e) {
             NotificationUtil.showError("Error", "Invalid input or file.");
         }
     }
@@ -1870,6 +1960,8 @@ public class OwnerController {
                 "Customer #" + cellData.getValue().getCustomerId()));
         colPendingStatus.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(
                 cellData.getValue().getStatus() != null ? cellData.getValue().getStatus().toString() : "N/A"));
+        colPendingInvoice.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(
+                cellData.getValue().getInvoiceStatus() != null ? cellData.getValue().getInvoiceStatus().toString() : "N/A"));
         colPendingTotal.setCellValueFactory(
                 cellData -> new javafx.beans.property.SimpleDoubleProperty(cellData.getValue().getTotal()).asObject());
         colPendingDate.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(
@@ -1906,6 +1998,8 @@ public class OwnerController {
         });
         colDeliveryStatus.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(
                 cellData.getValue().getStatus() != null ? cellData.getValue().getStatus().toString() : "N/A"));
+        colDeliveryInvoice.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(
+                cellData.getValue().getInvoiceStatus() != null ? cellData.getValue().getInvoiceStatus().toString() : "N/A"));
         colDeliveryTotal.setCellValueFactory(
                 cellData -> new javafx.beans.property.SimpleDoubleProperty(cellData.getValue().getTotal()).asObject());
         colDeliveryDate.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(
@@ -1942,6 +2036,8 @@ public class OwnerController {
         });
         colCompletedStatus.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(
                 cellData.getValue().getStatus() != null ? cellData.getValue().getStatus().toString() : "N/A"));
+        colCompletedInvoice.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(
+                cellData.getValue().getInvoiceStatus() != null ? cellData.getValue().getInvoiceStatus().toString() : "N/A"));
         colCompletedTotal.setCellValueFactory(
                 cellData -> new javafx.beans.property.SimpleDoubleProperty(cellData.getValue().getTotal()).asObject());
         colCompletedDate.setCellValueFactory(cellData -> {
@@ -1979,8 +2075,32 @@ public class OwnerController {
     }
 
     private void loadOrdersByStatus() {
-        java.util.List<Order> allOrders = orderDao.getAllOrders();
+        orderLoadsInFlight++;
+        AsyncDao.load(orderDao::getAllOrders, allOrders -> {
+            showOrdersByStatus(allOrders);
+            finishOrderLoad();
+        }, e -> finishOrderLoad());
+    }
+
+    /**
+     * Re-applies the changes received since the load started, which may have
+     * committed after getAllOrders read its rows.
+     */
+    private void finishOrderLoad() {
+        applyOrderChanges(orderChangesDuringLoad);
+        if (--orderLoadsInFlight == 0) {
+            orderChangesDuringLoad.clear();
+        }
+    }
 
+    private void receiveOrderChanges(java.util.List<Order> orders) {
+        if (orderLoadsInFlight > 0) {
+            orderChangesDuringLoad.addAll(orders);
+        }
+        applyOrderChanges(orders);
+    }
+
+    private void showOrdersByStatus(java.util.List<Order> allOrders) {
         java.util.List<Order> pendingOrders = new ArrayList<>();
         java.util.List<Order> deliveryOrders = new ArrayList<>();
         java.util.List<Order> completedOrders = new ArrayList<>();
@@ -2001,6 +2121,38 @@ public class OwnerController {
         completedOrdersTable.setItems(FXCollections.observableArrayList(completedOrders));
     }
 
+    /**
+     * Moves orders changed since the tables were loaded into, within or out of
+     * the status tables, as delivered by the OrderChangeFeed. Runs on the FX
+     * thread.
+     */
+    private void applyOrderChanges(java.util.List<Order> orders) {
+        for (Order order : orders) {
+            pendingOrdersTable.getItems().removeIf(row -> row.getId() == order.getId());
+            deliveryOrdersTable.getItems().removeIf(row -> row.getId() == order.getId());
+            completedOrdersTable.getItems().removeIf(row -> row.getId() == order.getId());
+
+            TableView<Order> table = null;
+            if (order.getStatus() == com.group25.greengrocer.model.OrderStatus.PLACED) {
+                table = pendingOrdersTable;
+            } else if (order.getStatus() == com.group25.greengrocer.model.OrderStatus.ASSIGNED) {
+                table = deliveryOrdersTable;
+            } else if (order.getStatus() == com.group25.greengrocer.model.OrderStatus.DELIVERED ||
+                    order.getStatus() == com.group25.greengrocer.model.OrderStatus.CANCELLED) {
+                table = completedOrdersTable;
+            }
+            if (table != null) {
+                // Newest first, like getAllOrders
+                java.util.List<Order> rows = table.getItems();
+                int index = 0;
+                while (index < rows.size() && !rows.get(index).getOrderTime().isBefore(order.getOrderTime())) {
+                    index++;
+                }
+                rows.add(index, order);
+            }
+        }
+    }
+
     private String getUsernameById(long userId) {
         try {
             com.group25.greengrocer.dao.UserDao.UserProfile userProfile = userDao.findById(userId);
@@ -2221,6 +2373,146 @@ public class OwnerController {
         modalStage.showAndWait();
     }
 
+    // --- Database Diagnostics ---
+
+    /**
+     * Opens the database diagnostics window (owner only).
+     *
+     * Shows the connection pool state, the order claim contention counters,
+     * the statements costing the most database time with their latency
+     * percentiles, rows and bytes, and the most recent slow queries with their
+     * bound parameters. The data is read from the in-memory QueryMetrics and
+     * pool and claim counters, so opening the window does not itself hit the
+     * database.
+     */
+    @FXML
+    private void handleShowDiagnostics() {
+        User currentUser = com.group25.greengrocer.util.Session.getCurrentUser();
+        if (currentUser == null || !"owner".equalsIgnoreCase(currentUser.getRole())) {
+            NotificationUtil.showError("Access Denied", "Only the owner can view database diagnostics.");
+            return;
+        }
+
+        javafx.stage.Stage modalStage = new javafx.stage.Stage();
+        modalStage.initModality(javafx.stage.Modality.APPLICATION_MODAL);
+        modalStage.setTitle("Database Diagnostics");
+
+        VBox container = new VBox(15);
+        container.setPadding(new javafx.geometry.Insets(20));
+        container.setStyle("-fx-background-color: #f4f6f9;");
+
+        Label headerLabel = new Label("Database Diagnostics");
+        headerLabel.setStyle("-fx-font-size: 20px; -fx-font-weight: bold; -fx-text-fill: #2e7d32;");
+
+        Label poolLabel = new Label();
+        poolLabel.setWrapText(true);
+
+        Label imageCacheLabel = new Label();
+        imageCacheLabel.setWrapText(true);
+
+        Label claimsLabel = new Label();
+        claimsLabel.setWrapText(true);
+
+        // Top statements by total time
+        TableView<com.group25.greengrocer.util.QueryMetrics.StatementMetrics> statementsTable = new TableView<>();
+        statementsTable.setPrefHeight(300);
+        VBox.setVgrow(statementsTable, Priority.ALWAYS);
+
+        TableColumn<com.group25.greengrocer.util.QueryMetrics.StatementMetrics, String> colSql = new TableColumn<>(
+                "SQL");
+        colSql.setCellValueFactory(
+                cellData -> new javafx.beans.property.SimpleStringProperty(cellData.getValue().getSql()));
+        colSql.setPrefWidth(380);
+
+        statementsTable.getColumns().add(colSql);
+        statementsTable.getColumns().add(diagnosticsColumn("Count", m -> String.valueOf(m.getExecutions())));
+        statementsTable.getColumns().add(diagnosticsColumn("Total ms", m -> String.format("%.1f", m.getTotalMillis())));
+        statementsTable.getColumns().add(diagnosticsColumn("p50 ms", m -> String.format("%.2f", m.getP50Millis())));
+        statementsTable.getColumns().add(diagnosticsColumn("p95 ms", m -> String.format("%.2f", m.getP95Millis())));
+        statementsTable.getColumns().add(diagnosticsColumn("p99 ms", m -> String.format("%.2f", m.getP99Millis())));
+        statementsTable.getColumns().add(diagnosticsColumn("Max ms", m -> String.format("%.2f", m.getMaxMillis())));
+        statementsTable.getColumns().add(diagnosticsColumn("Rows", m -> String.valueOf(m.getRows())));
+        statementsTable.getColumns().add(diagnosticsColumn("Bytes", m -> String.valueOf(m.getBytes())));
+
+        // Slow query log
+        ListView<String> slowList = new ListView<>();
+        slowList.setPrefHeight(180);
+
+        Runnable refresh = () -> {
+            poolLabel.setText("Connection pool: " + com.group25.greengrocer.util.DbAdapter.getPoolStats());
+            imageCacheLabel.setText("Image cache: " + com.group25.greengrocer.util.ProductImageCache.getStats());
+            claimsLabel.setText("Order claims: "
+                    + com.group25.greengrocer.service.OrderClaimService.getInstance().getStats());
+            com.group25.greengrocer.util.QueryMetrics metrics = com.group25.greengrocer.util.DbAdapter
+                    .getQueryMetrics();
+            if (metrics == null) {
+                statementsTable.setPlaceholder(new Label("Query metrics are disabled."));
+                statementsTable.getItems().clear();
+                slowList.getItems().clear();
+                return;
+            }
+            statementsTable.setItems(FXCollections.observableArrayList(metrics.getTopStatements(50)));
+            List<String> slowLines = new ArrayList<>();
+            for (com.group25.greengrocer.util.QueryMetrics.SlowQuery slow : metrics.getSlowQueries()) {
+                slowLines.add(String.format("%s  %d ms  %d rows  %s  %s",
+                        slow.getTime().toLocalTime().withNano(0), slow.getElapsedMillis(), slow.getRows(),
+                        slow.getSql(), slow.getParameters()));
+            }
+            slowList.setItems(FXCollections.observableArrayList(slowLines));
+        };
+        refresh.run();
+
+        Label statementsHeader = new Label("Top Statements (by total time)");
+        statementsHeader.setStyle("-fx-font-weight: bold; -fx-font-size: 14px;");
+        Label slowHeader = new Label("Slow Queries (>= "
+                + com.group25.greengrocer.config.DbConfig.SLOW_QUERY_THRESHOLD_MS + " ms)");
+        slowHeader.setStyle("-fx-font-weight: bold; -fx-font-size: 14px;");
+
+        Button refreshBtn = new Button("Refresh");
+        refreshBtn.getStyleClass().add("button-secondary");
+        refreshBtn.setOnAction(e -> refresh.run());
+
+        Button resetBtn = new Button("Reset Metrics");
+        resetBtn.getStyleClass().add("button-secondary");
+        resetBtn.setOnAction(e -> {
+            com.group25.greengrocer.util.QueryMetrics metrics = com.group25.greengrocer.util.DbAdapter
+                    .getQueryMetrics();
+            if (metrics != null) {
+                metrics.reset();
+            }
+            refresh.run();
+        });
+
+        Button closeBtn = new Button("Close");
+        closeBtn.setStyle(
+                "-fx-background-color: #95a5a6; -fx-text-fill: white; -fx-font-size: 13px; -fx-padding: 8px 20px; -fx-background-radius: 3px; -fx-cursor: hand;");
+        closeBtn.setOnAction(e -> modalStage.close());
+
+        HBox buttonBox = new HBox(10, refreshBtn, resetBtn, closeBtn);
+        buttonBox.setAlignment(javafx.geometry.Pos.CENTER_RIGHT);
+
+        container.getChildren().addAll(headerLabel, poolLabel, imageCacheLabel, claimsLabel, statementsHeader, statementsTable, slowHeader,
+                slowList, buttonBox);
+
+        javafx.geometry.Rectangle2D bounds = javafx.stage.Screen.getPrimary().getVisualBounds();
+        javafx.scene.Scene scene = new javafx.scene.Scene(container, Math.min(1100, bounds.getWidth() * 0.9),
+                Math.min(750, bounds.getHeight() * 0.9));
+        modalStage.setScene(scene);
+        modalStage.setResizable(true);
+        modalStage.showAndWait();
+    }
+
+    private TableColumn<com.group25.greengrocer.util.QueryMetrics.StatementMetrics, String> diagnosticsColumn(
+            String title,
+            java.util.function.Function<com.group25.greengrocer.util.QueryMetrics.StatementMetrics, String> value) {
+        TableColumn<com.group25.greengrocer.util.QueryMetrics.StatementMetrics, String> column = new TableColumn<>(
+                title);
+        column.setCellValueFactory(
+                cellData -> new javafx.beans.property.SimpleStringProperty(value.apply(cellData.getValue())));
+        column.setPrefWidth(70);
+        return column;
+    }
+
     // --- Message Logic ---
     private void setupMessageTable() {
         colMsgSender.setCellValueFactory(new PropertyValueFactory<>("senderName"));
@@ -2229,7 +2521,8 @@ public class OwnerController {
     }
 
     private void loadMessages() {
-        messageTable.setItems(FXCollections.observableArrayList(messageDao.getAllMessages()));
+        AsyncDao.load(messageDao::getAllMessages,
+                messages -> messageTable.setItems(FXCollections.observableArrayList(messages)), null);
     }
 
     @FXML
@@ -2250,27 +2543,85 @@ public class OwnerController {
 
     // --- Reports Logic ---
     private void loadReports() {
+        AsyncDao.load(orderDao::getTopSellingProducts, this::showTopProducts, null);
+        AsyncDao.load(orderDao::getRevenueByDate, this::showRevenue, null);
+    }
+
+    private void showTopProducts(Map<String, Integer> topProducts) {
         // Top Selling Products
         chartTopProducts.getData().clear();
         XYChart.Series<String, Number> seriesProducts = new XYChart.Series<>();
         seriesProducts.setName("Top Products");
-        Map<String, Integer> topProducts = orderDao.getTopSellingProducts();
         for (Map.Entry<String, Integer> entry : topProducts.entrySet()) {
             seriesProducts.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
         }
         chartTopProducts.getData().add(seriesProducts);
+    }
 
+    private void showRevenue(Map<String, Double> revenue) {
         // Revenue
         chartRevenue.getData().clear();
         XYChart.Series<String, Number> seriesRevenue = new XYChart.Series<>();
         seriesRevenue.setName("Revenue (Last 7 Days)");
-        Map<String, Double> revenue = orderDao.getRevenueByDate();
         for (Map.Entry<String, Double> entry : revenue.entrySet()) {
             seriesRevenue.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
         }
         chartRevenue.getData().add(seriesRevenue);
     }
 
+    /**
+     * Exports the invoices of every order placed in a chosen period into one
+     * ZIP archive for the accountant. Invoices that were never stored are
+     * rendered during the export.
+     */
+    @FXML
+    private void handleExportInvoices() {
+        javafx.scene.control.Dialog<ButtonType> dialog = new javafx.scene.control.Dialog<>();
+        dialog.setTitle("Export Invoices");
+        dialog.setHeaderText("Export the invoices of all orders placed in this period");
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+
+        java.time.LocalDate today = java.time.LocalDate.now();
+        DatePicker dpFrom = new DatePicker(today.withDayOfMonth(1));
+        DatePicker dpTo = new DatePicker(today);
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.addRow(0, new Label("From:"), dpFrom);
+        grid.addRow(1, new Label("To:"), dpTo);
+        dialog.getDialogPane().setContent(grid);
+
+        if (dialog.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+            return;
+        }
+        java.time.LocalDate from = dpFrom.getValue();
+        java.time.LocalDate to = dpTo.getValue();
+        if (from == null || to == null || from.isAfter(to)) {
+            NotificationUtil.showError("Invalid Period", "Please choose a start date on or before the end date.");
+            return;
+        }
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save Invoices");
+        fileChooser.setInitialFileName("invoices_" + from + "_" + to + ".zip");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("ZIP Archives", "*.zip"));
+        File target = fileChooser.showSaveDialog(pnlOrders.getScene().getWindow());
+        if (target == null) {
+            return;
+        }
+
+        AsyncDao.load(() -> com.group25.greengrocer.service.InvoiceService.getInstance()
+                .exportInvoices(from, to, target.toPath()), result -> {
+                    if (result.getFailed() > 0) {
+                        NotificationUtil.showError("Export Incomplete", "Exported " + result.getExported()
+                                + " invoices; " + result.getFailed() + " could not be generated.");
+                    } else {
+                        NotificationUtil.showSuccess("Export Complete",
+                                "Exported " + result.getExported() + " invoices to " + target.getName() + ".");
+                    }
+                }, e -> NotificationUtil.showError("Export Failed", "Could not export invoices: " + e.getMessage()));
+    }
+
     @FXML
     private void handleRefresh() {
         loadAllData();
@@ -2526,20 +2877,6 @@ public class OwnerController {
      * Hash password using SHA-256
      */
     private String hashPassword(String password) {
-        try {
-            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] encodedhash = digest.digest(password.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            StringBuilder hexString = new StringBuilder(2 * encodedhash.length);
-            for (byte b : encodedhash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1)
-                    hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (java.security.NoSuchAlgorithmException e) {
-            e.printStackTrace();
-            return null;
-        }
+        return com.group25.greengrocer.service.AuthService.hashPassword(password);
     }
 }
@@ -106,10 +106,9 @@ public class RegisterController {
             return;
         }
 
-        try {
-            Connection conn = DbAdapter.getConnection();
-            String query = "INSERT INTO users (username, password_hash, role, individual_loyalty_rate) VALUES (?, ?, ?, ?)";
-            PreparedStatement stmt = conn.prepareStatement(query);
+        String query = "INSERT INTO users (username, password_hash, role, individual_loyalty_rate) VALUES (?, ?, ?, ?)";
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(query)) {
             stmt.setString(1, username);
             stmt.setString(2, hashPassword(password)); // Hash this!
             stmt.setString(3, role);
@@ -176,22 +175,7 @@ public class RegisterController {
     }
 
     private String hashPassword(String password) {
-        try {
-            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] encodedhash = digest.digest(password.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            StringBuilder hexString = new StringBuilder(2 * encodedhash.length);
-            for (byte b : encodedhash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (java.security.NoSuchAlgorithmException e) {
-            e.printStackTrace();
-            return null;
-        }
+        return com.group25.greengrocer.service.AuthService.hashPassword(password);
     }
 
     private void startRedirectCountdown() {
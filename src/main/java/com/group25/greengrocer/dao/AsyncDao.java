@@ -0,0 +1,162 @@
+package com.group25.greengrocer.dao;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous facade over the DAOs.
+ *
+ * Wraps any DAO call in a CompletableFuture that runs on a virtual thread,
+ * so controllers can start several independent queries at once without
+ * blocking the JavaFX Application Thread. Results are handed back to the FX
+ * thread through the FX executor, which is the only place UI state may be
+ * touched.
+ *
+ * Typical usage from a controller:
+ *
+ *   AsyncDao.load(() -> orderDao.findByCustomerId(customerId),
+ *           orders -> ordersTable.setItems(FXCollections.observableArrayList(orders)),
+ *           error -> showAlert(...));
+ *
+ * Every call borrows its own pooled connection from DbAdapter, so concurrent
+ * calls are safe; when the pool is exhausted the virtual threads simply wait
+ * for a connection instead of tying up platform threads.
+ */
+public final class AsyncDao {
+
+    /**
+     * A DAO call that may throw a checked exception such as SQLException.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    public interface DaoCall<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * A DAO call without a result, such as an insert or update.
+     */
+    @FunctionalInterface
+    public interface DaoTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * Executor that runs every DAO call on its own virtual thread.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("dao-", 0).factory());
+
+    /**
+     * Executor that runs callbacks on the JavaFX Application Thread.
+     */
+    public static final Executor FX = Platform::runLater;
+
+    private AsyncDao() {
+    }
+
+    /**
+     * Runs a DAO call on a virtual thread.
+     *
+     * @param call the DAO call
+     * @param <T>  the result type
+     * @return a future completed with the call's result, or exceptionally with
+     *         the exception it threw
+     */
+    public static <T> CompletableFuture<T> supply(DaoCall<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    /**
+     * Runs a DAO call without a result on a virtual thread.
+     *
+     * @param task the DAO call
+     * @return a future completed when the call has finished
+     */
+    public static CompletableFuture<Void> run(DaoTask task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs a DAO call on a virtual thread and delivers its outcome to the
+     * JavaFX Application Thread.
+     *
+     * @param call      the DAO call
+     * @param onSuccess receives the result on the FX thread
+     * @param onError   receives the failure cause on the FX thread; may be null,
+     *                  in which case the error is only logged
+     * @param <T>       the result type
+     * @return a future completed after the callback has run on the FX thread
+     */
+    public static <T> CompletableFuture<Void> load(DaoCall<T> call, Consumer<? super T> onSuccess,
+            Consumer<Throwable> onError) {
+        return deliver(supply(call), onSuccess, onError);
+    }
+
+    /**
+     * Delivers the outcome of an already running future to the JavaFX
+     * Application Thread. Useful when several loads are combined with
+     * CompletableFuture.allOf() or thenCombine() before updating the UI.
+     *
+     * @param future    the future to observe
+     * @param onSuccess receives the result on the FX thread
+     * @param onError   receives the failure cause on the FX thread; may be null,
+     *                  in which case the error is only logged
+     * @param <T>       the result type
+     * @return a future completed after the callback has run on the FX thread
+     */
+    public static <T> CompletableFuture<Void> deliver(CompletableFuture<T> future, Consumer<? super T> onSuccess,
+            Consumer<Throwable> onError) {
+        return future.handleAsync((result, error) -> {
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                Throwable cause = unwrap(error);
+                cause.printStackTrace();
+                if (onError != null) {
+                    onError.accept(cause);
+                }
+            }
+            return null;
+        }, FX);
+    }
+
+    /**
+     * Strips the CompletionException wrapper added by CompletableFuture.
+     *
+     * @param error the exception reported by a future
+     * @return the original exception thrown by the DAO call
+     */
+    public static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Stops accepting new DAO calls. Calls already running are allowed to
+     * finish.
+     */
+    public static void shutdown() {
+        EXECUTOR.shutdown();
+    }
+}
@@ -0,0 +1,341 @@
+package com.group25.greengrocer.dao;
+
+import com.group25.greengrocer.config.DbConfig;
+import com.group25.greengrocer.model.InvoiceStatus;
+import com.group25.greengrocer.util.DbAdapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Data Access Object for invoices and the invoice job queue.
+ *
+ * Stored invoices live in the invoices table. Invoices still to be rendered
+ * are queued in invoice_jobs, and orders.invoice_status tells which of the
+ * two applies to an order (see InvoiceStatus).
+ *
+ * Invoices are stored deflated and read back as a stream, so a download
+ * copies the BLOB to its file in small chunks instead of loading it whole.
+ */
+public class InvoiceDao {
+
+    /**
+     * Values of invoices.compression.
+     */
+    private static final String COMPRESSION_NONE = "NONE";
+    private static final String COMPRESSION_DEFLATE = "DEFLATE";
+
+    /**
+     * Maximum number of bytes copied per FileChannel.transferFrom call.
+     */
+    private static final long TRANSFER_CHUNK_BYTES = 64 * 1024;
+
+    /**
+     * Receives stored invoices one at a time from forEachInvoice.
+     */
+    @FunctionalInterface
+    public interface InvoiceConsumer {
+        /**
+         * @param orderId the order
+         * @param pdf     the invoice PDF, decompressed; only valid during the call
+         * @throws IOException if the PDF cannot be processed
+         */
+        void accept(long orderId, InputStream pdf) throws IOException;
+    }
+
+    /**
+     * Queues the invoice of a new order within the checkout transaction.
+     *
+     * @param orderId the order
+     * @param conn    the database connection of the transaction
+     * @throws SQLException if a database error occurs
+     */
+    public void enqueue(long orderId, Connection conn) throws SQLException {
+        String jobSql = "INSERT INTO invoice_jobs (order_id, next_attempt_at) VALUES (?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(jobSql)) {
+            stmt.setLong(1, orderId);
+            stmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.executeUpdate();
+        }
+        updateStatus(orderId, InvoiceStatus.PENDING, conn);
+    }
+
+    /**
+     * Returns the jobs whose next attempt is due, oldest first.
+     *
+     * @param now   the current time
+     * @param limit the maximum number of jobs
+     * @return the attempts made so far, by order id
+     * @throws SQLException if a database error occurs
+     */
+    public Map<Long, Integer> findDueJobs(LocalDateTime now, int limit) throws SQLException {
+        Map<Long, Integer> jobs = new LinkedHashMap<>();
+        String sql = "SELECT order_id, attempts FROM invoice_jobs WHERE next_attempt_at <= ? "
+                + "ORDER BY next_attempt_at LIMIT ?";
+
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(now));
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    jobs.put(rs.getLong("order_id"), rs.getInt("attempts"));
+                }
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Claims a job for one attempt. The attempt count doubles as a version:
+     * of several workers that saw the same job, only one claims it.
+     *
+     * @param orderId    the order of the job
+     * @param attempts   the attempts made so far, as read with the job
+     * @param leaseUntil when the job becomes due again if this attempt never
+     *                   finishes, and the retry time if it fails
+     * @return true if the job was claimed, false if another worker claimed or
+     *         finished it first
+     * @throws SQLException if a database error occurs
+     */
+    public boolean claim(long orderId, int attempts, LocalDateTime leaseUntil) throws SQLException {
+        String sql = "UPDATE invoice_jobs SET attempts = attempts + 1, next_attempt_at = ? "
+                + "WHERE order_id = ? AND attempts = ?";
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(leaseUntil));
+            stmt.setLong(2, orderId);
+            stmt.setInt(3, attempts);
+            return stmt.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Records why an attempt failed. The job is retried at the time set when
+     * it was claimed.
+     *
+     * @param orderId the order of the job
+     * @param error   the failure message
+     * @throws SQLException if a database error occurs
+     */
+    public void recordFailure(long orderId, String error) throws SQLException {
+        String sql = "UPDATE invoice_jobs SET last_error = ? WHERE order_id = ?";
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, truncate(error));
+            stmt.setLong(2, orderId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Gives up a job after its last attempt failed and marks the order's
+     * invoice FAILED.
+     *
+     * @param orderId the order of the job
+     * @param error   the failure message of the last attempt
+     * @throws SQLException if a database error occurs
+     */
+    public void giveUp(long orderId, String error) throws SQLException {
+        try (Connection conn = DbAdapter.getConnection()) {
+            conn.setAutoCommit(false);
+            deleteJob(orderId, conn);
+            updateStatus(orderId, InvoiceStatus.FAILED, conn);
+            conn.commit();
+        }
+        System.err.println("Giving up invoice of order " + orderId + ": " + error);
+    }
+
+    /**
+     * Stores a rendered invoice, marks it READY and removes its job. If the
+     * invoice was stored in the meantime (a worker and an on-demand download
+     * rendering the same order), the stored one is kept.
+     *
+     * The PDF is deflated while it is sent to the database.
+     *
+     * @param orderId the order
+     * @param pdfData the rendered PDF
+     * @throws SQLException if a database error occurs
+     */
+    public void saveInvoice(long orderId, byte[] pdfData) throws SQLException {
+        String sql = "INSERT INTO invoices (order_id, pdf_blob, compression) VALUES (?, ?, ?)";
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (Connection conn = DbAdapter.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, orderId);
+                stmt.setBinaryStream(2, new DeflaterInputStream(new ByteArrayInputStream(pdfData), deflater));
+                stmt.setString(3, COMPRESSION_DEFLATE);
+                stmt.executeUpdate();
+            } catch (SQLIntegrityConstraintViolationException e) {
+                // Already stored by someone else
+                conn.rollback();
+            }
+            deleteJob(orderId, conn);
+            updateStatus(orderId, InvoiceStatus.READY, conn);
+            conn.commit();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Streams a stored invoice PDF into a file, decompressing it on the way.
+     * Only a small buffer is held in memory, whatever the size of the PDF.
+     *
+     * @param orderId the order
+     * @param target  the file to write to, from its current position
+     * @return true if the invoice was written, false if it is not stored yet
+     * @throws SQLException if a database error occurs
+     * @throws IOException  if the PDF cannot be decompressed or written
+     */
+    public boolean copyInvoiceTo(long orderId, FileChannel target) throws SQLException, IOException {
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = prepareInvoiceQuery(conn, orderId);
+                ResultSet rs = stmt.executeQuery()) {
+            if (!rs.next()) {
+                return false;
+            }
+            try (ReadableByteChannel source = Channels.newChannel(openPdf(rs))) {
+                long position = target.position();
+                long copied;
+                while ((copied = target.transferFrom(source, position, TRANSFER_CHUNK_BYTES)) > 0) {
+                    position += copied;
+                }
+                target.position(position);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Returns the orders placed in a period that have no stored invoice.
+     *
+     * @param from start of the period, inclusive
+     * @param to   end of the period, exclusive
+     * @return the order ids, oldest order first
+     * @throws SQLException if a database error occurs
+     */
+    public List<Long> findOrdersWithoutInvoice(LocalDateTime from, LocalDateTime to) throws SQLException {
+        List<Long> orderIds = new ArrayList<>();
+        String sql = "SELECT o.id FROM orders o LEFT JOIN invoices i ON i.order_id = o.id "
+                + "WHERE o.order_time >= ? AND o.order_time < ? AND i.order_id IS NULL ORDER BY o.order_time";
+
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(from));
+            stmt.setTimestamp(2, Timestamp.valueOf(to));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    orderIds.add(rs.getLong("id"));
+                }
+            }
+        }
+        return orderIds;
+    }
+
+    /**
+     * Streams the stored invoices of the orders placed in a period, one row at
+     * a time, so that any number of invoices can be processed in constant
+     * memory.
+     *
+     * @param from     start of the period, inclusive
+     * @param to       end of the period, exclusive
+     * @param consumer receives each invoice, oldest order first
+     * @throws SQLException if a database error occurs
+     * @throws IOException  if the consumer fails
+     */
+    public void forEachInvoice(LocalDateTime from, LocalDateTime to, InvoiceConsumer consumer)
+            throws SQLException, IOException {
+        String sql = "SELECT i.order_id, i.compression, i.pdf_blob FROM orders o "
+                + "JOIN invoices i ON i.order_id = o.id WHERE o.order_time >= ? AND o.order_time < ? "
+                + "ORDER BY o.order_time";
+
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            streamRows(stmt);
+            stmt.setTimestamp(1, Timestamp.valueOf(from));
+            stmt.setTimestamp(2, Timestamp.valueOf(to));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long orderId = rs.getLong("order_id");
+                    try (InputStream pdf = openPdf(rs)) {
+                        consumer.accept(orderId, pdf);
+                    }
+                }
+            }
+        }
+    }
+
+    private PreparedStatement prepareInvoiceQuery(Connection conn, long orderId) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(
+                "SELECT compression, pdf_blob FROM invoices WHERE order_id = ?");
+        streamRows(stmt);
+        stmt.setLong(1, orderId);
+        return stmt;
+    }
+
+    /**
+     * Makes MySQL stream the rows of a query instead of buffering the whole
+     * result set. Other drivers read BLOBs lazily already.
+     */
+    private static void streamRows(PreparedStatement stmt) throws SQLException {
+        if (DbConfig.URL.startsWith("jdbc:mysql:")) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Opens the PDF of the current invoices row, inflating it if it was
+     * stored compressed.
+     */
+    private InputStream openPdf(ResultSet rs) throws SQLException {
+        String compression = rs.getString("compression");
+        InputStream blob = rs.getBinaryStream("pdf_blob");
+        return COMPRESSION_NONE.equals(compression) ? blob : new InflaterInputStream(blob);
+    }
+
+    private void deleteJob(long orderId, Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM invoice_jobs WHERE order_id = ?")) {
+            stmt.setLong(1, orderId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Sets the invoice status of an order. updated_at is assigned explicitly
+     * so that it keeps its value: invoice progress is not an order change,
+     * and bumping it would push the order to every open order view.
+     */
+    private void updateStatus(long orderId, InvoiceStatus status, Connection conn) throws SQLException {
+        String sql = "UPDATE orders SET invoice_status = ?, updated_at = updated_at WHERE id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, status.name());
+            stmt.setLong(2, orderId);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > 500 ? error.substring(0, 500) : error;
+    }
+}
@@ -61,11 +61,17 @@ public class MessageDao {
 
     public List<Message> getMessagesForUser(long userId) {
         List<Message> messages = new ArrayList<>();
-        // Get messages where user is sender or receiver
+        // Get messages where user is sender or receiver. Written as a UNION so
+        // each branch uses its own (sender_id / receiver_id, created_at) index
+        // instead of scanning the table for the OR.
         String query = "SELECT m.*, s.username as sender_name FROM messages m " +
                 "JOIN users s ON m.sender_id = s.id " +
-                "WHERE m.sender_id = ? OR m.receiver_id = ? " +
-                "ORDER BY m.created_at DESC";
+                "WHERE m.sender_id = ? " +
+                "UNION " +
+                "SELECT m.*, s.username as sender_name FROM messages m " +
+                "JOIN users s ON m.sender_id = s.id " +
+                "WHERE m.receiver_id = ? " +
+                "ORDER BY created_at DESC";
 
         try (Connection conn = DbAdapter.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(query)) {
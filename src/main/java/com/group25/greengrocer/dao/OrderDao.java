@@ -1,5 +1,6 @@
 package com.group25.greengrocer.dao;
 
+import com.group25.greengrocer.model.InvoiceStatus;
 import com.group25.greengrocer.model.Order;
 import com.group25.greengrocer.model.OrderStatus;
 import com.group25.greengrocer.util.DbAdapter;
@@ -161,6 +162,72 @@ public class OrderDao {
         return stats;
     }
 
+    /**
+     * Retrieves one order.
+     *
+     * @param orderId the order ID
+     * @return the order, or null if it does not exist
+     * @throws SQLException if a database error occurs
+     */
+    public Order findById(long orderId) throws SQLException {
+        String sql = "SELECT * FROM orders WHERE id = ?";
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, orderId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapRowToOrder(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves the orders inserted or changed since the given time, oldest
+     * change first. Used by OrderChangeFeed to push changes to open views.
+     *
+     * @param since the lower bound of updated_at (inclusive)
+     * @return the changed orders, or empty list if none changed
+     * @throws SQLException if a database error occurs
+     */
+    public List<Order> findOrdersChangedSince(LocalDateTime since) throws SQLException {
+        List<Order> orders = new ArrayList<>();
+        String sql = "SELECT * FROM orders WHERE updated_at >= ? ORDER BY updated_at ASC";
+
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(since));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    orders.add(mapRowToOrder(rs));
+                }
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * Returns the time of the newest change to any order, read from the
+     * database so that it is comparable with updated_at.
+     *
+     * @return the newest updated_at, or null if there are no orders
+     * @throws SQLException if a database error occurs
+     */
+    public LocalDateTime getLatestUpdate() throws SQLException {
+        String sql = "SELECT MAX(updated_at) FROM orders";
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                Timestamp latest = rs.getTimestamp(1);
+                return latest != null ? latest.toLocalDateTime() : null;
+            }
+        }
+        return null;
+    }
+
     public List<Order> findAvailableOrders() throws SQLException {
         List<Order> orders = new ArrayList<>();
         // Assuming 'PLACED' is the status for orders ready to be picked by carriers
@@ -187,17 +254,95 @@ public class OrderDao {
         }
     }
 
-    public void assignCarrier(long orderId, long carrierId) throws SQLException {
-        // Atomic update to ensure no race condition ideally, but simple update for now
+    /**
+     * Assigns one particular order to a carrier, unless it is already
+     * assigned. The check and the assignment are one conditional UPDATE, so
+     * of two carriers picking the same order exactly one gets it; the other
+     * waits at most for the winner's row lock and then updates nothing.
+     *
+     * @param orderId   the order to assign
+     * @param carrierId the carrier taking it
+     * @return true if the order was assigned, false if it was no longer
+     *         available
+     * @throws SQLException if a database error occurs
+     */
+    public boolean assignCarrier(long orderId, long carrierId) throws SQLException {
         String sql = "UPDATE orders SET carrier_id = ?, status = 'ASSIGNED' WHERE id = ? AND status IN ('PLACED', 'READY') AND carrier_id IS NULL";
         try (Connection conn = DbAdapter.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setLong(1, carrierId);
             stmt.setLong(2, orderId);
-            int rows = stmt.executeUpdate();
-            if (rows == 0) {
-                throw new SQLException("Order already assigned or not found.");
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Assigns the next unclaimed orders, earliest requested delivery first,
+     * to a carrier in one transaction.
+     *
+     * The candidates are locked with FOR UPDATE SKIP LOCKED, so carriers
+     * claiming at the same time each lock different rows instead of waiting
+     * for or failing on the same ones: a claim only comes back short when
+     * there are fewer unclaimed orders than carriers asking. The transaction
+     * runs at READ COMMITTED so that InnoDB locks only the rows it returns,
+     * not the gaps between them, and new orders can still be inserted.
+     *
+     * @param carrierId the carrier claiming the orders
+     * @param limit     the maximum number of orders to claim
+     * @return the claimed orders, already ASSIGNED to the carrier; empty if no
+     *         order is available
+     * @throws SQLException if a database error occurs
+     */
+    public List<Order> claimNextOrders(long carrierId, int limit) throws SQLException {
+        String sql = "SELECT * FROM orders WHERE carrier_id IS NULL AND status = 'PLACED' "
+                + "ORDER BY requested_delivery_time ASC LIMIT ? FOR UPDATE SKIP LOCKED";
+        List<Order> orders = new ArrayList<>();
+
+        try (Connection conn = DbAdapter.getConnection()) {
+            int isolation = conn.getTransactionIsolation();
+            conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setInt(1, limit);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            orders.add(mapRowToOrder(rs));
+                        }
+                    }
+                }
+                assignLocked(orders, carrierId, conn);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                conn.setTransactionIsolation(isolation);
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * Assigns orders locked by the current transaction to a carrier.
+     */
+    private void assignLocked(List<Order> orders, long carrierId, Connection conn) throws SQLException {
+        if (orders.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE orders SET carrier_id = ?, status = 'ASSIGNED' WHERE id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Order order : orders) {
+                stmt.setLong(1, carrierId);
+                stmt.setLong(2, order.getId());
+                stmt.addBatch();
             }
+            stmt.executeBatch();
+        }
+        for (Order order : orders) {
+            order.setCarrierId(carrierId);
+            order.setStatus(OrderStatus.ASSIGNED);
         }
     }
 
@@ -261,7 +406,11 @@ public class OrderDao {
         }
     }
 
-    private Order mapRowToOrder(ResultSet rs) throws SQLException {
+    /**
+     * Maps the current row of an orders result set to an Order. Package-private
+     * so the benchmark module can measure it.
+     */
+    Order mapRowToOrder(ResultSet rs) throws SQLException {
         Order order = new Order();
         order.setId(rs.getLong("id"));
         order.setCustomerId(rs.getLong("customer_id"));
@@ -299,6 +448,14 @@ public class OrderDao {
         order.setLoyaltyDiscountRate(rs.getDouble("loyalty_discount_rate"));
         order.setNote(rs.getString("note"));
 
+        String invoiceStatus = rs.getString("invoice_status");
+        if (invoiceStatus != null)
+            order.setInvoiceStatus(InvoiceStatus.valueOf(invoiceStatus));
+
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        if (updatedAt != null)
+            order.setUpdatedAt(updatedAt.toLocalDateTime());
+
         return order;
     }
 
@@ -314,39 +471,4 @@ public class OrderDao {
             }
         }
     }
-
-    public void saveInvoice(long orderId, byte[] pdfData) throws SQLException {
-        String sql = "INSERT INTO invoices (order_id, pdf_blob) VALUES (?, ?)";
-        try (Connection conn = DbAdapter.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setLong(1, orderId);
-            stmt.setBytes(2, pdfData);
-            stmt.executeUpdate();
-        }
-    }
-
-    // Overloaded method for transaction participation (Matches create(Order,
-    // Connection) pattern)
-    public void saveInvoice(long orderId, byte[] pdfData, Connection conn) throws SQLException {
-        String sql = "INSERT INTO invoices (order_id, pdf_blob) VALUES (?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setLong(1, orderId);
-            stmt.setBytes(2, pdfData);
-            stmt.executeUpdate();
-        }
-    }
-
-    public byte[] getInvoice(long orderId) throws SQLException {
-        String sql = "SELECT pdf_blob FROM invoices WHERE order_id = ?";
-        try (Connection conn = DbAdapter.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setLong(1, orderId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getBytes("pdf_blob");
-                }
-            }
-        }
-        return null;
-    }
 }
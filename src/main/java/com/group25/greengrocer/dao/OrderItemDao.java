@@ -17,20 +17,28 @@ import java.util.List;
  */
 public class OrderItemDao {
 
-    // Transactional create method
-    public void create(OrderItem item, Connection conn) throws SQLException {
+    /**
+     * Inserts the items of an order within a transaction, sending all rows to
+     * the database as one batch.
+     *
+     * @param items the items to insert, with their order id set
+     * @param conn  the database connection of the transaction
+     * @throws SQLException if a database error occurs
+     */
+    public void createAll(List<OrderItem> items, Connection conn) throws SQLException {
         String sql = "INSERT INTO order_items (order_id, product_id, unit, quantity, unit_price_snapshot, line_total) VALUES (?, ?, ?, ?, ?, ?)";
 
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setLong(1, item.getOrderId());
-            stmt.setLong(2, item.getProductId());
-            stmt.setString(3, item.getUnit().name());
-            stmt.setDouble(4, item.getQuantity());
-            stmt.setDouble(5, item.getUnitPriceSnapshot());
-            stmt.setDouble(6, item.getLineTotal());
-
-            stmt.executeUpdate();
+            for (OrderItem item : items) {
+                stmt.setLong(1, item.getOrderId());
+                stmt.setLong(2, item.getProductId());
+                stmt.setString(3, item.getUnit().name());
+                stmt.setDouble(4, item.getQuantity());
+                stmt.setDouble(5, item.getUnitPriceSnapshot());
+                stmt.setDouble(6, item.getLineTotal());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
         }
     }
 
@@ -1,7 +1,9 @@
 package com.group25.greengrocer.dao;
 
 import com.group25.greengrocer.model.Product;
+import com.group25.greengrocer.model.ProductImageVariant;
 import com.group25.greengrocer.util.DbAdapter;
+import com.group25.greengrocer.util.ImageUtil;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -9,6 +11,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object for Product operations.
@@ -19,6 +22,15 @@ import java.util.List;
  */
 public class ProductDao {
 
+    /**
+     * Columns read by the product listings. The image BLOB is deliberately
+     * left out so that a catalog reload only transfers the scalar columns;
+     * has_image tells the UI whether getProductImage is worth calling.
+     */
+    private static final String LISTING_COLUMNS = "p.id, p.name, p.price, p.stock_qty, p.threshold_qty, p.unit, "
+            + "p.image_version, p.updated_at, p.is_deleted, c.name as category_name, "
+            + "(p.image_blob IS NOT NULL) as has_image";
+
     /**
      * Retrieves all product categories from the database.
      * 
@@ -43,14 +55,15 @@ public class ProductDao {
     }
 
     /**
-     * Retrieves all products belonging to a specific category.
+     * Retrieves all products belonging to a specific category. Product images
+     * are not loaded; see getProductImage.
      * 
      * @param category The name of the category to filter by
      * @return A list of Product objects in the specified category, or empty list if none found
      */
     public List<Product> getProductsByCategory(String category) {
         List<Product> products = new ArrayList<>();
-        String query = "SELECT p.*, c.name as category_name FROM products p JOIN categories c ON p.category_id = c.id WHERE c.name = ? AND p.is_deleted = 0 ORDER BY p.name ASC";
+        String query = "SELECT " + LISTING_COLUMNS + " FROM products p JOIN categories c ON p.category_id = c.id WHERE c.name = ? AND p.is_deleted = 0 ORDER BY p.name ASC";
 
         try (Connection conn = DbAdapter.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(query)) {
@@ -58,15 +71,7 @@ public class ProductDao {
             stmt.setString(1, category);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    products.add(new Product(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getDouble("price"),
-                            rs.getDouble("stock_qty"),
-                            rs.getString("category_name"),
-                            rs.getDouble("threshold_qty"),
-                            "PCS".equalsIgnoreCase(rs.getString("unit")),
-                            rs.getBinaryStream("image_blob")));
+                    products.add(mapRowToProduct(rs));
                 }
             }
         } catch (SQLException e) {
@@ -76,28 +81,180 @@ public class ProductDao {
     }
 
     /**
-     * Retrieves all products from the database.
+     * Retrieves all products from the database. Product images are not
+     * loaded; see getProductImage.
      * 
      * @return A list of all Product objects, or empty list if none found
      */
     public List<Product> getAllProducts() {
         List<Product> products = new ArrayList<>();
-        String query = "SELECT p.*, c.name as category_name FROM products p JOIN categories c ON p.category_id = c.id WHERE p.is_deleted = 0 ORDER BY p.name ASC";
+        String query = "SELECT " + LISTING_COLUMNS + " FROM products p JOIN categories c ON p.category_id = c.id WHERE p.is_deleted = 0 ORDER BY p.name ASC";
 
         try (Connection conn = DbAdapter.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(query);
                 ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
-                products.add(new Product(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getDouble("price"),
-                        rs.getDouble("stock_qty"),
-                        rs.getString("category_name"),
-                        rs.getDouble("threshold_qty"),
-                        "PCS".equalsIgnoreCase(rs.getString("unit")),
-                        rs.getBinaryStream("image_blob")));
+                products.add(mapRowToProduct(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return products;
+    }
+
+    /**
+     * Retrieves one page of products sorted by name and id, starting after the
+     * given product. Uses the (is_deleted, name) and (category_id, is_deleted,
+     * name) indexes as keyset cursors, so every page costs the same, however
+     * far into the catalog it is. Product images are not loaded.
+     * 
+     * @param category The category to list, or null for all categories
+     * @param after The last product of the previous page, or null for the first page
+     * @param limit The page size
+     * @return the products of the page, sorted by name
+     */
+    public List<Product> getProductPage(String category, Product after, int limit) {
+        return getProductPage(category, after, limit, true);
+    }
+
+    /**
+     * Retrieves one page of products sorted by name and id, ending before the
+     * given product; the keyset counterpart of getProductPage for paging
+     * backwards.
+     * 
+     * @param category The category to list, or null for all categories
+     * @param before The first product of the next page
+     * @param limit The page size
+     * @return the products of the page, sorted by name
+     */
+    public List<Product> getProductPageBefore(String category, Product before, int limit) {
+        List<Product> page = getProductPage(category, before, limit, false);
+        java.util.Collections.reverse(page);
+        return page;
+    }
+
+    private List<Product> getProductPage(String category, Product cursor, int limit, boolean forward) {
+        List<Product> products = new ArrayList<>();
+        String direction = forward ? "ASC" : "DESC";
+        String query = "SELECT " + LISTING_COLUMNS + " FROM products p JOIN categories c ON p.category_id = c.id WHERE "
+                + (category != null ? "c.name = ? AND " : "") + "p.is_deleted = 0"
+                + (cursor != null ? (forward ? " AND (p.name > ? OR (p.name = ? AND p.id > ?))"
+                        : " AND (p.name < ? OR (p.name = ? AND p.id < ?))") : "")
+                + " ORDER BY p.name " + direction + ", p.id " + direction + " LIMIT ?";
+
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            int index = 1;
+            if (category != null) {
+                stmt.setString(index++, category);
+            }
+            if (cursor != null) {
+                stmt.setString(index++, cursor.getName());
+                stmt.setString(index++, cursor.getName());
+                stmt.setInt(index++, cursor.getId());
+            }
+            stmt.setInt(index, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(mapRowToProduct(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return products;
+    }
+
+    /**
+     * Retrieves the page of products at a row offset, for jumping to a page
+     * whose neighbours have not been loaded. The offset is skipped in the
+     * index alone (a deferred join), and only the rows of the page are read
+     * from the table.
+     * 
+     * @param category The category to list, or null for all categories
+     * @param offset The number of products before the page
+     * @param limit The page size
+     * @return the products of the page, sorted by name
+     */
+    public List<Product> getProductPageAt(String category, int offset, int limit) {
+        List<Product> products = new ArrayList<>();
+        String query = "SELECT " + LISTING_COLUMNS + " FROM products p JOIN categories c ON p.category_id = c.id "
+                + "JOIN (SELECT id FROM products WHERE "
+                + (category != null ? "category_id = (SELECT id FROM categories WHERE name = ?) AND " : "")
+                + "is_deleted = 0 ORDER BY name ASC, id ASC LIMIT ? OFFSET ?) k ON k.id = p.id "
+                + "ORDER BY p.name ASC, p.id ASC";
+
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            int index = 1;
+            if (category != null) {
+                stmt.setString(index++, category);
+            }
+            stmt.setInt(index++, limit);
+            stmt.setInt(index, offset);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(mapRowToProduct(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return products;
+    }
+
+    /**
+     * Counts the products that are not deleted. Answered from the
+     * (is_deleted, name) or (category_id, is_deleted, name) index without
+     * reading table rows.
+     * 
+     * @param category The category to count, or null for all categories
+     * @return the number of products
+     */
+    public int countProducts(String category) {
+        String query = "SELECT COUNT(*) FROM products p JOIN categories c ON p.category_id = c.id WHERE "
+                + (category != null ? "c.name = ? AND " : "") + "p.is_deleted = 0";
+
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            if (category != null) {
+                stmt.setString(1, category);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Retrieves the products inserted or changed since the given time,
+     * including soft deleted ones, oldest change first. Used by
+     * CatalogService to keep its in-memory catalog current.
+     * 
+     * @param since the lower bound of updated_at (inclusive)
+     * @return the changed products, or empty list if none changed
+     */
+    public List<Product> getProductsChangedSince(java.time.LocalDateTime since) {
+        List<Product> products = new ArrayList<>();
+        String query = "SELECT " + LISTING_COLUMNS + " FROM products p JOIN categories c ON p.category_id = c.id WHERE p.updated_at >= ? ORDER BY p.updated_at ASC";
+
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setTimestamp(1, java.sql.Timestamp.valueOf(since));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(mapRowToProduct(rs));
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -105,15 +262,73 @@ public class ProductDao {
         return products;
     }
 
+    /**
+     * Retrieves one stored variant of a product's image. Products whose image
+     * was uploaded before thumbnails existed only have the original, which is
+     * returned for every variant.
+     * 
+     * @param productId The ID of the product
+     * @param variant The image variant to read
+     * @return the encoded image bytes, or null if the product has no image
+     */
+    public byte[] getProductImage(int productId, ProductImageVariant variant) {
+        String column;
+        switch (variant) {
+            case SMALL:
+                column = "COALESCE(image_small, image_blob)";
+                break;
+            case MEDIUM:
+                column = "COALESCE(image_medium, image_blob)";
+                break;
+            default:
+                column = "image_blob";
+        }
+        String query = "SELECT " + column + " FROM products WHERE id = ?";
+
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setInt(1, productId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getBytes(1);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Maps a row selected with LISTING_COLUMNS to a Product without image.
+     */
+    private Product mapRowToProduct(ResultSet rs) throws SQLException {
+        Product product = new Product(
+                rs.getInt("id"),
+                rs.getString("name"),
+                rs.getDouble("price"),
+                rs.getDouble("stock_qty"),
+                rs.getString("category_name"),
+                rs.getDouble("threshold_qty"),
+                "PCS".equalsIgnoreCase(rs.getString("unit")),
+                rs.getBoolean("has_image"));
+        product.setImageVersion(rs.getInt("image_version"));
+        java.sql.Timestamp updatedAt = rs.getTimestamp("updated_at");
+        product.setUpdatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : null);
+        product.setDeleted(rs.getBoolean("is_deleted"));
+        return product;
+    }
+
     /**
      * Adds a new product to the database.
      * 
      * @param product The Product object containing product details
      * @param categoryId The ID of the category this product belongs to
-     * @param imageStream The input stream containing the product image data
+     * @param images The product image variants created by ImageUtil, or null for no image
      */
-    public void addProduct(Product product, int categoryId, java.io.InputStream imageStream) {
-        String query = "INSERT INTO products (name, price, stock_qty, threshold_qty, unit, category_id, image_blob) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    public void addProduct(Product product, int categoryId, ImageUtil.ProductImages images) {
+        String query = "INSERT INTO products (name, price, stock_qty, threshold_qty, unit, category_id, image_blob, image_medium, image_small) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
         try (Connection conn = DbAdapter.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(query)) {
@@ -124,12 +339,7 @@ public class ProductDao {
             stmt.setDouble(4, product.getThreshold());
             stmt.setString(5, product.isPiece() ? "PCS" : "KG");
             stmt.setInt(6, categoryId);
-
-            if (imageStream != null) {
-                stmt.setBlob(7, imageStream);
-            } else {
-                stmt.setNull(7, java.sql.Types.BLOB);
-            }
+            setImages(stmt, 7, images);
 
             stmt.executeUpdate();
         } catch (SQLException e) {
@@ -142,13 +352,14 @@ public class ProductDao {
      * 
      * @param product The Product object containing updated product details
      * @param categoryId The ID of the category this product belongs to
-     * @param imageStream The input stream containing the new product image data, or null to keep existing image
+     * @param images The new product image variants created by ImageUtil, or null to keep the existing image.
+     *               A new image increments the product's image version.
      */
-    public void updateProduct(Product product, int categoryId, java.io.InputStream imageStream) {
+    public void updateProduct(Product product, int categoryId, ImageUtil.ProductImages images) {
         StringBuilder query = new StringBuilder(
                 "UPDATE products SET name=?, price=?, stock_qty=?, threshold_qty=?, unit=?, category_id=?");
-        if (imageStream != null) {
-            query.append(", image_blob=?");
+        if (images != null) {
+            query.append(", image_blob=?, image_medium=?, image_small=?, image_version=image_version+1");
         }
         query.append(" WHERE id=?");
 
@@ -163,8 +374,9 @@ public class ProductDao {
             stmt.setInt(6, categoryId);
 
             int paramIndex = 7;
-            if (imageStream != null) {
-                stmt.setBlob(paramIndex++, imageStream);
+            if (images != null) {
+                setImages(stmt, paramIndex, images);
+                paramIndex += 3;
             }
             stmt.setInt(paramIndex, product.getId());
 
@@ -174,6 +386,23 @@ public class ProductDao {
         }
     }
 
+    /**
+     * Binds the original, medium and small image variants to three
+     * consecutive parameters, or NULL if there is no image.
+     */
+    private static void setImages(PreparedStatement stmt, int firstIndex, ImageUtil.ProductImages images)
+            throws SQLException {
+        ProductImageVariant[] order = { ProductImageVariant.ORIGINAL, ProductImageVariant.MEDIUM,
+                ProductImageVariant.SMALL };
+        for (int i = 0; i < order.length; i++) {
+            if (images != null) {
+                stmt.setBytes(firstIndex + i, images.get(order[i]));
+            } else {
+                stmt.setNull(firstIndex + i, java.sql.Types.BLOB);
+            }
+        }
+    }
+
     /**
      * Soft deletes a product by marking it as deleted.
      * 
@@ -196,25 +425,38 @@ public class ProductDao {
     }
 
     /**
-     * Reduces the stock quantity of a product within a transaction.
-     * 
-     * @param productId The ID of the product to reduce stock for
-     * @param quantity The amount of stock to reduce
-     * @param conn The database connection to use (for transaction management)
-     * @return true if stock was successfully reduced, false if insufficient stock
+     * Reduces the stock of several products within a transaction, sending all
+     * updates to the database as one batch. Each row is only updated if it
+     * has enough stock.
+     *
+     * @param quantities the amount to reduce per product id; iterate it in id
+     *                   order (a TreeMap) so that concurrent checkouts lock the
+     *                   rows in the same order
+     * @param conn       The database connection to use (for transaction management)
+     * @return the ids of the products without enough stock; empty if every
+     *         product was reduced
      * @throws SQLException if a database error occurs
      */
-    public boolean reduceStock(long productId, double quantity, Connection conn) throws SQLException {
+    public List<Long> reduceStock(Map<Long, Double> quantities, Connection conn) throws SQLException {
         String sql = "UPDATE products SET stock_qty = stock_qty - ? WHERE id = ? AND stock_qty >= ?";
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
 
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<Long, Double> entry : quantities.entrySet()) {
+                stmt.setDouble(1, entry.getValue());
+                stmt.setLong(2, entry.getKey());
+                stmt.setDouble(3, entry.getValue());
+                stmt.addBatch();
+            }
 
-            stmt.setDouble(1, quantity);
-            stmt.setLong(2, productId);
-            stmt.setDouble(3, quantity); // Ensure check constraint inside query
-
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            int[] rowsAffected = stmt.executeBatch();
+            List<Long> insufficient = new ArrayList<>();
+            for (int i = 0; i < rowsAffected.length; i++) {
+                if (rowsAffected[i] == 0) {
+                    insufficient.add(productIds.get(i));
+                }
+            }
+            return insufficient;
         }
     }
 }
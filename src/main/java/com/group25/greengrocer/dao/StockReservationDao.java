@@ -0,0 +1,183 @@
+package com.group25.greengrocer.dao;
+
+import com.group25.greengrocer.util.DbAdapter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Data Access Object for the stock holds of open carts.
+ *
+ * Holds are rows of stock_reservations, so carts on different workstations
+ * see each other's holds. Expiry times are computed by the database clock,
+ * which all workstations share.
+ */
+public class StockReservationDao {
+
+    /**
+     * Tolerance when comparing DECIMAL(10, 3) quantities read as doubles.
+     */
+    private static final double EPSILON = 0.0005;
+
+    /**
+     * Sets the quantity a cart holds of a product and renews the hold.
+     *
+     * The product row is locked for the duration of the check, so concurrent
+     * holds of the same product, from any workstation, are serialized and
+     * never add up to more than the stock. Lowering a hold always succeeds.
+     *
+     * @param cartId     the cart
+     * @param productId  the product
+     * @param quantity   the new quantity held; 0 releases the hold
+     * @param ttlSeconds how long the hold lasts from now
+     * @return true if the cart now holds the quantity, false if not enough
+     *         stock is available, in which case the previous hold is kept
+     * @throws SQLException if a database error occurs
+     */
+    public boolean reserve(String cartId, long productId, double quantity, long ttlSeconds) throws SQLException {
+        if (quantity <= 0) {
+            release(cartId, productId);
+            return true;
+        }
+        try (Connection conn = DbAdapter.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Double stock = lockStock(productId, conn);
+                double[] held = heldQuantities(cartId, productId, conn);
+                if (stock == null || (quantity > held[1] + EPSILON && quantity > stock - held[0] + EPSILON)) {
+                    conn.rollback();
+                    return false;
+                }
+                upsert(cartId, productId, quantity, ttlSeconds, conn);
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns how much of a product a cart could hold in total: the stock
+     * not held by other carts.
+     *
+     * @param cartId    the cart
+     * @param productId the product
+     * @return the available quantity, never negative
+     * @throws SQLException if a database error occurs
+     */
+    public double getAvailable(String cartId, long productId) throws SQLException {
+        String sql = "SELECT stock_qty FROM products WHERE id = ? AND is_deleted = 0";
+        try (Connection conn = DbAdapter.getConnection()) {
+            double stock = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, productId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        stock = rs.getDouble(1);
+                    }
+                }
+            }
+            return Math.max(0, stock - heldQuantities(cartId, productId, conn)[0]);
+        }
+    }
+
+    /**
+     * Releases every hold of a cart.
+     *
+     * @param cartId the cart
+     * @throws SQLException if a database error occurs
+     */
+    public void releaseAll(String cartId) throws SQLException {
+        String sql = "DELETE FROM stock_reservations WHERE cart_id = ?";
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, cartId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Deletes the holds that have expired.
+     *
+     * @return the number of holds deleted
+     * @throws SQLException if a database error occurs
+     */
+    public int deleteExpired() throws SQLException {
+        String sql = "DELETE FROM stock_reservations WHERE expires_at <= CURRENT_TIMESTAMP(3)";
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            return stmt.executeUpdate();
+        }
+    }
+
+    private void release(String cartId, long productId) throws SQLException {
+        String sql = "DELETE FROM stock_reservations WHERE cart_id = ? AND product_id = ?";
+        try (Connection conn = DbAdapter.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, cartId);
+            stmt.setLong(2, productId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * @return the product's stock, or null if it does not exist or is deleted
+     */
+    private Double lockStock(long productId, Connection conn) throws SQLException {
+        String sql = "SELECT stock_qty FROM products WHERE id = ? AND is_deleted = 0 FOR UPDATE";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, productId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getDouble(1) : null;
+            }
+        }
+    }
+
+    /**
+     * @return the quantities of a product held by other carts (index 0) and
+     *         by this cart (index 1), counting only holds that have not expired
+     */
+    private double[] heldQuantities(String cartId, long productId, Connection conn) throws SQLException {
+        String sql = "SELECT COALESCE(SUM(CASE WHEN cart_id = ? THEN 0 ELSE quantity END), 0), "
+                + "COALESCE(SUM(CASE WHEN cart_id = ? THEN quantity ELSE 0 END), 0) "
+                + "FROM stock_reservations WHERE product_id = ? AND expires_at > CURRENT_TIMESTAMP(3)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, cartId);
+            stmt.setString(2, cartId);
+            stmt.setLong(3, productId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return new double[] { rs.getDouble(1), rs.getDouble(2) };
+            }
+        }
+    }
+
+    private void upsert(String cartId, long productId, double quantity, long ttlSeconds, Connection conn)
+            throws SQLException {
+        String update = "UPDATE stock_reservations SET quantity = ?, "
+                + "expires_at = TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP(3)) WHERE cart_id = ? AND product_id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(update)) {
+            stmt.setDouble(1, quantity);
+            stmt.setLong(2, ttlSeconds);
+            stmt.setString(3, cartId);
+            stmt.setLong(4, productId);
+            if (stmt.executeUpdate() > 0) {
+                return;
+            }
+        }
+        // No row yet; the product lock keeps another insert for this cart out
+        String insert = "INSERT INTO stock_reservations (cart_id, product_id, quantity, expires_at) "
+                + "VALUES (?, ?, ?, TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP(3)))";
+        try (PreparedStatement stmt = conn.prepareStatement(insert)) {
+            stmt.setString(1, cartId);
+            stmt.setLong(2, productId);
+            stmt.setDouble(3, quantity);
+            stmt.setLong(4, ttlSeconds);
+            stmt.executeUpdate();
+        }
+    }
+}
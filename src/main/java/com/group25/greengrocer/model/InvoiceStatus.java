@@ -0,0 +1,21 @@
+package com.group25.greengrocer.model;
+
+/**
+ * Enumeration representing whether the invoice of an order has been stored.
+ * 
+ * Invoices are rendered in the background after checkout:
+ * PENDING → READY (or FAILED once every attempt failed)
+ * 
+ * Orders that were never queued, such as bulk-loaded data, are MISSING.
+ * Invoices that are not READY are rendered on demand when downloaded.
+ */
+public enum InvoiceStatus {
+
+    MISSING,
+
+    PENDING,
+
+    READY,
+
+    FAILED
+}
@@ -46,6 +46,10 @@ public class Order {
     
     private String note;
 
+    private InvoiceStatus invoiceStatus;
+
+    private LocalDateTime updatedAt;
+
     private List<OrderItem> items = new ArrayList<>();
 
     /**
@@ -363,6 +367,42 @@ public class Order {
         this.note = note;
     }
 
+    /**
+     * Gets whether the invoice of this order has been stored.
+     * 
+     * @return the invoice status, or null if unknown
+     */
+    public InvoiceStatus getInvoiceStatus() {
+        return invoiceStatus;
+    }
+
+    /**
+     * Sets whether the invoice of this order has been stored.
+     * 
+     * @param invoiceStatus the invoice status
+     */
+    public void setInvoiceStatus(InvoiceStatus invoiceStatus) {
+        this.invoiceStatus = invoiceStatus;
+    }
+
+    /**
+     * Gets the time of the last change to the order row.
+     * 
+     * @return the last change time, or null if unknown
+     */
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Sets the time of the last change to the order row.
+     * 
+     * @param updatedAt the last change time
+     */
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     /**
      * Gets the list of items in this order.
      * 
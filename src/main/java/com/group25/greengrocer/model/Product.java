@@ -26,6 +26,18 @@ public class Product {
     /** Product image for display in the UI */
     private javafx.scene.image.Image productImage;
 
+    /** Whether an image is stored for the product, even if not loaded yet */
+    private boolean hasImage;
+
+    /** Version of the stored image, see getImageVersion */
+    private int imageVersion;
+
+    /** Last change of the product row in the database */
+    private java.time.LocalDateTime updatedAt;
+
+    /** Whether the product has been soft deleted */
+    private boolean deleted;
+
     /**
      * Constructs a new Product with the specified details.
      * 
@@ -49,9 +61,36 @@ public class Product {
         this.isPiece = isPiece;
         if (imageContent != null) {
             this.productImage = new javafx.scene.image.Image(imageContent);
+            this.hasImage = true;
         }
     }
 
+    /**
+     * Constructs a new Product without loading its image. Used by the listing
+     * queries, which leave the image BLOB in the database; the image is fetched
+     * on demand through ProductImageCache.
+     * 
+     * @param id the unique identifier for the product
+     * @param name the name of the product
+     * @param price the base price per unit
+     * @param stock the current stock quantity
+     * @param category the category (Vegetable or Fruit)
+     * @param threshold the threshold for price doubling
+     * @param isPiece true if sold by piece, false if by weight
+     * @param hasImage true if an image is stored for the product
+     */
+    public Product(int id, String name, double price, double stock, String category, double threshold,
+            boolean isPiece, boolean hasImage) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stock = stock;
+        this.category = category;
+        this.threshold = threshold;
+        this.isPiece = isPiece;
+        this.hasImage = hasImage;
+    }
+
     /**
      * Gets the unique identifier of the product.
      * 
@@ -125,6 +164,72 @@ public class Product {
         return productImage;
     }
 
+    /**
+     * Gets the version of the stored image, incremented whenever a new image
+     * is uploaded. Used to key cached images.
+     * 
+     * @return the image version
+     */
+    public int getImageVersion() {
+        return imageVersion;
+    }
+
+    /**
+     * Sets the version of the stored image.
+     * 
+     * @param imageVersion the image version
+     */
+    public void setImageVersion(int imageVersion) {
+        this.imageVersion = imageVersion;
+    }
+
+    /**
+     * Checks if an image is stored for the product. The image itself may not
+     * be loaded yet, in which case getProductImage returns null.
+     * 
+     * @return true if the product has an image
+     */
+    public boolean hasImage() {
+        return hasImage;
+    }
+
+    /**
+     * Gets the time of the last change to the product row, as recorded by the
+     * database.
+     * 
+     * @return the last change time, or null if unknown
+     */
+    public java.time.LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Sets the time of the last change to the product row.
+     * 
+     * @param updatedAt the last change time
+     */
+    public void setUpdatedAt(java.time.LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Checks if the product has been soft deleted.
+     * 
+     * @return true if the product is deleted
+     */
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    /**
+     * Sets whether the product has been soft deleted.
+     * 
+     * @param deleted true if the product is deleted
+     */
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
     /**
      * Sets the current stock quantity of the product.
      * 
@@ -0,0 +1,51 @@
+package com.group25.greengrocer.model;
+
+/**
+ * Stored sizes of a product image.
+ *
+ * Every uploaded product image is stored as a normalized original plus two
+ * thumbnails, each a JPEG scaled to fit a square of maxDimension pixels.
+ * Screens fetch the smallest variant that covers the size they display.
+ */
+public enum ProductImageVariant {
+
+    /** Thumbnail for product cards, cart rows and the owner's product list */
+    SMALL(200),
+
+    /** Thumbnail for larger previews */
+    MEDIUM(480),
+
+    /** Normalized original */
+    ORIGINAL(1024);
+
+    private final int maxDimension;
+
+    ProductImageVariant(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    /**
+     * Gets the largest width or height of this variant.
+     * 
+     * @return the maximum dimension in pixels
+     */
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    /**
+     * Returns the smallest variant that is at least as large as the given
+     * size, or ORIGINAL for anything larger than MEDIUM.
+     * 
+     * @param pixels the displayed size in physical pixels
+     * @return the variant to fetch
+     */
+    public static ProductImageVariant forSize(int pixels) {
+        for (ProductImageVariant variant : values()) {
+            if (pixels <= variant.maxDimension) {
+                return variant;
+            }
+        }
+        return ORIGINAL;
+    }
+}
@@ -0,0 +1,42 @@
+package com.group25.greengrocer.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Service class for authentication helpers shared by the login, registration,
+ * profile and carrier management screens.
+ *
+ * Passwords are stored as the lowercase hexadecimal SHA-256 digest of their
+ * UTF-8 bytes. Every place that stores or compares a password hash must use
+ * hashPassword() so the digests stay identical.
+ */
+public class AuthService {
+
+    /**
+     * Hashes a password using SHA-256.
+     *
+     * @param password the plain text password
+     * @return the 64 character lowercase hex digest, or null if SHA-256 is not
+     *         available
+     */
+    public static String hashPassword(String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] encodedhash = digest.digest(password.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hexString = new StringBuilder(2 * encodedhash.length);
+            for (byte b : encodedhash) {
+                String hex = Integer.toHexString(0xff & b);
+                if (hex.length() == 1) {
+                    hexString.append('0');
+                }
+                hexString.append(hex);
+            }
+            return hexString.toString();
+        } catch (NoSuchAlgorithmException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
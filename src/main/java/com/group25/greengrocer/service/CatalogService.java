@@ -0,0 +1,285 @@
+package com.group25.greengrocer.service;
+
+import com.group25.greengrocer.config.CacheConfig;
+import com.group25.greengrocer.dao.ProductDao;
+import com.group25.greengrocer.model.Product;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Process-wide in-memory snapshot of the product catalog.
+ *
+ * The first access loads all products once. After that, refresh() only reads
+ * the rows whose updated_at is at or after the newest change already applied
+ * (the watermark, minus CacheConfig.CATALOG_WATERMARK_OVERLAP_MS), so a
+ * refresh costs one index range scan that returns nothing when nothing
+ * changed, whether the catalog has 50 products or 50,000. The database moves
+ * updated_at on every insert and update, which covers owner edits, soft
+ * deletes (removed from the snapshot) and stock reductions by placed orders.
+ * After placing an order, the customer view refreshes the snapshot in the
+ * background, which reads the reduced stock back.
+ *
+ * Product objects in the snapshot are never modified: a changed row replaces
+ * the object, so readers on other threads always see a consistent product.
+ *
+ * Reads are lock-free lookups in concurrent sorted sets, ordered by name like
+ * the former listing queries. Refreshes are serialized.
+ *
+ * Categories are loaded with the first refresh and reloaded only when a
+ * changed product refers to a category that is not known yet.
+ *
+ * search() answers queries from a ProductSearchIndex. The index is built on
+ * the first search and rebuilt, by the refresh that brought the change, only
+ * when a product is added, removed, renamed or moved to another category;
+ * stock and price changes are picked up through the product ids it holds.
+ */
+public class CatalogService {
+
+    /**
+     * Same order as the listing queries: by name, ignoring case, then by id.
+     */
+    private static final Comparator<Product> BY_NAME = Comparator
+            .comparing(Product::getName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Product::getName)
+            .thenComparingInt(Product::getId);
+
+    private static final CatalogService INSTANCE = new CatalogService();
+
+    private final ProductDao productDao = new ProductDao();
+
+    private final Map<Integer, Product> productsById = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListSet<Product> allProducts = new ConcurrentSkipListSet<>(BY_NAME);
+
+    private final Map<String, ConcurrentSkipListSet<Product>> productsByCategory = new ConcurrentHashMap<>();
+
+    private volatile Map<String, Integer> categories = Collections.emptyMap();
+
+    /**
+     * Newest updated_at applied so far; null until the first load.
+     */
+    private volatile LocalDateTime watermark;
+
+    private volatile long lastRefreshMillis;
+
+    /**
+     * Null until the first search.
+     */
+    private volatile ProductSearchIndex searchIndex;
+
+    private volatile boolean searchIndexStale = true;
+
+    private CatalogService() {
+    }
+
+    /**
+     * @return the process-wide catalog
+     */
+    public static CatalogService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Brings the snapshot up to date with the database, loading it first if
+     * necessary.
+     *
+     * @return the number of products added, changed or removed
+     */
+    public synchronized int refresh() {
+        int changes;
+        if (watermark == null) {
+            changes = loadAll();
+        } else {
+            LocalDateTime since = watermark.minusNanos(CacheConfig.CATALOG_WATERMARK_OVERLAP_MS * 1_000_000);
+            changes = 0;
+            for (Product product : productDao.getProductsChangedSince(since)) {
+                if (apply(product)) {
+                    changes++;
+                }
+            }
+        }
+        lastRefreshMillis = System.currentTimeMillis();
+        if (searchIndexStale && searchIndex != null) {
+            rebuildSearchIndex(); // Here rather than on the next keystroke
+        }
+        return changes;
+    }
+
+    /**
+     * Refreshes the snapshot unless it was refreshed less than
+     * CacheConfig.CATALOG_REFRESH_INTERVAL_MS ago.
+     *
+     * @return the number of products added, changed or removed
+     */
+    public int refreshIfStale() {
+        if (watermark != null
+                && System.currentTimeMillis() - lastRefreshMillis < CacheConfig.CATALOG_REFRESH_INTERVAL_MS) {
+            return 0;
+        }
+        return refresh();
+    }
+
+    /**
+     * Returns the products of one category, sorted by name.
+     *
+     * @param category the category name
+     * @return the products in the category, or an empty list if none
+     */
+    public List<Product> getProductsByCategory(String category) {
+        ensureLoaded();
+        ConcurrentSkipListSet<Product> products = productsByCategory.get(category);
+        return products != null ? new ArrayList<>(products) : new ArrayList<>();
+    }
+
+    /**
+     * Returns all products, sorted by name.
+     *
+     * @return all products that are not deleted
+     */
+    public List<Product> getAllProducts() {
+        ensureLoaded();
+        return new ArrayList<>(allProducts);
+    }
+
+    /**
+     * Returns one product.
+     *
+     * @param productId the product id
+     * @return the product, or null if it does not exist or is deleted
+     */
+    public Product getProduct(int productId) {
+        ensureLoaded();
+        return productsById.get(productId);
+    }
+
+    /**
+     * Returns the product categories.
+     *
+     * @return category names mapped to category ids
+     */
+    public Map<String, Integer> getCategories() {
+        ensureLoaded();
+        return categories;
+    }
+
+    /**
+     * Searches product names and categories, tolerating small typos.
+     *
+     * @param query    the search text
+     * @param category the category to search in, or null for all categories
+     * @param limit    the maximum number of results
+     * @return the matching products, best match first
+     */
+    public List<Product> search(String query, String category, int limit) {
+        ensureLoaded();
+        // A stale index is replaced by the refresh that made it stale, so only
+        // the first search waits for a build
+        ProductSearchIndex index = searchIndex;
+        if (index == null) {
+            index = rebuildSearchIndex();
+        }
+        int[] ids = index.search(query, category, limit);
+        List<Product> results = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Product product = productsById.get(id);
+            if (product != null) {
+                results.add(product);
+            }
+        }
+        return results;
+    }
+
+    private synchronized ProductSearchIndex rebuildSearchIndex() {
+        if (searchIndex == null || searchIndexStale) {
+            searchIndexStale = false;
+            searchIndex = ProductSearchIndex.build(new ArrayList<>(allProducts));
+        }
+        return searchIndex;
+    }
+
+    private void ensureLoaded() {
+        if (watermark == null) {
+            refresh();
+        }
+    }
+
+    /**
+     * Loads the whole catalog. Caller holds the monitor.
+     */
+    private int loadAll() {
+        categories = Collections.unmodifiableMap(new HashMap<>(productDao.getCategories()));
+        productsById.clear();
+        allProducts.clear();
+        productsByCategory.clear();
+        searchIndexStale = true;
+
+        LocalDateTime newest = LocalDateTime.of(1970, 1, 1, 0, 0, 1);
+        List<Product> products = productDao.getAllProducts();
+        for (Product product : products) {
+            add(product);
+            if (product.getUpdatedAt() != null && product.getUpdatedAt().isAfter(newest)) {
+                newest = product.getUpdatedAt();
+            }
+        }
+        watermark = newest;
+        return products.size();
+    }
+
+    /**
+     * Applies one changed row. Caller holds the monitor.
+     *
+     * @return true if the snapshot changed
+     */
+    private boolean apply(Product changed) {
+        if (changed.getUpdatedAt() != null && changed.getUpdatedAt().isAfter(watermark)) {
+            watermark = changed.getUpdatedAt();
+        }
+
+        Product current = productsById.get(changed.getId());
+        if (current != null && Objects.equals(current.getUpdatedAt(), changed.getUpdatedAt())) {
+            return false; // Seen before, re-read because of the overlap window
+        }
+        if (current != null) {
+            remove(current);
+        }
+        boolean searchChanged = current == null ? !changed.isDeleted()
+                : changed.isDeleted() || !current.getName().equals(changed.getName())
+                        || !Objects.equals(current.getCategory(), changed.getCategory());
+        if (searchChanged) {
+            searchIndexStale = true;
+        }
+        if (changed.isDeleted()) {
+            return current != null;
+        }
+        if (!categories.containsKey(changed.getCategory())) {
+            categories = Collections.unmodifiableMap(new HashMap<>(productDao.getCategories()));
+        }
+        add(changed);
+        return true;
+    }
+
+    private void add(Product product) {
+        productsById.put(product.getId(), product);
+        allProducts.add(product);
+        productsByCategory.computeIfAbsent(product.getCategory(), c -> new ConcurrentSkipListSet<>(BY_NAME))
+                .add(product);
+    }
+
+    private void remove(Product product) {
+        productsById.remove(product.getId());
+        allProducts.remove(product);
+        ConcurrentSkipListSet<Product> category = productsByCategory.get(product.getCategory());
+        if (category != null) {
+            category.remove(product);
+        }
+    }
+}
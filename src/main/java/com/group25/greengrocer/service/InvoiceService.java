@@ -0,0 +1,362 @@
+package com.group25.greengrocer.service;
+
+import com.group25.greengrocer.config.InvoiceConfig;
+import com.group25.greengrocer.dao.InvoiceDao;
+import com.group25.greengrocer.dao.OrderDao;
+import com.group25.greengrocer.dao.OrderItemDao;
+import com.group25.greengrocer.model.Order;
+import com.group25.greengrocer.model.OrderItem;
+import com.group25.greengrocer.util.PdfInvoiceUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders invoices in the background from the persistent job queue in
+ * invoice_jobs.
+ *
+ * Checkout only queues a job in its transaction and hands the order to the
+ * worker pool, so rendering the PDF is no longer part of placing an order.
+ * Jobs that fail are retried with exponential backoff, up to
+ * InvoiceConfig.MAX_ATTEMPTS. Because the queue is a table, jobs survive a
+ * restart: a poller picks up every due job, including those left over from
+ * an earlier run or queued by another workstation, every
+ * InvoiceConfig.POLL_INTERVAL_MS. Workers claim a job in the database before
+ * rendering it, so each attempt runs once even with several workstations.
+ *
+ * A download does not wait for the queue: writeInvoice renders a missing
+ * invoice on demand, and exportInvoices renders the missing invoices of a
+ * whole period in parallel.
+ */
+public class InvoiceService {
+
+    private static final InvoiceService INSTANCE = new InvoiceService();
+
+    /**
+     * Write buffer of the export archive.
+     */
+    private static final int EXPORT_BUFFER_BYTES = 64 * 1024;
+
+    private final InvoiceDao invoiceDao = new InvoiceDao();
+    private final OrderDao orderDao = new OrderDao();
+    private final OrderItemDao orderItemDao = new OrderItemDao();
+
+    /**
+     * Orders being rendered by this process, so that the poller does not hand
+     * a job to a second worker while the first is still on it.
+     */
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService poller;
+    private ExecutorService workers;
+
+    private InvoiceService() {
+    }
+
+    /**
+     * @return the process-wide invoice service
+     */
+    public static InvoiceService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts the worker pool and the poller, which immediately picks up the
+     * jobs left from an earlier run. Does nothing if already started.
+     */
+    public synchronized void start() {
+        if (workers != null) {
+            return;
+        }
+        AtomicInteger workerCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(InvoiceConfig.WORKERS, r -> {
+            Thread t = new Thread(r, "invoice-worker-" + workerCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "invoice-queue");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(this::poll, 0, InvoiceConfig.POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling and lets the invoices being rendered finish. Jobs that were
+     * not started stay queued for the next run.
+     */
+    public synchronized void shutdown() {
+        if (workers == null) {
+            return;
+        }
+        poller.shutdownNow();
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers = null;
+        poller = null;
+    }
+
+    /**
+     * Renders the invoice of an order just placed, without waiting for the
+     * next poll. The job must have been queued with InvoiceDao.enqueue.
+     *
+     * @param orderId the order
+     */
+    public void submit(long orderId) {
+        start();
+        dispatch(orderId, 0);
+    }
+
+    /**
+     * Writes the invoice of an order to a file, rendering and storing it first
+     * if the queue has not done so yet. A stored invoice is streamed from the
+     * database into the file. Blocks; call it off the FX thread.
+     *
+     * @param orderId the order
+     * @param target  the file to write, replaced if it exists
+     * @throws SQLException if the order cannot be read or the invoice not stored
+     * @throws IOException  if the file cannot be written
+     */
+    public void writeInvoice(long orderId, Path target) throws SQLException, IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (invoiceDao.copyInvoiceTo(orderId, channel)) {
+                return;
+            }
+            byte[] pdfData = render(orderId);
+            invoiceDao.saveInvoice(orderId, pdfData);
+            channel.write(ByteBuffer.wrap(pdfData));
+        }
+    }
+
+    /**
+     * Result of exportInvoices.
+     */
+    public static final class ExportResult {
+        private final int exported;
+        private final int failed;
+
+        ExportResult(int exported, int failed) {
+            this.exported = exported;
+            this.failed = failed;
+        }
+
+        /**
+         * @return the number of invoices written to the archive
+         */
+        public int getExported() {
+            return exported;
+        }
+
+        /**
+         * @return the number of missing invoices that could not be rendered
+         */
+        public int getFailed() {
+            return failed;
+        }
+    }
+
+    /**
+     * Writes the invoices of all orders placed in a period into a ZIP archive,
+     * one invoice_&lt;order id&gt;.pdf entry per order.
+     *
+     * Stored invoices are streamed from the database into the archive one at
+     * a time, so memory use does not grow with the number of invoices.
+     * Meanwhile the missing ones are rendered in parallel, one thread per
+     * core, stored like the queue would store them, and added to the archive
+     * as they finish. Blocks; call it off the FX thread.
+     *
+     * The archive is written to a temporary file next to the target, which
+     * replaces the target only once the archive is complete, so a failed
+     * export leaves an existing archive as it was.
+     *
+     * @param from   first day of the period
+     * @param to     last day of the period, inclusive
+     * @param target the archive to write, replaced if it exists
+     * @return how many invoices were exported and how many failed
+     * @throws SQLException if the invoices cannot be read
+     * @throws IOException  if the archive cannot be written
+     */
+    public ExportResult exportInvoices(LocalDate from, LocalDate to, Path target) throws SQLException, IOException {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        List<Long> missing = invoiceDao.findOrdersWithoutInvoice(start, end);
+
+        // An invoice rendered here may also show up among the stored ones,
+        // so every entry is checked against the orders already written
+        Set<Long> written = ConcurrentHashMap.newKeySet();
+        AtomicInteger failed = new AtomicInteger();
+
+        Path partial = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName() + ".", ".part");
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService renderers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "invoice-export-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            try (ZipOutputStream zip = new ZipOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(partial), EXPORT_BUFFER_BYTES))) {
+                // PDFs are compressed already
+                zip.setLevel(Deflater.BEST_SPEED);
+
+                List<Future<?>> renders = new ArrayList<>(missing.size());
+                for (long orderId : missing) {
+                    renders.add(renderers.submit(() -> {
+                        try {
+                            byte[] pdfData = render(orderId);
+                            invoiceDao.saveInvoice(orderId, pdfData);
+                            synchronized (zip) {
+                                if (written.add(orderId)) {
+                                    addEntry(zip, orderId, new ByteArrayInputStream(pdfData));
+                                }
+                            }
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                            System.err.println("Failed to export invoice of order " + orderId + ": " + e.getMessage());
+                        }
+                        return null;
+                    }));
+                }
+
+                invoiceDao.forEachInvoice(start, end, (orderId, pdf) -> {
+                    synchronized (zip) {
+                        if (written.add(orderId)) {
+                            addEntry(zip, orderId, pdf);
+                        }
+                    }
+                });
+
+                for (Future<?> render : renders) {
+                    try {
+                        render.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Invoice export interrupted", e);
+                    } catch (ExecutionException e) {
+                        // Counted as failed by the task itself
+                    }
+                }
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            renderers.shutdownNow();
+            // Only left behind if the export failed
+            Files.deleteIfExists(partial);
+        }
+        return new ExportResult(written.size(), failed.get());
+    }
+
+    private static void addEntry(ZipOutputStream zip, long orderId, InputStream pdf) throws IOException {
+        zip.putNextEntry(new ZipEntry("invoice_" + orderId + ".pdf"));
+        pdf.transferTo(zip);
+        zip.closeEntry();
+    }
+
+    private void poll() {
+        try {
+            Map<Long, Integer> jobs = invoiceDao.findDueJobs(LocalDateTime.now(), InvoiceConfig.POLL_BATCH_SIZE);
+            jobs.forEach(this::dispatch);
+        } catch (Exception e) {
+            // The next poll tries again
+            System.err.println("Failed to poll invoice jobs: " + e.getMessage());
+        }
+    }
+
+    private synchronized void dispatch(long orderId, int attempts) {
+        if (workers != null && inFlight.add(orderId)) {
+            workers.execute(() -> {
+                try {
+                    process(orderId, attempts);
+                } finally {
+                    inFlight.remove(orderId);
+                }
+            });
+        }
+    }
+
+    private void process(long orderId, int attempts) {
+        try {
+            LocalDateTime retryAt = LocalDateTime.now().plus(Duration.ofMillis(retryDelay(attempts + 1)));
+            if (!invoiceDao.claim(orderId, attempts, retryAt)) {
+                return;
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to claim invoice job of order " + orderId + ": " + e.getMessage());
+            return;
+        }
+
+        try {
+            invoiceDao.saveInvoice(orderId, render(orderId));
+            System.out.println("Invoice generated and saved for Order ID: " + orderId);
+        } catch (Exception e) {
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            System.err.println("Failed to generate/save invoice of order " + orderId + " (attempt "
+                    + (attempts + 1) + "): " + error);
+            try {
+                if (attempts + 1 >= InvoiceConfig.MAX_ATTEMPTS) {
+                    invoiceDao.giveUp(orderId, error);
+                } else {
+                    invoiceDao.recordFailure(orderId, error);
+                }
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    private byte[] render(long orderId) throws SQLException {
+        Order order = orderDao.findById(orderId);
+        if (order == null) {
+            throw new SQLException("Order not found: " + orderId);
+        }
+        List<OrderItem> items = orderItemDao.findByOrderId(orderId);
+        byte[] pdfData = PdfInvoiceUtil.generateInvoice(order, items);
+        if (pdfData == null) {
+            throw new IllegalStateException("Could not render the invoice of order " + orderId);
+        }
+        return pdfData;
+    }
+
+    /**
+     * Delay before the given attempt is retried: RETRY_BASE_DELAY_MS, doubled
+     * for every earlier attempt, capped at RETRY_MAX_DELAY_MS.
+     */
+    private static long retryDelay(int attempt) {
+        int doublings = Math.min(Math.max(0, attempt - 1), 30);
+        return Math.min(InvoiceConfig.RETRY_MAX_DELAY_MS, InvoiceConfig.RETRY_BASE_DELAY_MS << doublings);
+    }
+}
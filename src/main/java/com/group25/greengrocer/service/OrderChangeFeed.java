@@ -0,0 +1,157 @@
+package com.group25.greengrocer.service;
+
+import com.group25.greengrocer.config.OrderFeedConfig;
+import com.group25.greengrocer.dao.OrderDao;
+import com.group25.greengrocer.model.Order;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Process-wide feed of order changes for the open order views.
+ *
+ * Instead of every view reloading its tables, one background poller reads
+ * the orders whose updated_at is at or after the newest change already
+ * delivered (the watermark, minus OrderFeedConfig.WATERMARK_OVERLAP_MS) every
+ * OrderFeedConfig.POLL_INTERVAL_MS, and hands the changed rows to every
+ * subscriber. The database moves updated_at on every insert and update, so
+ * new orders, status changes and carrier assignments all show up, whichever
+ * process made them. Invoice status writes keep updated_at as it is (see
+ * InvoiceDao), so rendering invoices does not push orders to the views. A
+ * poll costs one index range scan that returns nothing when nothing changed,
+ * however many views are open.
+ *
+ * Subscribers receive the full current row of each changed order and decide
+ * themselves whether it belongs in, moves within or leaves their tables. They
+ * are called on the feed's thread, one batch at a time in change order, so
+ * they may look up related data but must hand UI updates to the FX thread
+ * (AsyncDao.FX). A view loads its initial contents itself and subscribes
+ * before doing so. Its load replaces the tables with rows that may predate
+ * changes already received, so the view keeps the changes received while
+ * the load is in flight and applies them again on top of the loaded rows;
+ * rows delivered twice are simply applied again.
+ *
+ * The feed only polls while there are subscribers. When the last one leaves,
+ * the watermark is dropped and taken from the newest change in the database
+ * once a view subscribes again.
+ */
+public class OrderChangeFeed {
+
+    private static final OrderChangeFeed INSTANCE = new OrderChangeFeed();
+
+    private final OrderDao orderDao = new OrderDao();
+
+    private final List<Consumer<List<Order>>> subscribers = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService poller;
+
+    /**
+     * Newest updated_at delivered so far; null while nobody is subscribed.
+     */
+    private LocalDateTime watermark;
+
+    /**
+     * updated_at of the orders delivered within the overlap window, to skip
+     * rows that are read again.
+     */
+    private final Map<Long, LocalDateTime> delivered = new HashMap<>();
+
+    private OrderChangeFeed() {
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-change-feed");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(this::poll, OrderFeedConfig.POLL_INTERVAL_MS,
+                OrderFeedConfig.POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the process-wide order change feed
+     */
+    public static OrderChangeFeed getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts delivering order changes to a view.
+     *
+     * @param subscriber receives each batch of changed orders, oldest change
+     *                   first, on the feed's thread
+     */
+    public void subscribe(Consumer<List<Order>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Stops delivering order changes to a view, typically on logout.
+     *
+     * @param subscriber the subscriber passed to subscribe
+     */
+    public void unsubscribe(Consumer<List<Order>> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Polls right away instead of waiting for the next interval, for example
+     * after this process changed an order and the view should follow at once.
+     */
+    public void pollNow() {
+        poller.execute(this::poll);
+    }
+
+    /**
+     * Reads the orders changed since the last poll and delivers them. Runs on
+     * the feed's thread only.
+     */
+    private void poll() {
+        if (subscribers.isEmpty()) {
+            watermark = null;
+            delivered.clear();
+            return;
+        }
+        try {
+            if (watermark == null) {
+                LocalDateTime latest = orderDao.getLatestUpdate();
+                watermark = latest != null ? latest : LocalDateTime.of(1970, 1, 1, 0, 0, 1);
+            }
+            LocalDateTime since = watermark.minusNanos(OrderFeedConfig.WATERMARK_OVERLAP_MS * 1_000_000);
+            List<Order> changes = new ArrayList<>();
+            for (Order order : orderDao.findOrdersChangedSince(since)) {
+                LocalDateTime updatedAt = order.getUpdatedAt();
+                if (updatedAt != null && updatedAt.isAfter(watermark)) {
+                    watermark = updatedAt;
+                }
+                if (!Objects.equals(delivered.put(order.getId(), updatedAt), updatedAt)) {
+                    changes.add(order);
+                }
+            }
+            delivered.values().removeIf(updatedAt -> updatedAt == null || updatedAt.isBefore(since));
+
+            if (!changes.isEmpty()) {
+                changes = Collections.unmodifiableList(changes);
+                for (Consumer<List<Order>> subscriber : subscribers) {
+                    try {
+                        subscriber.accept(changes);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            System.err.println("Order change feed poll failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.group25.greengrocer.service;
+
+import com.group25.greengrocer.dao.OrderDao;
+import com.group25.greengrocer.model.Order;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands orders to carriers and keeps contention metrics of the claims.
+ *
+ * claimNext gives a carrier the next unclaimed orders through OrderDao's
+ * FOR UPDATE SKIP LOCKED query, so carriers starting a shift together each
+ * get different orders on the first try. claim takes one order picked from
+ * the available list with OrderDao's conditional assignCarrier UPDATE, and
+ * only fails if another carrier actually got the order.
+ *
+ * The counters (claims, orders handed out, short claims that found fewer
+ * orders than asked for, lost races for a picked order, errors and the time
+ * spent per claim) are available through getStats() and shown in the owner's
+ * diagnostics view. Claimed orders reach the open order views through the
+ * OrderChangeFeed.
+ */
+public class OrderClaimService {
+
+    private static final OrderClaimService INSTANCE = new OrderClaimService();
+
+    private final OrderDao orderDao = new OrderDao();
+
+    private final LongAdder claims = new LongAdder();
+    private final LongAdder claimedOrders = new LongAdder();
+    private final LongAdder shortClaims = new LongAdder();
+    private final LongAdder lostClaims = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private OrderClaimService() {
+    }
+
+    /**
+     * @return the process-wide claim service
+     */
+    public static OrderClaimService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Assigns the next unclaimed orders, earliest requested delivery first,
+     * to a carrier.
+     *
+     * @param carrierId the carrier
+     * @param count     the number of orders wanted
+     * @return the claimed orders; fewer than count, possibly none, if not
+     *         enough orders are available
+     * @throws SQLException if a database error occurs
+     */
+    public List<Order> claimNext(long carrierId, int count) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            List<Order> orders = orderDao.claimNextOrders(carrierId, count);
+            claimedOrders.add(orders.size());
+            if (orders.size() < count) {
+                shortClaims.increment();
+            }
+            return orders;
+        } catch (SQLException e) {
+            errors.increment();
+            throw e;
+        } finally {
+            record(start);
+        }
+    }
+
+    /**
+     * Assigns one particular order to a carrier.
+     *
+     * @param orderId   the order picked by the carrier
+     * @param carrierId the carrier
+     * @return true if the carrier got the order, false if another carrier got
+     *         it first or it is no longer available
+     * @throws SQLException if a database error occurs
+     */
+    public boolean claim(long orderId, long carrierId) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!orderDao.assignCarrier(orderId, carrierId)) {
+                lostClaims.increment();
+                return false;
+            }
+            claimedOrders.increment();
+            return true;
+        } catch (SQLException e) {
+            errors.increment();
+            throw e;
+        } finally {
+            record(start);
+        }
+    }
+
+    /**
+     * @return a snapshot of the claim metrics
+     */
+    public ClaimStats getStats() {
+        return new ClaimStats(claims.sum(), claimedOrders.sum(), shortClaims.sum(), lostClaims.sum(),
+                errors.sum(), totalNanos.sum(), maxNanos.get());
+    }
+
+    private void record(long start) {
+        long elapsed = System.nanoTime() - start;
+        claims.increment();
+        totalNanos.add(elapsed);
+        maxNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    /**
+     * Immutable snapshot of the claim metrics.
+     */
+    public static class ClaimStats {
+        private final long claims;
+        private final long claimedOrders;
+        private final long shortClaims;
+        private final long lostClaims;
+        private final long errors;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        public ClaimStats(long claims, long claimedOrders, long shortClaims, long lostClaims, long errors,
+                long totalNanos, long maxNanos) {
+            this.claims = claims;
+            this.claimedOrders = claimedOrders;
+            this.shortClaims = shortClaims;
+            this.lostClaims = lostClaims;
+            this.errors = errors;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getClaims() {
+            return claims;
+        }
+
+        public long getClaimedOrders() {
+            return claimedOrders;
+        }
+
+        public long getShortClaims() {
+            return shortClaims;
+        }
+
+        public long getLostClaims() {
+            return lostClaims;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getAverageMillis() {
+            return claims == 0 ? 0.0 : totalNanos / (double) claims / 1_000_000.0;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("claims=%d, orders=%d, short=%d, lost=%d, errors=%d, avg=%.2fms, max=%.2fms",
+                    claims, claimedOrders, shortClaims, lostClaims, errors, getAverageMillis(), getMaxMillis());
+        }
+    }
+}
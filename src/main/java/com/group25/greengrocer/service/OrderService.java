@@ -1,5 +1,6 @@
 package com.group25.greengrocer.service;
 
+import com.group25.greengrocer.dao.InvoiceDao;
 import com.group25.greengrocer.dao.OrderDao;
 import com.group25.greengrocer.dao.OrderItemDao;
 import com.group25.greengrocer.dao.ProductDao;
@@ -10,12 +11,14 @@ import com.group25.greengrocer.util.DbAdapter;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Service class for managing order operations.
  * 
  * This class provides high-level order management functionality, including
- * placing orders with transaction management, stock validation, and invoice generation.
+ * placing orders with transaction management, stock validation, and queuing of invoices.
  * 
  * All order operations are performed within database transactions to ensure
  * data consistency and atomicity. If any step fails, the entire transaction is rolled back.
@@ -28,6 +31,8 @@ public class OrderService {
     
     private final ProductDao productDao = new ProductDao();
 
+    private final InvoiceDao invoiceDao = new InvoiceDao();
+
     /**
      * Places an order in a single atomic transaction.
      * 
@@ -35,82 +40,64 @@ public class OrderService {
      *   Validates and deducts stock for all items in the order
      *   Creates the Order record in the database
      *   Creates OrderItem records for each item in the order
-     *   Generates and saves the invoice PDF
+     *   Queues the invoice for InvoiceService
      *   Commits the transaction
      * 
      * If any step fails (e.g., insufficient stock), the entire transaction is rolled back
-     * and a SQLException is thrown. The invoice generation failure does not cause a rollback,
-     * but is logged as an error.
+     * and a SQLException is thrown. The invoice PDF is rendered in the background after
+     * the commit, so it does not add to the checkout time.
      * 
      * @param order The Order object containing order metadata and customer information
      * @param items The list of OrderItem objects representing the products in the order
      * @throws SQLException if the transaction fails (e.g., insufficient stock, database error)
      */
     public void placeOrder(Order order, List<OrderItem> items) throws SQLException {
-        Connection conn = null;
-        try {
-            conn = DbAdapter.getConnection();
+        // The connection is leased exclusively for this call, so changing
+        // auto-commit cannot affect other callers. Closing it returns it to
+        // the pool with any unfinished transaction rolled back.
+        try (Connection conn = DbAdapter.getConnection()) {
             conn.setAutoCommit(false); // Start Transaction
 
-            // Check stock and update first (lock rows logic here)
-            for (OrderItem item : items) {
-                // Pass connection to ensure we are in the same transaction
-                boolean stockUpdated = productDao.reduceStock(item.getProductId(), item.getQuantity(), conn);
-                if (!stockUpdated) {
-                    throw new SQLException("Insufficient stock for product ID: " + item.getProductId());
+            long orderId;
+            try {
+                // Check stock and update first, all lines in one batch. Lines
+                // of the same product are combined so that each row is
+                // checked against the full quantity, and rows are locked in
+                // id order so that concurrent checkouts cannot deadlock.
+                Map<Long, Double> quantities = new TreeMap<>();
+                for (OrderItem item : items) {
+                    quantities.merge(item.getProductId(), item.getQuantity(), Double::sum);
+                }
+                List<Long> insufficient = productDao.reduceStock(quantities, conn);
+                if (!insufficient.isEmpty()) {
+                    throw new SQLException("Insufficient stock for product ID: " + insufficient.get(0));
                 }
-            }
 
-            // Create Order
-            long orderId = orderDao.create(order, conn);
-            order.setId(orderId);
+                // Create Order
+                orderId = orderDao.create(order, conn);
+                order.setId(orderId);
 
-            // Create Items
-            for (OrderItem item : items) {
-                item.setOrderId(orderId);
-                orderItemDao.create(item, conn);
-            }
+                // Create Items
+                for (OrderItem item : items) {
+                    item.setOrderId(orderId);
+                }
+                orderItemDao.createAll(items, conn);
 
-            conn.commit(); // Commit all changes
-            System.out.println("Order placed successfully. ID: " + orderId);
+                invoiceDao.enqueue(orderId, conn);
 
-            // Generate and Save Invoice PDF
-            try {
-                byte[] invoicePdf = com.group25.greengrocer.util.PdfInvoiceUtil.generateInvoice(order, items);
-                // CRITICAL: Pass the existing 'conn' so we stay in the same transaction
-                // and don't close the connection prematurely.
-                orderDao.saveInvoice(orderId, invoicePdf, conn);
-                conn.commit(); // Commit invoice insertion
-                System.out.println("Invoice generated and saved for Order ID: " + orderId);
-            } catch (Exception e) {
-                System.err.println("Failed to generate/save invoice: " + e.getMessage());
-                e.printStackTrace();
-                // We don't rollback the order if invoice fails, just log it.
-                // In a real app, we might retry or queue it.
-            }
-
-        } catch (SQLException e) {
-            if (conn != null) {
+                conn.commit(); // Commit all changes
+                System.out.println("Order placed successfully. ID: " + orderId);
+            } catch (SQLException e) {
                 try {
                     System.err.println("Transaction failed, rolling back. Error: " + e.getMessage());
                     conn.rollback();
                 } catch (SQLException ex) {
                     ex.printStackTrace();
                 }
+                throw e; // Re-throw to controller
             }
-            throw e; // Re-throw to controller
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true); // Reset for future use
-                    // We do not close the connection here because DbAdapter manages a
-                    // singleton-like connection
-                    // that might be reused. In a connection pool scenario, we would close it
-                    // (return to pool).
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
+
+            InvoiceService.getInstance().submit(orderId);
         }
     }
 }
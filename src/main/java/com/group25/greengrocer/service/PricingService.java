@@ -0,0 +1,24 @@
+package com.group25.greengrocer.service;
+
+import com.group25.greengrocer.model.Product;
+
+/**
+ * Service class for product pricing rules.
+ *
+ * A product whose stock falls below its threshold is sold at double price, so
+ * scarce items are not bought out by a single customer.
+ */
+public class PricingService {
+
+    /**
+     * Calculates the price a customer currently pays for a product.
+     *
+     * @param product      the product
+     * @param currentStock the stock to compare against the threshold, usually
+     *                     the locally tracked stock after cart reservations
+     * @return the unit price, doubled if the stock is below the threshold
+     */
+    public double getDynamicPrice(Product product, double currentStock) {
+        return (currentStock < product.getThreshold()) ? product.getPrice() * 2 : product.getPrice();
+    }
+}
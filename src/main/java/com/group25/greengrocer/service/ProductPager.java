@@ -0,0 +1,158 @@
+package com.group25.greengrocer.service;
+
+import com.group25.greengrocer.dao.AsyncDao;
+import com.group25.greengrocer.dao.ProductDao;
+import com.group25.greengrocer.model.Product;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pages through the products of one category (or all products) straight from
+ * the database, sorted by name, one page of rows per query.
+ *
+ * Pages are read with ProductDao's keyset queries: the next page starts after
+ * the last product of the current one, the previous page ends before its
+ * first product. A page with no loaded neighbour (a jump with the page
+ * buttons) is read by offset through the index instead. Once a page is shown,
+ * its neighbours are prefetched in the background, so paging forwards or
+ * backwards is usually served from memory.
+ *
+ * The product count is read once, with the first page. A pager reflects the
+ * catalog as it was read; after adding, changing or deleting products, create
+ * a new one.
+ */
+public class ProductPager {
+
+    /**
+     * Loaded pages kept at most; the pages farthest from the requested one
+     * are dropped first.
+     */
+    private static final int MAX_CACHED_PAGES = 16;
+
+    private final ProductDao productDao;
+    private final String category;
+    private final int pageSize;
+
+    private final Map<Integer, CompletableFuture<List<Product>>> pages = new ConcurrentHashMap<>();
+
+    private volatile CompletableFuture<Integer> productCount;
+
+    /**
+     * @param productDao the DAO to read pages with
+     * @param category   the category to page through, or null for all products
+     * @param pageSize   the number of products per page
+     */
+    public ProductPager(ProductDao productDao, String category, int pageSize) {
+        this.productDao = productDao;
+        this.category = category;
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    /**
+     * @return the number of products per page
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Returns the number of pages, counting the products in the background on
+     * the first call.
+     *
+     * @return a future completed with the page count, at least 1
+     */
+    public CompletableFuture<Integer> getPageCount() {
+        CompletableFuture<Integer> count = productCount;
+        if (count == null) {
+            synchronized (this) {
+                if (productCount == null) {
+                    productCount = AsyncDao.supply(() -> productDao.countProducts(category));
+                }
+                count = productCount;
+            }
+        }
+        return count.thenApply(products -> Math.max(1, (products + pageSize - 1) / pageSize));
+    }
+
+    /**
+     * Returns a page, loading it in the background unless it is cached, and
+     * prefetches its neighbours once it is loaded.
+     *
+     * @param pageIndex the page, starting at 0
+     * @return a future completed with the products of the page
+     */
+    public CompletableFuture<List<Product>> getPage(int pageIndex) {
+        CompletableFuture<List<Product>> page = load(pageIndex);
+        page.thenRun(() -> {
+            evictFarFrom(pageIndex);
+            getPageCount().thenAccept(pageCount -> {
+                if (pageIndex + 1 < pageCount) {
+                    load(pageIndex + 1);
+                }
+                if (pageIndex > 0) {
+                    load(pageIndex - 1);
+                }
+            });
+        });
+        return page;
+    }
+
+    /**
+     * Returns a cached page without loading anything.
+     *
+     * @param pageIndex the page, starting at 0
+     * @return the products of the page, or null if it is not loaded yet
+     */
+    public List<Product> getPageIfLoaded(int pageIndex) {
+        CompletableFuture<List<Product>> page = pages.get(pageIndex);
+        return page != null && page.isDone() && !page.isCompletedExceptionally() ? page.join() : null;
+    }
+
+    private CompletableFuture<List<Product>> load(int pageIndex) {
+        CompletableFuture<List<Product>> page = pages.computeIfAbsent(pageIndex,
+                index -> AsyncDao.supply(() -> read(index)));
+        page.whenComplete((products, error) -> {
+            if (error != null) {
+                pages.remove(pageIndex, page); // Retry on the next request
+            }
+        });
+        return page;
+    }
+
+    /**
+     * Reads a page, using a loaded neighbour as keyset cursor if there is one.
+     * Runs on a background thread.
+     */
+    private List<Product> read(int pageIndex) {
+        if (pageIndex == 0) {
+            return productDao.getProductPage(category, null, pageSize);
+        }
+        List<Product> previous = getPageIfLoaded(pageIndex - 1);
+        if (previous != null && !previous.isEmpty()) {
+            return productDao.getProductPage(category, previous.get(previous.size() - 1), pageSize);
+        }
+        List<Product> next = getPageIfLoaded(pageIndex + 1);
+        if (next != null && !next.isEmpty()) {
+            return productDao.getProductPageBefore(category, next.get(0), pageSize);
+        }
+        return productDao.getProductPageAt(category, pageIndex * pageSize, pageSize);
+    }
+
+    private void evictFarFrom(int pageIndex) {
+        while (pages.size() > MAX_CACHED_PAGES) {
+            int farthest = pageIndex;
+            for (int index : pages.keySet()) {
+                if (Math.abs(index - pageIndex) > Math.abs(farthest - pageIndex)) {
+                    farthest = index;
+                }
+            }
+            if (farthest == pageIndex) {
+                return;
+            }
+            pages.remove(farthest);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package com.group25.greengrocer.service;
+
+import com.group25.greengrocer.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable in-memory search index over product names and categories.
+ *
+ * Names are split into lowercase words, and every distinct word points to the
+ * products containing it (a posting list). The words are kept in a sorted
+ * array, so all words starting with a typed prefix are one binary search
+ * away. A query word matches a product if a word of its name equals it,
+ * starts with it, or, when no word does, differs from it (or from its first
+ * letters) by one typo, two for long words. Typo candidates are found
+ * through the letter pairs (bigrams) they share with the query word, so only
+ * a few words are compared letter by letter. Every query word must match,
+ * either in the name or in the category.
+ *
+ * Results are ranked by how well the words matched: exact words before
+ * prefixes before typos, name before category, with a bonus for the first
+ * word of the name. Equally ranked products keep the order they were indexed
+ * in, which is by name. Because the scores are small integers the ranking is
+ * a counting sort, and a query costs a few passes over flat arrays instead of
+ * comparisons, well under a millisecond for 100,000 products.
+ *
+ * The index stores product ids only, so stock and price changes do not
+ * require a rebuild; CatalogService rebuilds it when names, categories or the
+ * set of products change.
+ */
+public final class ProductSearchIndex {
+
+    private static final int NAME_EXACT = 8;
+    private static final int NAME_PREFIX = 6;
+    private static final int NAME_TYPO = 3;
+    private static final int CATEGORY_MATCH = 2;
+    private static final int CATEGORY_TYPO = 1;
+    private static final int FIRST_WORD_BONUS = 2;
+
+    /**
+     * Highest score one query word can add.
+     */
+    private static final int MAX_WORD_SCORE = NAME_EXACT + FIRST_WORD_BONUS;
+
+    /**
+     * Query words shorter than this are never matched with a typo.
+     */
+    private static final int TYPO_MIN_LENGTH = 4;
+
+    /**
+     * Query words at least this long may contain two typos.
+     */
+    private static final int TWO_TYPOS_MIN_LENGTH = 8;
+
+    /**
+     * Product ids by document number. Documents are numbered in the order the
+     * products were passed to build, i.e. by name.
+     */
+    private final int[] productIds;
+
+    /**
+     * Category number of each document.
+     */
+    private final int[] documentCategories;
+
+    /**
+     * Category names by category number.
+     */
+    private final String[] categories;
+
+    /**
+     * The words of each category name, by category number.
+     */
+    private final String[][] categoryWords;
+
+    /**
+     * Distinct name words, sorted.
+     */
+    private final String[] words;
+
+    /**
+     * Postings of each word in words: document number shifted left by one,
+     * with the lowest bit set if the word is the first word of the name.
+     * Sorted by document number.
+     */
+    private final int[][] postings;
+
+    /**
+     * Indexes into words of the words containing each bigram, for typo
+     * candidates.
+     */
+    private final Map<Integer, int[]> bigramWords;
+
+    private ProductSearchIndex(int[] productIds, int[] documentCategories, String[] categories,
+            String[][] categoryWords, String[] words, int[][] postings, Map<Integer, int[]> bigramWords) {
+        this.productIds = productIds;
+        this.documentCategories = documentCategories;
+        this.categories = categories;
+        this.categoryWords = categoryWords;
+        this.words = words;
+        this.postings = postings;
+        this.bigramWords = bigramWords;
+    }
+
+    /**
+     * Builds an index over the given products.
+     *
+     * @param products the products, in the order equally ranked results
+     *                 should be returned in
+     * @return the index
+     */
+    public static ProductSearchIndex build(List<Product> products) {
+        int[] productIds = new int[products.size()];
+        int[] documentCategories = new int[products.size()];
+        Map<String, Integer> categoryNumbers = new HashMap<>();
+        List<String> categories = new ArrayList<>();
+        Map<String, IntList> wordPostings = new HashMap<>();
+
+        for (int doc = 0; doc < products.size(); doc++) {
+            Product product = products.get(doc);
+            productIds[doc] = product.getId();
+
+            String category = product.getCategory() != null ? product.getCategory() : "";
+            Integer number = categoryNumbers.get(category);
+            if (number == null) {
+                number = categories.size();
+                categoryNumbers.put(category, number);
+                categories.add(category);
+            }
+            documentCategories[doc] = number;
+
+            String[] nameWords = tokenize(product.getName());
+            for (int i = 0; i < nameWords.length; i++) {
+                IntList list = wordPostings.computeIfAbsent(nameWords[i], w -> new IntList());
+                int posting = doc << 1 | (i == 0 ? 1 : 0);
+                // A word repeated within one name is posted once
+                if (list.size == 0 || list.last() >>> 1 != doc) {
+                    list.add(posting);
+                }
+            }
+        }
+
+        String[] words = wordPostings.keySet().toArray(new String[0]);
+        Arrays.sort(words);
+        int[][] postings = new int[words.length][];
+        Map<Integer, IntList> bigrams = new HashMap<>();
+        for (int i = 0; i < words.length; i++) {
+            postings[i] = wordPostings.get(words[i]).toArray();
+            for (int bigram : bigrams(words[i])) {
+                bigrams.computeIfAbsent(bigram, b -> new IntList()).add(i);
+            }
+        }
+        Map<Integer, int[]> bigramWords = new HashMap<>(bigrams.size() * 2);
+        for (Map.Entry<Integer, IntList> entry : bigrams.entrySet()) {
+            bigramWords.put(entry.getKey(), entry.getValue().toArray());
+        }
+        String[][] categoryWords = new String[categories.size()][];
+        for (int i = 0; i < categoryWords.length; i++) {
+            categoryWords[i] = tokenize(categories.get(i));
+        }
+        return new ProductSearchIndex(productIds, documentCategories, categories.toArray(new String[0]),
+                categoryWords, words, postings, bigramWords);
+    }
+
+    /**
+     * @return the number of indexed products
+     */
+    public int size() {
+        return productIds.length;
+    }
+
+    /**
+     * Finds the products matching every word of the query.
+     *
+     * @param query    the search text; matching ignores case and punctuation
+     * @param category the category to search in, or null for all categories
+     * @param limit    the maximum number of results
+     * @return the ids of the matching products, best match first; all
+     *         products of the category in indexed order if the query has no
+     *         words
+     */
+    public int[] search(String query, String category, int limit) {
+        String[] queryWords = tokenize(query);
+        int documents = productIds.length;
+        int categoryFilter = categoryNumber(category);
+        if (category != null && categoryFilter < 0) {
+            return new int[0];
+        }
+
+        // matched[doc] counts the query words matched so far; a document is
+        // only considered for word i if it matched all words before it.
+        byte[] matched = new byte[documents];
+        short[] scores = new short[documents];
+        int queryLength = Math.min(queryWords.length, Byte.MAX_VALUE);
+
+        for (int w = 0; w < queryLength; w++) {
+            String word = queryWords[w];
+            byte before = (byte) w;
+            byte after = (byte) (w + 1);
+
+            int[] categoryScores = new int[categories.length];
+            int bestCategory = 0;
+            for (int c = 0; c < categories.length; c++) {
+                categoryScores[c] = matchCategory(word, categoryWords[c]);
+                bestCategory = Math.max(bestCategory, categoryScores[c]);
+            }
+
+            int from = lowerBound(word);
+            int to = lowerBound(word + Character.MAX_VALUE);
+            for (int i = from; i < to; i++) {
+                int score = words[i].length() == word.length() ? NAME_EXACT : NAME_PREFIX;
+                score(postings[i], score, before, after, matched, scores);
+            }
+            // Typos are only considered if the word matched nothing as typed
+            if (from == to && bestCategory < CATEGORY_MATCH && word.length() >= TYPO_MIN_LENGTH) {
+                for (int i : typoCandidates(word)) {
+                    score(postings[i], NAME_TYPO, before, after, matched, scores);
+                }
+            }
+
+            // Words that match the category match every product in it
+            if (bestCategory > 0) {
+                for (int doc = 0; doc < documents; doc++) {
+                    int score = categoryScores[documentCategories[doc]];
+                    if (score > 0 && matched[doc] == before) {
+                        matched[doc] = after;
+                        scores[doc] = (short) (scores[doc] + score);
+                    }
+                }
+            }
+        }
+
+        // Counting sort by score, descending; stable, so ties stay in name order
+        int maxScore = queryLength * MAX_WORD_SCORE;
+        int[] counts = new int[maxScore + 2];
+        int results = 0;
+        for (int doc = 0; doc < documents; doc++) {
+            if (matched[doc] == queryLength
+                    && (categoryFilter < 0 || documentCategories[doc] == categoryFilter)) {
+                counts[maxScore - scores[doc] + 1]++;
+                results++;
+            }
+        }
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        int[] ranked = new int[results];
+        for (int doc = 0; doc < documents; doc++) {
+            if (matched[doc] == queryLength
+                    && (categoryFilter < 0 || documentCategories[doc] == categoryFilter)) {
+                ranked[counts[maxScore - scores[doc]]++] = productIds[doc];
+            }
+        }
+        return ranked.length > limit ? Arrays.copyOf(ranked, limit) : ranked;
+    }
+
+    /**
+     * Returns the words within the allowed number of typos of the query
+     * word. A typo changes at most three of the word's bigrams, so only words
+     * sharing the remaining ones are compared letter by letter.
+     */
+    private int[] typoCandidates(String word) {
+        int maxTypos = word.length() >= TWO_TYPOS_MIN_LENGTH ? 2 : 1;
+        int[] queryBigrams = bigrams(word);
+        int required = Math.max(1, queryBigrams.length - 3 * maxTypos);
+
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (int bigram : queryBigrams) {
+            int[] containing = bigramWords.get(bigram);
+            if (containing != null) {
+                for (int i : containing) {
+                    shared.merge(i, 1, Integer::sum);
+                }
+            }
+        }
+        IntList candidates = new IntList();
+        for (Map.Entry<Integer, Integer> entry : shared.entrySet()) {
+            if (entry.getValue() >= required && isTypo(word, words[entry.getKey()], maxTypos)) {
+                candidates.add(entry.getKey());
+            }
+        }
+        return candidates.toArray();
+    }
+
+    /**
+     * @return the distinct bigrams of a word, each packed into an int
+     */
+    private static int[] bigrams(String word) {
+        IntList bigrams = new IntList();
+        for (int i = 0; i + 1 < word.length(); i++) {
+            int bigram = word.charAt(i) << 16 | word.charAt(i + 1);
+            boolean seen = false;
+            for (int j = 0; j < bigrams.size && !seen; j++) {
+                seen = bigrams.values[j] == bigram;
+            }
+            if (!seen) {
+                bigrams.add(bigram);
+            }
+        }
+        return bigrams.toArray();
+    }
+
+    private static void score(int[] postings, int score, byte before, byte after, byte[] matched, short[] scores) {
+        for (int posting : postings) {
+            int doc = posting >>> 1;
+            if (matched[doc] == before) {
+                matched[doc] = after;
+                scores[doc] = (short) (scores[doc] + ((posting & 1) != 0 ? score + FIRST_WORD_BONUS : score));
+            }
+        }
+    }
+
+    private static int matchCategory(String word, String[] categoryWords) {
+        int best = 0;
+        for (String categoryWord : categoryWords) {
+            if (categoryWord.startsWith(word)) {
+                return CATEGORY_MATCH;
+            }
+            if (word.length() >= TYPO_MIN_LENGTH && isTypo(word, categoryWord, 1)) {
+                best = CATEGORY_TYPO;
+            }
+        }
+        return best;
+    }
+
+    private int categoryNumber(String category) {
+        if (category == null) {
+            return -1;
+        }
+        for (int i = 0; i < categories.length; i++) {
+            if (categories[i].equalsIgnoreCase(category)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the first word not less than the given one
+     */
+    private int lowerBound(String word) {
+        int low = 0;
+        int high = words.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (words[mid].compareTo(word) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Whether the query word is the indexed word, or its beginning, with at
+     * most maxTypos typos. A typo is an inserted, deleted, replaced or
+     * swapped letter.
+     */
+    static boolean isTypo(String query, String word, int maxTypos) {
+        if (word.length() < query.length() - maxTypos) {
+            return false;
+        }
+        if (distance(query, word, word.length(), maxTypos) <= maxTypos) {
+            return true;
+        }
+        // The user may still be typing: compare with the word's beginning
+        for (int length = Math.max(1, query.length() - maxTypos);
+                length <= Math.min(word.length() - 1, query.length() + maxTypos); length++) {
+            if (distance(query, word, length, maxTypos) <= maxTypos) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Edit distance with adjacent transpositions (optimal string alignment)
+     * between a and the first bLength characters of b, giving up as soon as
+     * it exceeds max.
+     *
+     * @return the distance, or max + 1 if it is larger than max
+     */
+    static int distance(String a, String b, int bLength, int max) {
+        if (Math.abs(a.length() - bLength) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[bLength + 1];
+        int[] previous = new int[bLength + 1];
+        int[] current = new int[bLength + 1];
+        for (int j = 0; j <= bLength; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= bLength; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, previous2[j - 2] + 1);
+                }
+                current[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[bLength], max + 1);
+    }
+
+    /**
+     * Splits text into lowercase words of letters and digits.
+     *
+     * @param text the text, may be null
+     * @return the words, in order
+     */
+    static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        List<String> tokens = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    /**
+     * Growable int array, used while building.
+     */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int last() {
+            return values[size - 1];
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
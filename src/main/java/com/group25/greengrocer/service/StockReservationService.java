@@ -0,0 +1,114 @@
+package com.group25.greengrocer.service;
+
+import com.group25.greengrocer.config.ReservationConfig;
+import com.group25.greengrocer.dao.StockReservationDao;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Soft reservations of stock for shopping carts, shared by all workstations.
+ *
+ * Every cart line holds its quantity of the product until the order is placed,
+ * the line is removed, or the hold expires (ReservationConfig.HOLD_TTL_MS
+ * after the line last changed or the cart was last checked out). A product's
+ * available quantity is its stock_qty minus the quantities held by all other
+ * carts, so two customers on different workstations cannot fill their carts
+ * past the real stock. Placing the order still verifies the stock in the
+ * database.
+ *
+ * Holds are stored in the stock_reservations table through
+ * StockReservationDao, which locks the product row while it checks a new
+ * hold, so concurrent carts never hold more than the stock. Expiry uses the
+ * database clock.
+ *
+ * Expired holds no longer count as soon as they expire; a background sweep
+ * deletes their rows every ReservationConfig.SWEEP_INTERVAL_MS.
+ *
+ * Every call is a database round trip; controllers run reserve and
+ * getAvailable through AsyncDao. Their database errors are passed on, so a
+ * failed check is never mistaken for missing stock.
+ */
+public class StockReservationService {
+
+    private static final StockReservationService INSTANCE = new StockReservationService();
+
+    private final StockReservationDao reservationDao = new StockReservationDao();
+
+    private StockReservationService() {
+        ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-reservation-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::releaseExpired, ReservationConfig.SWEEP_INTERVAL_MS,
+                ReservationConfig.SWEEP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the process-wide reservation service
+     */
+    public static StockReservationService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets the quantity a cart holds of a product, renewing the hold. Lowering
+     * the quantity always succeeds; raising it succeeds only if the extra
+     * quantity is available. Calling it again with an unchanged quantity
+     * renews a hold, and re-takes it if it has expired.
+     *
+     * @param cartId    identifies the cart
+     * @param productId the product
+     * @param quantity  the new quantity in the cart; 0 releases the hold
+     * @return true if the cart now holds the quantity, false if not enough
+     *         stock is available, in which case the previous hold is kept
+     * @throws SQLException if the hold cannot be checked
+     */
+    public boolean reserve(String cartId, int productId, double quantity) throws SQLException {
+        return reservationDao.reserve(cartId, productId, quantity, ReservationConfig.HOLD_TTL_MS / 1000);
+    }
+
+    /**
+     * Returns how much of a product a cart could hold in total: the stock
+     * not held by other carts.
+     *
+     * @param cartId    identifies the cart
+     * @param productId the product
+     * @return the available quantity, never negative
+     * @throws SQLException if the stock cannot be read
+     */
+    public double getAvailable(String cartId, int productId) throws SQLException {
+        return reservationDao.getAvailable(cartId, productId);
+    }
+
+    /**
+     * Releases every hold of a cart, after its order was placed or when the
+     * cart is discarded.
+     *
+     * @param cartId identifies the cart
+     */
+    public void releaseAll(String cartId) {
+        try {
+            reservationDao.releaseAll(cartId);
+        } catch (SQLException e) {
+            e.printStackTrace(); // The holds expire on their own
+        }
+    }
+
+    /**
+     * Deletes the holds that have expired, of all carts.
+     *
+     * @return the number of holds released
+     */
+    public int releaseExpired() {
+        try {
+            return reservationDao.deleteExpired();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,739 @@
+package com.group25.greengrocer.util;
+
+import com.group25.greengrocer.config.DbConfig;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded JDBC connection pool used by DbAdapter.
+ *
+ * Physical connections are opened lazily up to the configured maximum size and
+ * handed out wrapped in a proxy whose close() method returns the connection to
+ * the pool instead of closing the socket. This keeps the existing
+ * try-with-resources pattern in the DAOs intact while removing the TCP connect
+ * and authentication handshake from every query.
+ *
+ * Pool behaviour:
+ *   Connections are validated with isValid() when they are borrowed
+ *   Connections older than the maximum lifetime are retired
+ *   Idle connections above the minimum size are evicted by a housekeeping task
+ *   Callers wait up to the connection timeout when the pool is exhausted
+ *
+ * Leases:
+ * Every borrow produces a new handle that is owned exclusively by the caller
+ * until it is closed. The handle records when and by whom (thread and stack
+ * trace) it was borrowed; a handle held longer than the leak detection
+ * threshold is reported once on stderr with the borrower's stack trace, so
+ * code that forgets to close a connection or keeps a transaction open can be
+ * found. A handle that has been closed rejects further use.
+ *
+ * Statements:
+ * Each physical connection keeps a StatementCache, so prepareStatement() with
+ * SQL text the connection has seen before returns the already prepared
+ * statement. Against MySQL the driver is asked for server-side prepared
+ * statements, which makes the cached statement skip parsing on the server as
+ * well. Hit and miss counters per SQL text are available through
+ * getStatementStats().
+ *
+ * All tuning values come from DbConfig. Live metrics are available through
+ * getStats(), outstanding leases through getActiveLeases().
+ */
+public class ConnectionPool {
+
+    private final String url;
+
+    private final String user;
+
+    private final String password;
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    /**
+     * Guards idle, totalConnections, activeConnections, waitingThreads and shutdown.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled whenever a connection is returned or a slot becomes free.
+     */
+    private final Condition available = lock.newCondition();
+
+    /**
+     * Idle connections, most recently used first.
+     */
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+
+    private int totalConnections;
+
+    private int activeConnections;
+
+    private int waitingThreads;
+
+    private boolean shutdown;
+
+    private final LongAdder borrowCount = new LongAdder();
+
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private final LongAdder timeoutCount = new LongAdder();
+
+    private final LongAdder createdCount = new LongAdder();
+
+    private final LongAdder closedCount = new LongAdder();
+
+    private final LongAdder leakCount = new LongAdder();
+
+    /**
+     * Handles that are currently borrowed.
+     */
+    private final Set<ConnectionHandle> leases = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Statement cache counters per SQL text, shared by all connections.
+     */
+    private final Map<String, StatementCache.StatementStats> statementStats = new ConcurrentHashMap<>();
+
+    /**
+     * Execution timings of the statements run on this pool's connections, or
+     * null when DbConfig.QUERY_METRICS_ENABLED is off.
+     */
+    private final QueryMetrics queryMetrics = DbConfig.QUERY_METRICS_ENABLED ? new QueryMetrics() : null;
+
+    private final ScheduledExecutorService housekeeper;
+
+    /**
+     * Creates a pool for the given database and starts the housekeeping task.
+     * No connection is opened on the calling thread; the housekeeper fills the
+     * pool up to its minimum size in the background.
+     *
+     * @param url      the JDBC URL
+     * @param user     the database user
+     * @param password the database password
+     */
+    public ConnectionPool(String url, String user, String password) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = Math.max(0, DbConfig.POOL_MIN_SIZE);
+        this.maxSize = Math.max(Math.max(1, this.minSize), DbConfig.POOL_MAX_SIZE);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep, 0,
+                DbConfig.POOL_HOUSEKEEPING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        long leakThreshold = DbConfig.POOL_LEAK_DETECTION_THRESHOLD_MS;
+        if (leakThreshold > 0) {
+            long interval = Math.max(1_000L, leakThreshold / 2);
+            this.housekeeper.scheduleWithFixedDelay(this::detectLeaks, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if the pool is below
+     * its maximum size. The returned connection must be closed by the caller,
+     * which hands it back to the pool.
+     *
+     * @return a validated connection
+     * @throws SQLException if no connection becomes available within the
+     *                      configured timeout or a new connection cannot be opened
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(DbConfig.POOL_CONNECTION_TIMEOUT_MS);
+
+        PooledConnection pooled = null;
+        while (pooled == null) {
+            boolean mustCreate = false;
+
+            lock.lock();
+            try {
+                while (!shutdown && idle.isEmpty() && totalConnections >= maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeoutCount.increment();
+                        throw new SQLTimeoutException("Timed out after " + DbConfig.POOL_CONNECTION_TIMEOUT_MS
+                                + " ms waiting for a database connection (" + describe() + ")");
+                    }
+                    waitingThreads++;
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    } finally {
+                        waitingThreads--;
+                    }
+                }
+                if (shutdown) {
+                    throw new SQLException("Connection pool has been shut down");
+                }
+
+                if (!idle.isEmpty()) {
+                    pooled = idle.pollFirst();
+                } else {
+                    totalConnections++;
+                    mustCreate = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (mustCreate) {
+                try {
+                    pooled = openConnection();
+                } catch (SQLException e) {
+                    freeSlot();
+                    System.err.println("Connection failed!");
+                    throw e;
+                }
+            } else if (!isUsable(pooled)) {
+                discard(pooled);
+                pooled = null;
+            }
+        }
+
+        lock.lock();
+        try {
+            activeConnections++;
+        } finally {
+            lock.unlock();
+        }
+
+        long waited = System.nanoTime() - start;
+        borrowCount.increment();
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        ConnectionHandle handle = new ConnectionHandle(pooled);
+        leases.add(handle);
+        return handle.newProxy();
+    }
+
+    /**
+     * Returns a snapshot of the pool's live metrics.
+     *
+     * @return the current pool statistics
+     */
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            return new PoolStats(totalConnections, activeConnections, idle.size(), waitingThreads,
+                    borrowCount.sum(), totalWaitNanos.sum(), maxWaitNanos.get(), timeoutCount.sum(),
+                    createdCount.sum(), closedCount.sum(), leakCount.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lists the connections that are currently borrowed, longest held first.
+     *
+     * @return information about each outstanding lease
+     */
+    public List<LeaseInfo> getActiveLeases() {
+        long now = System.currentTimeMillis();
+        List<LeaseInfo> result = new ArrayList<>();
+        for (ConnectionHandle handle : leases) {
+            result.add(new LeaseInfo(handle.ownerThread, now - handle.borrowedAt, handle.borrowTrace));
+        }
+        result.sort((a, b) -> Long.compare(b.getHeldMillis(), a.getHeldMillis()));
+        return result;
+    }
+
+    /**
+     * Closes all idle connections and stops the housekeeping task. Connections
+     * that are still borrowed are closed when they are returned.
+     */
+    public void shutdown() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            shutdown = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        toClose.forEach(this::discard);
+    }
+
+    /**
+     * Returns the prepared statement cache counters, most frequently prepared
+     * SQL first.
+     *
+     * @return a snapshot of the per-statement hit and miss counters
+     */
+    public List<StatementCache.StatementStats> getStatementStats() {
+        List<StatementCache.StatementStats> result = new ArrayList<>(statementStats.values());
+        result.sort((a, b) -> Long.compare(b.getHits() + b.getMisses(), a.getHits() + a.getMisses()));
+        return result;
+    }
+
+    /**
+     * Returns the execution timings collected for this pool's statements.
+     *
+     * @return the query metrics, or null if query metrics are disabled
+     */
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    /**
+     * Reports every lease held longer than the leak detection threshold. Each
+     * lease is reported at most once.
+     */
+    private void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (ConnectionHandle handle : leases) {
+            long held = now - handle.borrowedAt;
+            if (held > DbConfig.POOL_LEAK_DETECTION_THRESHOLD_MS && !handle.leakReported) {
+                handle.leakReported = true;
+                leakCount.increment();
+                System.err.println("Possible connection leak: connection borrowed by thread '"
+                        + handle.ownerThread + "' has been held for " + held + " ms");
+                if (handle.borrowTrace != null) {
+                    handle.borrowTrace.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Called by a connection handle when the caller closes it.
+     */
+    private void release(PooledConnection pooled) {
+        boolean reusable = resetState(pooled) && !pooled.isExpired(System.currentTimeMillis());
+
+        lock.lock();
+        try {
+            activeConnections--;
+            if (reusable && !shutdown) {
+                pooled.lastUsedAt = System.currentTimeMillis();
+                idle.addFirst(pooled);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        discard(pooled);
+    }
+
+    /**
+     * Restores the session state a borrower may have changed so the next
+     * borrower starts from a clean connection. Uncommitted work is rolled back.
+     *
+     * @return true if the connection can be reused
+     */
+    private boolean resetState(PooledConnection pooled) {
+        try {
+            Connection physical = pooled.physical;
+            if (physical.isClosed()) {
+                return false;
+            }
+            pooled.statements.reclaim();
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Discarding pooled connection after failed reset: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (pooled.isExpired(System.currentTimeMillis())) {
+            return false;
+        }
+        try {
+            return pooled.physical.isValid(DbConfig.POOL_VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection openConnection() throws SQLException {
+        Properties props = new Properties();
+        props.setProperty("user", user);
+        props.setProperty("password", password);
+        if (url.startsWith("jdbc:mysql:") && DbConfig.USE_SERVER_PREPARED_STATEMENTS) {
+            props.setProperty("useServerPrepStmts", "true");
+        }
+        if (url.startsWith("jdbc:mysql:") && DbConfig.REWRITE_BATCHED_STATEMENTS) {
+            props.setProperty("rewriteBatchedStatements", "true");
+        }
+        Connection physical = DriverManager.getConnection(url, props);
+        createdCount.increment();
+        return new PooledConnection(physical);
+    }
+
+    /**
+     * Closes the physical connection and frees its slot in the pool.
+     */
+    private void discard(PooledConnection pooled) {
+        pooled.statements.close();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            // Connection is being thrown away anyway
+        }
+        closedCount.increment();
+        freeSlot();
+    }
+
+    private void freeSlot() {
+        lock.lock();
+        try {
+            totalConnections--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts idle connections that exceeded the idle timeout or the maximum
+     * lifetime, then opens connections until the minimum size is reached.
+     */
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+            List<PooledConnection> evicted = new ArrayList<>();
+
+            lock.lock();
+            try {
+                if (shutdown) {
+                    return;
+                }
+                // Walk from the least recently used end of the deque
+                Iterator<PooledConnection> it = idle.descendingIterator();
+                while (it.hasNext()) {
+                    PooledConnection pooled = it.next();
+                    boolean idleTooLong = now - pooled.lastUsedAt > DbConfig.POOL_IDLE_TIMEOUT_MS
+                            && totalConnections - evicted.size() > minSize;
+                    if (idleTooLong || pooled.isExpired(now)) {
+                        it.remove();
+                        evicted.add(pooled);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            evicted.forEach(this::discard);
+
+            fillToMinimum();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void fillToMinimum() {
+        while (true) {
+            lock.lock();
+            try {
+                if (shutdown || totalConnections >= minSize) {
+                    return;
+                }
+                totalConnections++;
+            } finally {
+                lock.unlock();
+            }
+
+            PooledConnection pooled;
+            try {
+                pooled = openConnection();
+            } catch (SQLException e) {
+                freeSlot();
+                System.err.println("Connection pool could not reach minimum size: " + e.getMessage());
+                return;
+            }
+
+            lock.lock();
+            try {
+                if (!shutdown) {
+                    idle.addLast(pooled);
+                    available.signal();
+                    continue;
+                }
+            } finally {
+                lock.unlock();
+            }
+            discard(pooled);
+            return;
+        }
+    }
+
+    /**
+     * Must be called while holding the lock.
+     */
+    private String describe() {
+        return "total=" + totalConnections + ", active=" + activeConnections + ", idle=" + idle.size()
+                + ", waiting=" + waitingThreads;
+    }
+
+    /**
+     * A physical connection owned by the pool together with its bookkeeping.
+     */
+    private final class PooledConnection {
+
+        private final Connection physical;
+
+        private final StatementCache statements = new StatementCache(DbConfig.STATEMENT_CACHE_SIZE,
+                statementStats, queryMetrics);
+
+        private final long createdAt;
+
+        private long lastUsedAt;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.createdAt = System.currentTimeMillis();
+            this.lastUsedAt = createdAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - createdAt > DbConfig.POOL_MAX_LIFETIME_MS;
+        }
+    }
+
+    /**
+     * A single lease of a pooled connection and the invocation handler behind
+     * the proxy handed to the borrower. close() returns the connection to the
+     * pool; every other call is forwarded to the physical connection.
+     *
+     * A new handle is used for every borrow so that a stale reference kept
+     * after close() cannot touch the connection once someone else has
+     * borrowed it.
+     */
+    private final class ConnectionHandle implements InvocationHandler {
+
+        private final PooledConnection pooled;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private final long borrowedAt = System.currentTimeMillis();
+
+        private final String ownerThread = Thread.currentThread().getName();
+
+        /**
+         * Stack trace of the borrower, only captured when leak detection is on.
+         */
+        private final Throwable borrowTrace = DbConfig.POOL_LEAK_DETECTION_THRESHOLD_MS > 0
+                ? new Throwable("Connection borrowed here")
+                : null;
+
+        private volatile boolean leakReported;
+
+        private Connection proxy;
+
+        ConnectionHandle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        Connection newProxy() {
+            proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, this);
+            return proxy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (closed.compareAndSet(false, true)) {
+                        leases.remove(this);
+                        if (leakReported) {
+                            System.err.println("Previously reported leaked connection returned by thread '"
+                                    + Thread.currentThread().getName() + "' after "
+                                    + (System.currentTimeMillis() - borrowedAt) + " ms");
+                        }
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed.get() || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + (closed.get() ? ", returned" : "") + "]";
+                default:
+                    break;
+            }
+
+            if (closed.get()) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if ("prepareStatement".equals(method.getName()) && isCacheable(args)) {
+                int keys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                return pooled.statements.prepare(pooled.physical, (Connection) proxy, (String) args[0], keys);
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Only prepareStatement(String) and prepareStatement(String, int
+     * autoGeneratedKeys) go through the statement cache; the other overloads
+     * are rare and are passed straight to the driver.
+     */
+    private static boolean isCacheable(Object[] args) {
+        return args.length == 1 || (args.length == 2 && args[1] instanceof Integer);
+    }
+
+    /**
+     * Immutable snapshot of the pool metrics.
+     */
+    public static class PoolStats {
+        private final int total;
+        private final int active;
+        private final int idle;
+        private final int waiting;
+        private final long borrowCount;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final long timeouts;
+        private final long created;
+        private final long closed;
+        private final long leaks;
+
+        public PoolStats(int total, int active, int idle, int waiting, long borrowCount, long totalWaitNanos,
+                long maxWaitNanos, long timeouts, long created, long closed, long leaks) {
+            this.total = total;
+            this.active = active;
+            this.idle = idle;
+            this.waiting = waiting;
+            this.borrowCount = borrowCount;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.timeouts = timeouts;
+            this.created = created;
+            this.closed = closed;
+            this.leaks = leaks;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getWaiting() {
+            return waiting;
+        }
+
+        public long getBorrowCount() {
+            return borrowCount;
+        }
+
+        public double getAverageWaitMillis() {
+            return borrowCount == 0 ? 0.0 : totalWaitNanos / (double) borrowCount / 1_000_000.0;
+        }
+
+        public double getMaxWaitMillis() {
+            return maxWaitNanos / 1_000_000.0;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        public long getCreated() {
+            return created;
+        }
+
+        public long getClosed() {
+            return closed;
+        }
+
+        public long getLeaks() {
+            return leaks;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("total=%d, active=%d, idle=%d, waiting=%d, borrows=%d, avgWait=%.2fms, "
+                    + "maxWait=%.2fms, timeouts=%d, created=%d, closed=%d, leaks=%d",
+                    total, active, idle, waiting, borrowCount, getAverageWaitMillis(), getMaxWaitMillis(),
+                    timeouts, created, closed, leaks);
+        }
+    }
+
+    /**
+     * Describes a connection that is currently borrowed from the pool.
+     */
+    public static class LeaseInfo {
+        private final String ownerThread;
+        private final long heldMillis;
+        private final Throwable borrowTrace;
+
+        public LeaseInfo(String ownerThread, long heldMillis, Throwable borrowTrace) {
+            this.ownerThread = ownerThread;
+            this.heldMillis = heldMillis;
+            this.borrowTrace = borrowTrace;
+        }
+
+        public String getOwnerThread() {
+            return ownerThread;
+        }
+
+        public long getHeldMillis() {
+            return heldMillis;
+        }
+
+        /**
+         * @return the borrower's stack trace, or null if leak detection is disabled
+         */
+        public Throwable getBorrowTrace() {
+            return borrowTrace;
+        }
+    }
+}
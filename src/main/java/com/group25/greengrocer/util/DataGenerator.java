@@ -0,0 +1,717 @@
+package com.group25.greengrocer.util;
+
+import com.group25.greengrocer.config.DbConfig;
+import com.group25.greengrocer.model.OrderStatus;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deterministic synthetic data generator for sizing and benchmarking.
+ *
+ * Bulk-loads customers, carriers, products, coupons, orders, order items,
+ * carrier ratings and messages into the configured database (MySQL or the
+ * embedded profile). The defaults produce a production-scale dataset of 100k
+ * customers, 1M orders and about 10M order items.
+ *
+ * Output is reproducible: every generated row, including its id, is derived
+ * from the seed and the row's own index, never from the order in which
+ * threads happen to run. Ids are assigned explicitly rather than by
+ * AUTO_INCREMENT; an order's items take the ids of a fixed block per order.
+ * An order's items and rating are recomputed from the order id by the
+ * workers that insert them, so orders, items and ratings can be loaded in
+ * parallel and still agree with each other (order subtotals equal the sum of
+ * their items). Generated ids start after the current maximum id of each
+ * table, so the generator can be run against a database that already holds
+ * data.
+ *
+ * Rows are written with multi-row INSERT statements (ROWS_PER_STATEMENT rows
+ * per statement) in transactions of a few thousand rows. Each table is split
+ * into chunks that run in parallel on their own pooled connection; chunks of
+ * dependent tables wait only for the chunks they reference. On MySQL,
+ * foreign key and unique checks are disabled for the loading sessions.
+ *
+ * Usage (all arguments optional):
+ *
+ *   java ... com.group25.greengrocer.util.DataGenerator seed=42 scale=0.01
+ *       customers=100000 carriers=200 products=500 coupons=1000
+ *       orders=1000000 itemsPerOrder=10 messages=200000 threads=8
+ *
+ * scale multiplies every count, which is handy for a quick smaller dataset.
+ * Timestamps are generated relative to a fixed reference time (2025-01-01)
+ * so reruns are identical; pass now=&lt;epoch millis&gt; to move the history.
+ */
+public class DataGenerator {
+
+    /**
+     * Rows per multi-row INSERT statement.
+     */
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    /**
+     * Statements per transaction.
+     */
+    private static final int STATEMENTS_PER_COMMIT = 10;
+
+    /**
+     * Rows of a table handled by one parallel chunk.
+     */
+    private static final int CHUNK_SIZE = 20_000;
+
+    /**
+     * Orders per chunk; each order also produces its items and rating.
+     */
+    private static final int ORDER_CHUNK_SIZE = 10_000;
+
+    /**
+     * Password of every generated account ("pass"), stored the same way the
+     * login screen hashes passwords.
+     */
+    private static final String PASSWORD = "pass";
+
+    /**
+     * Orders are spread over this many days before now.
+     */
+    private static final int HISTORY_DAYS = 730;
+
+    // Independent random streams, so e.g. adding products does not change orders
+    private static final long STREAM_CUSTOMER = 1;
+    private static final long STREAM_CARRIER = 2;
+    private static final long STREAM_PRODUCT = 3;
+    private static final long STREAM_COUPON = 4;
+    private static final long STREAM_ORDER = 5;
+    private static final long STREAM_MESSAGE = 6;
+
+    private static final String[] FIRST_NAMES = { "Ahmet", "Ayse", "Mehmet", "Fatma", "Mustafa", "Zeynep", "Ali",
+            "Elif", "Hasan", "Emine", "Huseyin", "Hatice", "Ibrahim", "Merve", "Emre", "Selin", "Can", "Deniz",
+            "John", "Maria", "David", "Anna", "James", "Sofia" };
+
+    private static final String[] LAST_NAMES = { "Yilmaz", "Kaya", "Demir", "Sahin", "Celik", "Yildiz", "Yildirim",
+            "Ozturk", "Aydin", "Ozdemir", "Arslan", "Dogan", "Kilic", "Aslan", "Cetin", "Kara", "Smith", "Garcia" };
+
+    private static final String[] CITIES = { "Istanbul", "Ankara", "Izmir", "Bursa", "Antalya", "Eskisehir" };
+
+    private static final String[] STREETS = { "Ataturk Cd.", "Cumhuriyet Cd.", "Istiklal Cd.", "Bagdat Cd.",
+            "Inonu Sk.", "Gazi Blv.", "Market St.", "Garden Ln." };
+
+    private static final String[] VEGETABLES = { "Tomato", "Cucumber", "Potato", "Onion", "Carrot", "Pepper",
+            "Eggplant", "Zucchini", "Lettuce", "Spinach", "Broccoli", "Cabbage", "Garlic", "Leek", "Pumpkin" };
+
+    private static final String[] FRUITS = { "Apple", "Banana", "Orange", "Pear", "Grape", "Strawberry", "Cherry",
+            "Peach", "Apricot", "Plum", "Watermelon", "Melon", "Lemon", "Kiwi", "Pomegranate", "Fig" };
+
+    private static final String[] VARIETIES = { "", "Organic ", "Local ", "Cherry ", "Premium ", "Village ",
+            "Imported ", "Baby " };
+
+    private static final String[] RATING_COMMENTS = { "Fast delivery", "Very polite", "Arrived on time",
+            "Products were fresh", "A bit late", "Great service", null, null };
+
+    private static final String[] MESSAGE_SUBJECTS = { "Delivery question", "Missing item", "Product request",
+            "Thank you", "Invoice", "Opening hours" };
+
+    private final long seed;
+    private final int customers;
+    private final int carriers;
+    private final int products;
+    private final int coupons;
+    private final int orders;
+    private final int itemsPerOrder;
+    private final int messages;
+    private final int threads;
+
+    private final String passwordHash;
+    private final boolean mysql = DbConfig.URL.startsWith("jdbc:mysql:");
+
+    // Id ranges, resolved from the current table contents before loading
+    private long userBase;
+    private long productBase;
+    private long couponBase;
+    private long orderBase;
+    private long carrierBase;
+    private long orderItemBase;
+    private long ratingBase;
+    private long messageBase;
+    private long ownerId;
+    private long[] categoryIds;
+    private String[] categoryNames;
+    private final long nowMillis;
+
+    /**
+     * Rows written per table. The keys are fixed at construction, so the map
+     * is only read concurrently.
+     */
+    private final Map<String, LongAdder> rowCounts = new LinkedHashMap<>();
+
+    /**
+     * @param settings the generator settings as parsed from the command line
+     */
+    public DataGenerator(Map<String, String> settings) {
+        double scale = Double.parseDouble(settings.getOrDefault("scale", "1"));
+        this.seed = Long.parseLong(settings.getOrDefault("seed", "42"));
+        this.customers = scaled(settings, "customers", 100_000, scale);
+        this.carriers = scaled(settings, "carriers", 200, scale);
+        this.products = scaled(settings, "products", 500, scale);
+        this.coupons = scaled(settings, "coupons", 1_000, scale);
+        this.orders = scaled(settings, "orders", 1_000_000, scale);
+        this.messages = scaled(settings, "messages", 200_000, scale);
+        this.itemsPerOrder = Math.max(1, Integer.parseInt(settings.getOrDefault("itemsPerOrder", "10")));
+        this.threads = Math.max(1, Integer.parseInt(settings.getOrDefault("threads",
+                String.valueOf(Math.min(DbConfig.POOL_MAX_SIZE, Runtime.getRuntime().availableProcessors())))));
+        this.passwordHash = com.group25.greengrocer.service.AuthService.hashPassword(PASSWORD);
+        for (String table : new String[] { "users", "products", "coupons", "orders", "order_items",
+                "carrier_ratings", "messages" }) {
+            rowCounts.put(table, new LongAdder());
+        }
+        // A fixed reference time, so reruns produce identical timestamps
+        this.nowMillis = Long.parseLong(settings.getOrDefault("now",
+                String.valueOf(Timestamp.valueOf("2025-01-01 00:00:00").getTime())));
+    }
+
+    /**
+     * Generates and loads the complete dataset.
+     *
+     * @throws SQLException if the existing id ranges cannot be read or a chunk
+     *                      fails to load
+     */
+    public void generate() throws SQLException {
+        long start = System.nanoTime();
+        resolveIdRanges();
+        System.out.printf("Generating seed=%d: %d customers, %d carriers, %d products, %d coupons, %d orders "
+                + "(~%d items), %d messages on %d threads%n", seed, customers, carriers, products, coupons, orders,
+                (long) orders * itemsPerOrder, messages, threads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "data-generator");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<CompletableFuture<Void>> users = new ArrayList<>();
+            for (long from = 0; from < customers; from += CHUNK_SIZE) {
+                long chunkFrom = from;
+                long chunkTo = Math.min(customers, from + CHUNK_SIZE);
+                users.add(submit(executor, "users", conn -> insertCustomers(conn, chunkFrom, chunkTo)));
+            }
+            users.add(submit(executor, "users", this::insertCarriers));
+            CompletableFuture<Void> productsDone = submit(executor, "products", this::insertProducts);
+            CompletableFuture<Void> couponsDone = submit(executor, "coupons", this::insertCoupons);
+            CompletableFuture<Void> usersDone = CompletableFuture.allOf(users.toArray(new CompletableFuture<?>[0]));
+
+            List<CompletableFuture<Void>> all = new ArrayList<>(users);
+            all.add(productsDone);
+            all.add(couponsDone);
+
+            CompletableFuture<Void> orderPrerequisites = CompletableFuture.allOf(usersDone, couponsDone);
+            for (long from = 0; from < orders; from += ORDER_CHUNK_SIZE) {
+                long chunkFrom = from;
+                long chunkTo = Math.min(orders, from + ORDER_CHUNK_SIZE);
+                CompletableFuture<Void> ordersChunk = orderPrerequisites.thenCompose(
+                        v -> submit(executor, "orders", conn -> insertOrders(conn, chunkFrom, chunkTo)));
+                all.add(ordersChunk);
+                all.add(CompletableFuture.allOf(ordersChunk, productsDone).thenCompose(
+                        v -> submit(executor, "order_items", conn -> insertOrderItems(conn, chunkFrom, chunkTo))));
+                all.add(ordersChunk.thenCompose(
+                        v -> submit(executor, "carrier_ratings", conn -> insertRatings(conn, chunkFrom, chunkTo))));
+            }
+
+            for (long from = 0; from < messages; from += CHUNK_SIZE) {
+                long chunkFrom = from;
+                long chunkTo = Math.min(messages, from + CHUNK_SIZE);
+                all.add(usersDone.thenCompose(
+                        v -> submit(executor, "messages", conn -> insertMessages(conn, chunkFrom, chunkTo))));
+            }
+
+            CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        long total = 0;
+        for (Map.Entry<String, LongAdder> entry : rowCounts.entrySet()) {
+            total += entry.getValue().sum();
+            System.out.printf("  %-16s %,12d rows%n", entry.getKey(), entry.getValue().sum());
+        }
+        System.out.printf("Loaded %,d rows in %.1f s (%,.0f rows/s)%n", total, seconds, total / seconds);
+    }
+
+    // ---------------------------------------------------------------------
+    // Chunk loaders
+    // ---------------------------------------------------------------------
+
+    private void insertCustomers(Connection conn, long from, long to) throws SQLException {
+        try (BulkInsert insert = new BulkInsert(conn, "users", "id", "username", "password_hash", "role", "status",
+                "full_name", "phone", "address_line", "city", "individual_loyalty_rate", "created_at")) {
+            for (long i = from; i < to; i++) {
+                long id = userBase + 1 + i;
+                SplittableRandom rng = random(STREAM_CUSTOMER, i);
+                String first = pick(rng, FIRST_NAMES);
+                String last = pick(rng, LAST_NAMES);
+                Double loyaltyRate = rng.nextInt(10) == 0 ? (rng.nextInt(3) + 1) * 0.05 : null;
+                insert.add(id, "gen_cust_" + id, passwordHash, "customer", "APPROVED", first + " " + last,
+                        phone(rng), address(rng), pick(rng, CITIES), loyaltyRate,
+                        new Timestamp(nowMillis - daysMillis(HISTORY_DAYS + rng.nextInt(365))));
+            }
+        }
+    }
+
+    private void insertCarriers(Connection conn) throws SQLException {
+        try (BulkInsert insert = new BulkInsert(conn, "users", "id", "username", "password_hash", "role", "status",
+                "full_name", "phone", "created_at")) {
+            for (long i = 0; i < carriers; i++) {
+                long id = carrierBase + 1 + i;
+                SplittableRandom rng = random(STREAM_CARRIER, i);
+                insert.add(id, "gen_carr_" + id, passwordHash, "carrier", rng.nextInt(20) == 0 ? "PENDING" : "APPROVED",
+                        pick(rng, FIRST_NAMES) + " " + pick(rng, LAST_NAMES), phone(rng),
+                        new Timestamp(nowMillis - daysMillis(HISTORY_DAYS + rng.nextInt(365))));
+            }
+        }
+    }
+
+    private void insertProducts(Connection conn) throws SQLException {
+        try (BulkInsert insert = new BulkInsert(conn, "products", "id", "name", "price", "stock_qty", "threshold_qty",
+                "unit", "category_id", "is_deleted")) {
+            for (long i = 0; i < products; i++) {
+                ProductRow p = product(i);
+                insert.add(productBase + 1 + i, p.name, p.price, p.stock, p.threshold, p.unit, p.categoryId,
+                        p.deleted ? 1 : 0);
+            }
+        }
+    }
+
+    private void insertCoupons(Connection conn) throws SQLException {
+        try (BulkInsert insert = new BulkInsert(conn, "coupons", "id", "code", "discount_type", "discount_value",
+                "min_order_total", "valid_from", "valid_until", "is_active", "created_at")) {
+            for (long i = 0; i < coupons; i++) {
+                long id = couponBase + 1 + i;
+                SplittableRandom rng = random(STREAM_COUPON, i);
+                boolean percent = rng.nextBoolean();
+                long validFrom = nowMillis - daysMillis(rng.nextInt(HISTORY_DAYS));
+                insert.add(id, "GEN" + id, percent ? "PERCENT" : "AMOUNT",
+                        percent ? 5 + rng.nextInt(5) * 5 : 5 + rng.nextInt(20), rng.nextInt(4) * 25,
+                        new Timestamp(validFrom), new Timestamp(validFrom + daysMillis(7 + rng.nextInt(60))),
+                        rng.nextInt(5) == 0 ? 0 : 1, new Timestamp(validFrom - daysMillis(1)));
+            }
+        }
+    }
+
+    private void insertOrders(Connection conn, long from, long to) throws SQLException {
+        try (BulkInsert insert = new BulkInsert(conn, "orders", "id", "customer_id", "carrier_id", "status",
+                "subtotal", "vat_rate", "vat_total", "discount_total", "total", "loyalty_discount_rate",
+                "applied_coupon_id", "order_time", "requested_delivery_time", "delivered_time", "cancelled_time",
+                "note")) {
+            for (long i = from; i < to; i++) {
+                OrderRow o = order(i);
+                insert.add(o.id, o.customerId, o.carrierId, o.status.name(), o.subtotal, 0.18, o.vatTotal,
+                        o.discountTotal, o.total, o.loyaltyRate, o.couponId, new Timestamp(o.orderTime),
+                        new Timestamp(o.requestedTime), o.deliveredTime > 0 ? new Timestamp(o.deliveredTime) : null,
+                        o.cancelledTime > 0 ? new Timestamp(o.cancelledTime) : null, o.note);
+            }
+        }
+    }
+
+    private void insertOrderItems(Connection conn, long from, long to) throws SQLException {
+        // Each order owns a block of ids as large as its maximum line count
+        long maxLines = 2L * itemsPerOrder - 1;
+        try (BulkInsert insert = new BulkInsert(conn, "order_items", "id", "order_id", "product_id", "unit",
+                "quantity", "unit_price_snapshot", "line_total")) {
+            for (long i = from; i < to; i++) {
+                OrderRow o = order(i);
+                for (int k = 0; k < o.productIds.length; k++) {
+                    insert.add(orderItemBase + 1 + i * maxLines + k, o.id, o.productIds[k], o.units[k], o.quantities[k], o.unitPrices[k],
+                            round2(o.quantities[k] * o.unitPrices[k]));
+                }
+            }
+        }
+    }
+
+    private void insertRatings(Connection conn, long from, long to) throws SQLException {
+        try (BulkInsert insert = new BulkInsert(conn, "carrier_ratings", "id", "order_id", "customer_id",
+                "carrier_id", "rating", "comment", "created_at")) {
+            for (long i = from; i < to; i++) {
+                OrderRow o = order(i);
+                if (o.rating > 0) {
+                    insert.add(ratingBase + 1 + i, o.id, o.customerId, o.carrierId, o.rating, o.ratingComment,
+                            new Timestamp(o.deliveredTime + daysMillis(1) / 2));
+                }
+            }
+        }
+    }
+
+    private void insertMessages(Connection conn, long from, long to) throws SQLException {
+        try (BulkInsert insert = new BulkInsert(conn, "messages", "id", "sender_id", "receiver_id", "subject",
+                "body", "is_read", "created_at")) {
+            for (long i = from; i < to; i++) {
+                SplittableRandom rng = random(STREAM_MESSAGE, i);
+                long customerId = customerId(rng);
+                boolean reply = rng.nextInt(3) == 0;
+                String subject = pick(rng, MESSAGE_SUBJECTS);
+                insert.add(messageBase + 1 + i, reply ? ownerId : customerId, reply ? customerId : ownerId,
+                        reply ? "Re: " + subject : subject,
+                        reply ? "Thank you for your message, we will take care of it." : "Hello, " + subject.toLowerCase()
+                                + " regarding my recent order.",
+                        rng.nextInt(4) == 0 ? 0 : 1, new Timestamp(nowMillis - rng.nextLong(daysMillis(HISTORY_DAYS))));
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Deterministic row models
+    // ---------------------------------------------------------------------
+
+    /**
+     * A generated product, recomputed from its index wherever it is needed.
+     */
+    private static final class ProductRow {
+        String name;
+        double price;
+        double stock;
+        double threshold;
+        String unit;
+        long categoryId;
+        boolean deleted;
+    }
+
+    private ProductRow product(long index) {
+        SplittableRandom rng = random(STREAM_PRODUCT, index);
+        int category = (int) (index % categoryIds.length);
+        boolean fruit = categoryNames[category].toLowerCase().startsWith("fruit");
+        ProductRow p = new ProductRow();
+        p.categoryId = categoryIds[category];
+        p.name = pick(rng, VARIETIES) + pick(rng, fruit ? FRUITS : VEGETABLES);
+        p.price = round2(0.5 + rng.nextDouble() * 9.5);
+        p.stock = rng.nextInt(500);
+        p.threshold = 5 + rng.nextInt(20);
+        p.unit = rng.nextInt(4) == 0 ? "PCS" : "KG";
+        p.deleted = rng.nextInt(50) == 0;
+        return p;
+    }
+
+    /**
+     * A generated order with its items and rating, recomputed from the order
+     * index by each worker that needs it.
+     */
+    private static final class OrderRow {
+        long id;
+        long customerId;
+        Long carrierId;
+        OrderStatus status;
+        double subtotal;
+        double discountTotal;
+        double vatTotal;
+        double total;
+        double loyaltyRate;
+        Long couponId;
+        long orderTime;
+        long requestedTime;
+        long deliveredTime;
+        long cancelledTime;
+        String note;
+        long[] productIds;
+        String[] units;
+        double[] quantities;
+        double[] unitPrices;
+        int rating;
+        String ratingComment;
+    }
+
+    private OrderRow order(long index) {
+        SplittableRandom rng = random(STREAM_ORDER, index);
+        OrderRow o = new OrderRow();
+        o.id = orderBase + 1 + index;
+        o.customerId = customerId(rng);
+        o.orderTime = nowMillis - rng.nextLong(daysMillis(HISTORY_DAYS));
+        o.requestedTime = o.orderTime + daysMillis(1) / 24 * (2 + rng.nextInt(46));
+
+        int roll = rng.nextInt(100);
+        o.status = roll < 75 ? OrderStatus.DELIVERED
+                : roll < 82 ? OrderStatus.CANCELLED
+                        : roll < 90 ? OrderStatus.ASSIGNED : OrderStatus.PLACED;
+        if (o.status == OrderStatus.DELIVERED || o.status == OrderStatus.ASSIGNED) {
+            o.carrierId = carrierBase + 1 + rng.nextInt(carriers);
+        }
+        if (o.status == OrderStatus.DELIVERED) {
+            o.deliveredTime = o.requestedTime + rng.nextLong(daysMillis(1) / 12) - daysMillis(1) / 24;
+        } else if (o.status == OrderStatus.CANCELLED) {
+            o.cancelledTime = o.orderTime + rng.nextLong(daysMillis(1) / 24);
+        }
+
+        // Between 1 and 2 * itemsPerOrder - 1 lines, averaging itemsPerOrder
+        int lines = 1 + rng.nextInt(2 * itemsPerOrder - 1);
+        o.productIds = new long[lines];
+        o.units = new String[lines];
+        o.quantities = new double[lines];
+        o.unitPrices = new double[lines];
+        double subtotal = 0;
+        for (int k = 0; k < lines; k++) {
+            long productIndex = rng.nextInt(products);
+            ProductRow p = product(productIndex);
+            o.productIds[k] = productBase + 1 + productIndex;
+            o.units[k] = p.unit;
+            o.quantities[k] = "PCS".equals(p.unit) ? 1 + rng.nextInt(5) : round2(0.25 + rng.nextDouble() * 3);
+            o.unitPrices[k] = p.price;
+            subtotal += round2(o.quantities[k] * p.price);
+        }
+        o.subtotal = round2(subtotal);
+
+        o.loyaltyRate = rng.nextInt(10) == 0 ? 0.05 : 0.0;
+        double discount = o.subtotal * o.loyaltyRate;
+        if (coupons > 0 && rng.nextInt(20) == 0) {
+            o.couponId = couponBase + 1 + rng.nextInt(coupons);
+            discount += Math.min(5.0, o.subtotal - discount);
+        }
+        o.discountTotal = round2(discount);
+        double discounted = Math.max(0, o.subtotal - o.discountTotal);
+        o.vatTotal = round2(discounted * 0.18);
+        o.total = round2(discounted + o.vatTotal);
+        o.note = rng.nextInt(8) == 0 ? "Please ring the bell" : null;
+
+        if (o.status == OrderStatus.DELIVERED && rng.nextInt(10) < 3) {
+            o.rating = rng.nextInt(10) == 0 ? 1 + rng.nextInt(2) : 3 + rng.nextInt(3);
+            o.ratingComment = pick(rng, RATING_COMMENTS);
+        }
+        return o;
+    }
+
+    /**
+     * Picks a customer with a skewed distribution, so a minority of customers
+     * place most orders as in real shops.
+     */
+    private long customerId(SplittableRandom rng) {
+        double u = rng.nextDouble();
+        return userBase + 1 + Math.min(customers - 1, (long) (customers * u * u));
+    }
+
+    // ---------------------------------------------------------------------
+    // Setup and helpers
+    // ---------------------------------------------------------------------
+
+    private void resolveIdRanges() throws SQLException {
+        try (Connection conn = DbAdapter.getConnection()) {
+            userBase = maxId(conn, "users");
+            carrierBase = userBase + customers;
+            productBase = maxId(conn, "products");
+            couponBase = maxId(conn, "coupons");
+            orderBase = maxId(conn, "orders");
+            orderItemBase = maxId(conn, "order_items");
+            ratingBase = maxId(conn, "carrier_ratings");
+            messageBase = maxId(conn, "messages");
+
+            List<Long> ids = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT id, name FROM categories ORDER BY id");
+                    ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong("id"));
+                    names.add(rs.getString("name"));
+                }
+            }
+            if (ids.isEmpty()) {
+                throw new SQLException("No categories found; run the schema migrations first.");
+            }
+            categoryIds = ids.stream().mapToLong(Long::longValue).toArray();
+            categoryNames = names.toArray(new String[0]);
+        }
+
+        Integer owner = new com.group25.greengrocer.dao.UserDao().getPrimaryOwnerId();
+        // Without an owner, messages go to the first generated carrier
+        ownerId = owner != null ? owner : carrierBase + 1;
+    }
+
+    private static long maxId(Connection conn, String table) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM " + table);
+                ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * A loader for one chunk, run on its own pooled connection.
+     */
+    @FunctionalInterface
+    private interface ChunkLoader {
+        void load(Connection conn) throws SQLException;
+    }
+
+    private CompletableFuture<Void> submit(ExecutorService executor, String table, ChunkLoader loader) {
+        return CompletableFuture.runAsync(() -> {
+            try (Connection conn = DbAdapter.getConnection()) {
+                conn.setAutoCommit(false);
+                if (mysql) {
+                    setMySqlChecks(conn, false);
+                }
+                try {
+                    loader.load(conn);
+                    conn.commit();
+                } finally {
+                    if (mysql) {
+                        setMySqlChecks(conn, true);
+                    }
+                }
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private static void setMySqlChecks(Connection conn, boolean enabled) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET foreign_key_checks = " + (enabled ? 1 : 0));
+            stmt.execute("SET unique_checks = " + (enabled ? 1 : 0));
+        }
+    }
+
+    /**
+     * Buffers rows and writes them with multi-row INSERT statements. The
+     * full-size statement is prepared once and reused; a final partial batch
+     * gets its own statement. Commits every STATEMENTS_PER_COMMIT statements.
+     */
+    private final class BulkInsert implements AutoCloseable {
+        private final Connection conn;
+        private final String table;
+        private final String[] columns;
+        private final Object[] buffer;
+        private int rows;
+        private int statementsSinceCommit;
+        private PreparedStatement fullStatement;
+
+        BulkInsert(Connection conn, String table, String... columns) {
+            this.conn = conn;
+            this.table = table;
+            this.columns = columns;
+            this.buffer = new Object[ROWS_PER_STATEMENT * columns.length];
+        }
+
+        void add(Object... values) throws SQLException {
+            System.arraycopy(values, 0, buffer, rows * columns.length, columns.length);
+            rows++;
+            if (rows == ROWS_PER_STATEMENT) {
+                if (fullStatement == null) {
+                    fullStatement = conn.prepareStatement(sql(ROWS_PER_STATEMENT));
+                }
+                write(fullStatement);
+            }
+        }
+
+        private void write(PreparedStatement stmt) throws SQLException {
+            int parameters = rows * columns.length;
+            for (int i = 0; i < parameters; i++) {
+                stmt.setObject(i + 1, buffer[i]);
+            }
+            stmt.executeUpdate();
+            rowCounts.get(table).add(rows);
+            rows = 0;
+            if (++statementsSinceCommit >= STATEMENTS_PER_COMMIT) {
+                conn.commit();
+                statementsSinceCommit = 0;
+            }
+        }
+
+        private String sql(int rowCount) {
+            StringBuilder sb = new StringBuilder("INSERT INTO ").append(table).append(" (")
+                    .append(String.join(", ", columns)).append(") VALUES ");
+            String row = "(" + "?, ".repeat(columns.length - 1) + "?)";
+            for (int i = 0; i < rowCount; i++) {
+                sb.append(i == 0 ? "" : ", ").append(row);
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (rows > 0) {
+                    try (PreparedStatement stmt = conn.prepareStatement(sql(rows))) {
+                        write(stmt);
+                    }
+                }
+            } finally {
+                if (fullStatement != null) {
+                    fullStatement.close();
+                }
+            }
+        }
+    }
+
+    private SplittableRandom random(long stream, long index) {
+        // SplittableRandom mixes its seed, so nearby (stream, index) pairs
+        // still give independent sequences
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + stream * 0xBF58476D1CE4E5B9L + index);
+    }
+
+    private static String pick(SplittableRandom rng, String[] values) {
+        return values[rng.nextInt(values.length)];
+    }
+
+    private static String phone(SplittableRandom rng) {
+        return "5" + (300_000_000 + rng.nextInt(699_999_999));
+    }
+
+    private static String address(SplittableRandom rng) {
+        return pick(rng, STREETS) + " No:" + (1 + rng.nextInt(200));
+    }
+
+    private static long daysMillis(long days) {
+        return days * 24L * 60 * 60 * 1000;
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private static int scaled(Map<String, String> settings, String key, int defaultValue, double scale) {
+        String value = settings.get(key);
+        int base = value != null ? Integer.parseInt(value) : defaultValue;
+        boolean required = key.equals("customers") || key.equals("carriers") || key.equals("products");
+        return (int) Math.max(required ? 1 : 0, Math.round(base * scale));
+    }
+
+    /**
+     * Parses key=value arguments and loads the dataset into the configured
+     * database.
+     *
+     * @param args generator settings, see the class description
+     */
+    public static void main(String[] args) {
+        Map<String, String> settings = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("Ignoring argument without '=': " + arg);
+                continue;
+            }
+            settings.put(arg.substring(0, eq).trim(), arg.substring(eq + 1).trim());
+        }
+        int status = 0;
+        try {
+            new DataGenerator(settings).generate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            status = 1;
+        } finally {
+            DbAdapter.closeConnection();
+        }
+        System.exit(status);
+    }
+}
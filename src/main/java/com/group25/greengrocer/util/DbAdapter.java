@@ -1,82 +1,154 @@
 package com.group25.greengrocer.util;
 
+import com.group25.greengrocer.config.DbConfig;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
  * Database adapter utility class for managing database connections.
- * 
- * This class provides a singleton connection pattern for MySQL database access.
- * It handles connection creation, reuse, and cleanup for the grocery database.
- * The connection is automatically reused if it is still open, or recreated if closed.
- * 
+ *
+ * This class is the single entry point the DAOs and services use to obtain
+ * a MySQL connection. Connections come from a bounded ConnectionPool, so
+ * closing a connection (for example at the end of a try-with-resources block)
+ * returns it to the pool instead of tearing down the TCP session.
+ *
+ * When the pool is created, pending schema migrations are applied (see
+ * SchemaMigrator), so a fresh database gets its tables and indexes on first
+ * use.
+ *
  * Configuration:
- * The database connection parameters (URL, username, password) are hardcoded.
- * For production use, these should be moved to a configuration file.
+ * With -Dgreengrocer.db.profile=embedded the pool connects to an in-process
+ * H2 database in MySQL mode instead of the MySQL server; see DbConfig.
+ * The connection parameters and pool limits are defined in DbConfig and can be
+ * overridden with JVM system properties.
  */
 public class DbAdapter {
+
     /**
-     * Database connection URL for MySQL database.
+     * Shared connection pool. Created on first use and recreated after
+     * closeConnection() has shut it down.
      */
-    private static final String URL = "jdbc:mysql://localhost:3306/grocery_db";
-    
+    private static ConnectionPool pool;
+
     /**
-     * Database username for authentication.
+     * Demo accounts and products loaded into an empty embedded database.
      */
-    private static final String USER = "myuser";
-    
+    private static final String EMBEDDED_DEMO_DATA = "/db/seed/embedded_demo_data.sql";
+
     /**
-     * Database password for authentication.
+     * Gets a database connection from the pool.
+     *
+     * The caller owns the returned connection exclusively until it is closed,
+     * so it is safe to call this from background threads and to change
+     * transaction settings such as auto-commit. Closing it hands it back to the
+     * pool, where it is reset (open transaction rolled back, auto-commit
+     * restored) for the next caller. Connections held longer than
+     * DbConfig.POOL_LEAK_DETECTION_THRESHOLD_MS are reported as leaks.
+     *
+     * @return a Connection object to the database
+     * @throws SQLException if a database access error occurs or no connection
+     *                      becomes available within the configured timeout
      */
-    private static final String PASSWORD = "1234";
+    public static Connection getConnection() throws SQLException {
+        return getPool().getConnection();
+    }
 
     /**
-     * Singleton database connection instance.
-     * Reused across method calls if still open.
+     * Returns a snapshot of the connection pool metrics (active, idle and
+     * waiting connections, wait times).
+     *
+     * @return the current pool statistics
      */
-    private static Connection connection;
+    public static ConnectionPool.PoolStats getPoolStats() {
+        return getPool().getStats();
+    }
 
     /**
-     * Gets a database connection. If the connection is null or closed,
-     * creates a new connection. Otherwise, returns the existing connection.
-     * 
-     * This method implements a lazy singleton pattern for database connections,
-     * ensuring efficient connection reuse while handling connection failures gracefully.
-     * 
-     * @return a Connection object to the database
-     * @throws SQLException if a database access error occurs or connection cannot be established
+     * Returns the prepared statement cache hit and miss counters per SQL text,
+     * most frequently prepared first.
+     *
+     * @return a snapshot of the statement cache counters
      */
-    public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                connection = DriverManager.getConnection(URL, USER, PASSWORD);
-            } catch (SQLException e) {
-                System.err.println("Connection failed!");
-                throw e;
-            }
-        }
-        return connection;
+    public static java.util.List<StatementCache.StatementStats> getStatementStats() {
+        return getPool().getStatementStats();
+    }
+
+    /**
+     * Returns the per-statement execution timings (latency percentiles, rows,
+     * bytes) and the slow-query log.
+     *
+     * @return the query metrics, or null if DbConfig.QUERY_METRICS_ENABLED is off
+     */
+    public static QueryMetrics getQueryMetrics() {
+        return getPool().getQueryMetrics();
+    }
+
+    /**
+     * Lists the connections that are currently borrowed, with the thread and
+     * stack trace of each borrower. Useful for tracking down leaked
+     * connections and long-running transactions.
+     *
+     * @return the outstanding leases, longest held first
+     */
+    public static java.util.List<ConnectionPool.LeaseInfo> getActiveLeases() {
+        return getPool().getActiveLeases();
     }
 
     /**
-     * Closes the database connection if it is currently open.
-     * 
-     * This method safely closes the connection and handles any SQLExceptions
-     * that may occur during the closing process. After calling this method,
-     * the connection instance is set to null internally (after closing),
-     * so subsequent calls to getConnection() will create a new connection.
-     * 
+     * Shuts down the connection pool and closes all idle connections.
+     *
      * Note: This method should be called when the application
      * is shutting down or when you want to explicitly release database resources.
+     * A subsequent call to getConnection() creates a new pool.
      */
-    public static void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
+    public static synchronized void closeConnection() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private static synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            pool = new ConnectionPool(DbConfig.URL, DbConfig.USER, DbConfig.PASSWORD);
+            prepareSchema(pool);
+        }
+        return pool;
+    }
+
+    private static boolean isEmpty(Connection conn, String table) throws SQLException {
+        try (java.sql.PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM " + table);
+                java.sql.ResultSet rs = stmt.executeQuery()) {
+            return rs.next() && rs.getLong(1) == 0;
+        }
+    }
+
+    /**
+     * Applies pending schema migrations, seeds an empty embedded database and,
+     * if enabled, checks the hot query plans. Failures are logged; the DAOs
+     * then report their own errors.
+     */
+    private static void prepareSchema(ConnectionPool newPool) {
+        // The embedded database starts empty, so it is always migrated
+        boolean migrate = DbConfig.MIGRATE_ON_STARTUP || DbConfig.EMBEDDED;
+        if (!migrate && !DbConfig.VERIFY_QUERY_PLANS) {
+            return;
+        }
+        try (Connection conn = newPool.getConnection()) {
+            if (migrate) {
+                new SchemaMigrator(conn).migrate();
+            }
+            if (DbConfig.EMBEDDED && DbConfig.EMBEDDED_DEMO_DATA && isEmpty(conn, "users")) {
+                new SchemaMigrator(conn).runScript(EMBEDDED_DEMO_DATA);
+                System.out.println("Embedded database seeded with demo data");
+            }
+            if (DbConfig.VERIFY_QUERY_PLANS) {
+                QueryPlanCheck.run(conn);
             }
+        } catch (SQLException e) {
+            System.err.println("Schema migration failed: " + e.getMessage());
+            e.printStackTrace();
         }
     }
 }
@@ -0,0 +1,348 @@
+package com.group25.greengrocer.util;
+
+import com.group25.greengrocer.model.Order;
+import com.group25.greengrocer.model.OrderItem;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.colors.Color;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders invoice PDFs from a fixed layout.
+ *
+ * Every invoice has the same fonts, the same column grid and the same header
+ * row; only the order details and the item rows change. The template loads
+ * the font programs and computes the page geometry once, and then draws each
+ * invoice straight onto the page canvas, instead of building a tree of
+ * layout elements and laying it out again for every order. Long texts wrap
+ * within their column, and rows that do not fit continue on a new page under
+ * a repeated header row.
+ *
+ * A template is immutable, so one instance renders invoices on any number of
+ * threads at once.
+ */
+public final class InvoiceTemplate {
+
+    private static final PageSize PAGE_SIZE = PageSize.A4;
+    private static final float MARGIN = 36;
+
+    private static final float TITLE_SIZE = 20;
+    private static final float TEXT_SIZE = 12;
+    private static final float TOTAL_SIZE = 14;
+
+    /**
+     * Line height as a multiple of the font size.
+     */
+    private static final float LEADING = 1.2f;
+
+    /**
+     * Space below each paragraph outside the table.
+     */
+    private static final float PARAGRAPH_GAP = 4;
+
+    private static final float CELL_PADDING = 3;
+    private static final float BORDER_WIDTH = 0.5f;
+    private static final Color HEADER_BACKGROUND = ColorConstants.LIGHT_GRAY;
+
+    private static final float[] COLUMN_WEIGHTS = { 4, 2, 2, 2 };
+    private static final String[] COLUMN_TITLES = { "Item", "Quantity", "Unit Price", "Total" };
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private static InvoiceTemplate defaultTemplate;
+
+    private final FontProgram regularFont;
+    private final FontProgram boldFont;
+
+    /**
+     * Height above the baseline of the regular and bold fonts, per point of
+     * font size.
+     */
+    private final float regularAscent;
+    private final float boldAscent;
+
+    /**
+     * Left edge of each table column, followed by the right edge of the last.
+     */
+    private final float[] columnEdges;
+
+    /**
+     * Loads the fonts and computes the layout.
+     *
+     * @throws IOException if a font cannot be loaded
+     */
+    public InvoiceTemplate() throws IOException {
+        regularFont = FontProgramFactory.createFont(StandardFonts.HELVETICA);
+        boldFont = FontProgramFactory.createFont(StandardFonts.HELVETICA_BOLD);
+        regularAscent = regularFont.getFontMetrics().getTypoAscender() / 1000f;
+        boldAscent = boldFont.getFontMetrics().getTypoAscender() / 1000f;
+
+        float totalWeight = 0;
+        for (float weight : COLUMN_WEIGHTS) {
+            totalWeight += weight;
+        }
+        float tableWidth = PAGE_SIZE.getWidth() - 2 * MARGIN;
+        columnEdges = new float[COLUMN_WEIGHTS.length + 1];
+        columnEdges[0] = MARGIN;
+        for (int i = 0; i < COLUMN_WEIGHTS.length; i++) {
+            columnEdges[i + 1] = columnEdges[i] + tableWidth * COLUMN_WEIGHTS[i] / totalWeight;
+        }
+        columnEdges[COLUMN_WEIGHTS.length] = PAGE_SIZE.getWidth() - MARGIN;
+    }
+
+    /**
+     * Returns the template shared by the application, loading it on first use.
+     *
+     * @return the shared template
+     * @throws IOException if a font cannot be loaded
+     */
+    public static synchronized InvoiceTemplate getDefault() throws IOException {
+        if (defaultTemplate == null) {
+            defaultTemplate = new InvoiceTemplate();
+        }
+        return defaultTemplate;
+    }
+
+    /**
+     * Renders the invoice of an order.
+     *
+     * @param order the order, with its totals
+     * @param items the order lines, with their product names
+     * @return the PDF document
+     * @throws IOException if the PDF cannot be written
+     */
+    public byte[] render(Order order, List<OrderItem> items) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 * 1024 + items.size() * 128);
+        try (PdfDocument pdf = new PdfDocument(new PdfWriter(out))) {
+            Renderer renderer = new Renderer(pdf);
+
+            renderer.paragraph("INVOICE", renderer.bold, TITLE_SIZE, Align.CENTER);
+            renderer.blankLine();
+
+            renderer.paragraph("Order ID: " + order.getId(), renderer.regular, TEXT_SIZE, Align.LEFT);
+            renderer.paragraph("Date: " + order.getOrderTime().format(DATE_FORMAT), renderer.regular, TEXT_SIZE,
+                    Align.LEFT);
+            renderer.paragraph("Customer ID: " + order.getCustomerId(), renderer.regular, TEXT_SIZE, Align.LEFT);
+            if (order.getCarrierId() != null) {
+                renderer.paragraph("Carrier ID: " + order.getCarrierId(), renderer.regular, TEXT_SIZE, Align.LEFT);
+            }
+            if (order.getNote() != null && !order.getNote().isEmpty()) {
+                renderer.paragraph("Note: " + order.getNote(), renderer.regular, TEXT_SIZE, Align.LEFT);
+            }
+            renderer.blankLine();
+
+            renderer.headerRow();
+            String[] cells = new String[COLUMN_TITLES.length];
+            for (OrderItem item : items) {
+                cells[0] = item.getProductName();
+                cells[1] = item.getFormattedQuantity() + " " + item.getUnit();
+                cells[2] = item.getFormattedUnitPrice();
+                cells[3] = item.getFormattedLineTotal();
+                renderer.itemRow(cells);
+            }
+            renderer.endTable();
+            renderer.blankLine();
+
+            // Keep the totals together on one page
+            renderer.ensureSpace(3 * (TEXT_SIZE * LEADING + PARAGRAPH_GAP) + TOTAL_SIZE * LEADING);
+
+            renderer.paragraph(String.format("Subtotal: $%.2f", order.getSubtotal()), renderer.regular, TEXT_SIZE,
+                    Align.RIGHT);
+            renderer.paragraph(String.format("Discount: -$%.2f", order.getDiscountTotal()), renderer.regular,
+                    TEXT_SIZE, Align.RIGHT);
+            renderer.paragraph(String.format("VAT: $%.2f", order.getVatTotal()), renderer.regular, TEXT_SIZE,
+                    Align.RIGHT);
+            renderer.paragraph(String.format("Total: $%.2f", order.getTotal()), renderer.bold, TOTAL_SIZE,
+                    Align.RIGHT);
+        }
+        return out.toByteArray();
+    }
+
+    private enum Align {
+        LEFT, CENTER, RIGHT
+    }
+
+    /**
+     * Drawing state of one invoice: its fonts, the current page and how far
+     * down the page the content has reached.
+     */
+    private final class Renderer {
+        final PdfDocument pdf;
+        final PdfFont regular;
+        final PdfFont bold;
+
+        PdfCanvas canvas;
+
+        /**
+         * Top of the free space on the current page.
+         */
+        float y;
+
+        /**
+         * Whether item rows are being drawn, so that a page break repeats
+         * the header row.
+         */
+        boolean inTable;
+
+        Renderer(PdfDocument pdf) {
+            this.pdf = pdf;
+            regular = PdfFontFactory.createFont(regularFont, PdfEncodings.WINANSI);
+            bold = PdfFontFactory.createFont(boldFont, PdfEncodings.WINANSI);
+            newPage();
+        }
+
+        void newPage() {
+            canvas = new PdfCanvas(pdf.addNewPage(PAGE_SIZE));
+            y = PAGE_SIZE.getHeight() - MARGIN;
+            if (inTable) {
+                headerRow();
+            }
+        }
+
+        /**
+         * Starts a new page unless the given height fits on the current one.
+         * Content taller than a whole page is drawn anyway.
+         */
+        void ensureSpace(float height) {
+            if (y - height < MARGIN && y < PAGE_SIZE.getHeight() - MARGIN - (inTable ? headerHeight() : 0)) {
+                newPage();
+            }
+        }
+
+        void blankLine() {
+            ensureSpace(TEXT_SIZE * LEADING);
+            y -= TEXT_SIZE * LEADING + PARAGRAPH_GAP;
+        }
+
+        void paragraph(String text, PdfFont font, float size, Align align) {
+            float left = MARGIN;
+            float width = PAGE_SIZE.getWidth() - 2 * MARGIN;
+            for (String line : wrap(text, font, size, width)) {
+                ensureSpace(size * LEADING);
+                float x = left;
+                if (align == Align.CENTER) {
+                    x += (width - font.getWidth(line, size)) / 2;
+                } else if (align == Align.RIGHT) {
+                    x += width - font.getWidth(line, size);
+                }
+                showText(line, font, size, x, y);
+                y -= size * LEADING;
+            }
+            y -= PARAGRAPH_GAP;
+        }
+
+        void headerRow() {
+            inTable = true;
+            row(COLUMN_TITLES, bold, HEADER_BACKGROUND);
+        }
+
+        void itemRow(String[] cells) {
+            row(cells, regular, null);
+        }
+
+        void endTable() {
+            inTable = false;
+        }
+
+        float headerHeight() {
+            return TEXT_SIZE * LEADING + 2 * CELL_PADDING;
+        }
+
+        private void row(String[] cells, PdfFont font, Color background) {
+            List<List<String>> lines = new ArrayList<>(cells.length);
+            int lineCount = 1;
+            for (int i = 0; i < cells.length; i++) {
+                float width = columnEdges[i + 1] - columnEdges[i] - 2 * CELL_PADDING;
+                List<String> cellLines = wrap(cells[i] != null ? cells[i] : "", font, TEXT_SIZE, width);
+                lines.add(cellLines);
+                lineCount = Math.max(lineCount, cellLines.size());
+            }
+            float height = lineCount * TEXT_SIZE * LEADING + 2 * CELL_PADDING;
+            ensureSpace(height);
+
+            float bottom = y - height;
+            float left = columnEdges[0];
+            float right = columnEdges[columnEdges.length - 1];
+            if (background != null) {
+                canvas.saveState()
+                        .setFillColor(background)
+                        .rectangle(left, bottom, right - left, height)
+                        .fill()
+                        .restoreState();
+            }
+            canvas.setLineWidth(BORDER_WIDTH).rectangle(left, bottom, right - left, height);
+            for (int i = 1; i < columnEdges.length - 1; i++) {
+                canvas.moveTo(columnEdges[i], bottom).lineTo(columnEdges[i], y);
+            }
+            canvas.stroke();
+
+            for (int i = 0; i < cells.length; i++) {
+                float lineTop = y - CELL_PADDING;
+                for (String line : lines.get(i)) {
+                    showText(line, font, TEXT_SIZE, columnEdges[i] + CELL_PADDING, lineTop);
+                    lineTop -= TEXT_SIZE * LEADING;
+                }
+            }
+            y = bottom;
+        }
+
+        /**
+         * Draws one line of text whose line box starts at the given top.
+         */
+        private void showText(String text, PdfFont font, float size, float x, float top) {
+            float ascent = font == bold ? boldAscent : regularAscent;
+            float baseline = top - size * (LEADING - 1) / 2 - size * ascent;
+            canvas.beginText().setFontAndSize(font, size).moveText(x, baseline).showText(text).endText();
+        }
+    }
+
+    /**
+     * Breaks a text into lines no wider than the given width, at spaces where
+     * possible and inside words that are wider than a whole line.
+     */
+    private static List<String> wrap(String text, PdfFont font, float size, float width) {
+        List<String> lines = new ArrayList<>(1);
+        if (font.getWidth(text, size) <= width) {
+            lines.add(text);
+            return lines;
+        }
+        StringBuilder line = new StringBuilder();
+        for (String word : text.split(" ")) {
+            String candidate = line.length() == 0 ? word : line + " " + word;
+            if (font.getWidth(candidate, size) <= width) {
+                line.setLength(0);
+                line.append(candidate);
+                continue;
+            }
+            if (line.length() > 0) {
+                lines.add(line.toString());
+                line.setLength(0);
+            }
+            for (int i = 0; i < word.length(); i++) {
+                if (line.length() > 0 && font.getWidth(line.toString() + word.charAt(i), size) > width) {
+                    lines.add(line.toString());
+                    line.setLength(0);
+                }
+                line.append(word.charAt(i));
+            }
+        }
+        if (line.length() > 0 || lines.isEmpty()) {
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+}
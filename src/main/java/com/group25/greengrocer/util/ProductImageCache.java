@@ -0,0 +1,401 @@
+package com.group25.greengrocer.util;
+
+import com.group25.greengrocer.config.CacheConfig;
+import com.group25.greengrocer.dao.AsyncDao;
+import com.group25.greengrocer.dao.ProductDao;
+import com.group25.greengrocer.model.Product;
+import com.group25.greengrocer.model.ProductImageVariant;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+
+import java.io.ByteArrayInputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide cache of decoded product images.
+ *
+ * Images are keyed by product id, image version and the requested size in
+ * pixels, and decoded directly at that size, so a 100 px shop card or a
+ * 50 px cart row never holds a full-resolution bitmap.
+ * The image version is incremented whenever a new image is uploaded, so a
+ * replaced image is never served from the cache; older versions of a
+ * product's image are dropped as soon as a newer one is requested.
+ *
+ * Memory is bounded by CacheConfig.IMAGE_CACHE_MAX_BYTES, counting
+ * width x height x 4 bytes per decoded image. Within the budget images are
+ * held strongly in least-recently-used order. Images pushed out of the
+ * budget are demoted to soft references: they are served again if the
+ * garbage collector has not reclaimed them yet, and cost nothing when it
+ * has.
+ *
+ * Missing images are fetched by id through ProductDao.getProductImage, using
+ * the smallest stored variant that covers the requested size, and decoded on
+ * a virtual thread; concurrent requests for the same image share
+ * one fetch. Only the finished Image is handed to the JavaFX Application
+ * Thread.
+ *
+ * Hit rate, resident bytes and eviction counts are available through
+ * getStats() and shown in the owner's diagnostics view.
+ */
+public class ProductImageCache {
+
+    /**
+     * Key under which a view remembers the image it was last asked to show,
+     * so a late load cannot overwrite a newer one.
+     */
+    private static final String KEY_PROPERTY = "productImageCache.key";
+
+    private static final ProductDao productDao = new ProductDao();
+
+    /**
+     * Guards strong, soft, residentBytes and latestVersions.
+     */
+    private static final Object lock = new Object();
+
+    /**
+     * Images within the memory budget, least recently used first.
+     */
+    private static final LinkedHashMap<Key, Image> strong = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * Images evicted from the budget that the garbage collector may reclaim.
+     */
+    private static final Map<Key, SoftEntry> soft = new HashMap<>();
+
+    /**
+     * Receives soft entries cleared by the garbage collector.
+     */
+    private static final ReferenceQueue<Image> cleared = new ReferenceQueue<>();
+
+    /**
+     * Highest image version seen per product id.
+     */
+    private static final Map<Integer, Integer> latestVersions = new HashMap<>();
+
+    /**
+     * Fetches in progress, so an image visible in several places is only
+     * read from the database once.
+     */
+    private static final Map<Key, CompletableFuture<Image>> pending = new ConcurrentHashMap<>();
+
+    private static long residentBytes;
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder softHits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+    private static final LongAdder loadFailures = new LongAdder();
+
+    private ProductImageCache() {
+    }
+
+    /**
+     * Shows the product's image in the given view, loading it in the
+     * background if it is not cached. Must be called on the JavaFX
+     * Application Thread. Does nothing if the product has no image.
+     *
+     * @param product the product whose image to show
+     * @param view    the view to show it in
+     * @param size    the size of the view's bounding box in logical pixels;
+     *                the image is decoded to fit it at the screen's scale
+     */
+    public static void loadInto(Product product, ImageView view, double size) {
+        view.getProperties().remove(KEY_PROPERTY);
+        if (product.getProductImage() != null) {
+            view.setImage(product.getProductImage());
+            return;
+        }
+        if (!product.hasImage()) {
+            return;
+        }
+
+        double scale = javafx.stage.Screen.getPrimary().getOutputScaleX();
+        Key key = new Key(product.getId(), product.getImageVersion(), (int) Math.ceil(size * scale));
+        view.getProperties().put(KEY_PROPERTY, key);
+
+        Image cached = getIfPresent(key);
+        if (cached != null) {
+            view.setImage(cached);
+            return;
+        }
+
+        AsyncDao.deliver(load(key), image -> {
+            if (image != null && key.equals(view.getProperties().get(KEY_PROPERTY))) {
+                view.setImage(image);
+            }
+        }, null);
+    }
+
+    /**
+     * Returns a product image, loading it in the background if it is not
+     * cached.
+     *
+     * @param productId    the product id
+     * @param imageVersion the product's image version
+     * @param size         the bounding box to decode the image to, in pixels
+     * @return a future completed with the image, or with null if the product
+     *         has no image or it cannot be decoded
+     */
+    public static CompletableFuture<Image> get(int productId, int imageVersion, int size) {
+        Key key = new Key(productId, imageVersion, size);
+        Image cached = getIfPresent(key);
+        return cached != null ? CompletableFuture.completedFuture(cached) : load(key);
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     *
+     * @return a snapshot of the cache statistics
+     */
+    public static Stats getStats() {
+        synchronized (lock) {
+            purgeCleared();
+            return new Stats(hits.sum(), softHits.sum(), misses.sum(), evictions.sum(), loadFailures.sum(),
+                    strong.size(), soft.size(), residentBytes, CacheConfig.IMAGE_CACHE_MAX_BYTES);
+        }
+    }
+
+    /**
+     * Removes all images from the cache.
+     */
+    public static void clear() {
+        synchronized (lock) {
+            strong.clear();
+            soft.clear();
+            residentBytes = 0;
+        }
+    }
+
+    private static Image getIfPresent(Key key) {
+        synchronized (lock) {
+            retireOlderVersions(key);
+            Image image = strong.get(key);
+            if (image != null) {
+                hits.increment();
+                return image;
+            }
+            SoftEntry entry = soft.remove(key);
+            image = entry != null ? entry.get() : null;
+            if (image != null) {
+                softHits.increment();
+                admit(key, image);
+                return image;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    private static CompletableFuture<Image> load(Key key) {
+        CompletableFuture<Image> future = pending.computeIfAbsent(key, k -> AsyncDao.supply(() -> {
+            byte[] data = productDao.getProductImage(k.productId, ProductImageVariant.forSize(k.size));
+            if (data == null) {
+                return null;
+            }
+            Image image = new Image(new ByteArrayInputStream(data), k.size, k.size, true, true);
+            if (image.isError()) {
+                loadFailures.increment();
+                System.err.println("Could not decode image of product " + k.productId);
+                return null;
+            }
+            synchronized (lock) {
+                admit(k, image);
+            }
+            return image;
+        }));
+        future.whenComplete((image, error) -> pending.remove(key, future));
+        return future;
+    }
+
+    /**
+     * Adds an image to the strong tier and demotes the least recently used
+     * images to soft references until the budget is met. Caller holds lock.
+     */
+    private static void admit(Key key, Image image) {
+        Image previous = strong.put(key, image);
+        if (previous != null) {
+            residentBytes -= bytesOf(previous);
+        }
+        residentBytes += bytesOf(image);
+
+        Iterator<Map.Entry<Key, Image>> eldest = strong.entrySet().iterator();
+        while (residentBytes > CacheConfig.IMAGE_CACHE_MAX_BYTES && eldest.hasNext()) {
+            Map.Entry<Key, Image> entry = eldest.next();
+            eldest.remove();
+            residentBytes -= bytesOf(entry.getValue());
+            soft.put(entry.getKey(), new SoftEntry(entry.getKey(), entry.getValue(), cleared));
+            evictions.increment();
+        }
+        purgeCleared();
+    }
+
+    /**
+     * Drops the cached images of older versions once a newer version of a
+     * product's image is requested. Caller holds lock.
+     */
+    private static void retireOlderVersions(Key key) {
+        Integer latest = latestVersions.get(key.productId);
+        if (latest != null && latest >= key.imageVersion) {
+            return;
+        }
+        latestVersions.put(key.productId, key.imageVersion);
+        if (latest == null) {
+            return;
+        }
+        Iterator<Map.Entry<Key, Image>> it = strong.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Image> entry = it.next();
+            if (entry.getKey().productId == key.productId) {
+                residentBytes -= bytesOf(entry.getValue());
+                it.remove();
+            }
+        }
+        soft.keySet().removeIf(k -> k.productId == key.productId);
+    }
+
+    /**
+     * Removes soft entries whose image was reclaimed. Caller holds lock.
+     */
+    private static void purgeCleared() {
+        SoftEntry entry;
+        while ((entry = (SoftEntry) cleared.poll()) != null) {
+            soft.remove(entry.key, entry);
+        }
+    }
+
+    private static long bytesOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4L;
+    }
+
+    /**
+     * Cache key: product id, image version and decoded size.
+     */
+    private static final class Key {
+        final int productId;
+        final int imageVersion;
+        final int size;
+
+        Key(int productId, int imageVersion, int size) {
+            this.productId = productId;
+            this.imageVersion = imageVersion;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return productId == other.productId && imageVersion == other.imageVersion && size == other.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(productId, imageVersion, size);
+        }
+    }
+
+    /**
+     * Soft reference that remembers its key, so it can be removed from the
+     * soft tier once cleared.
+     */
+    private static final class SoftEntry extends SoftReference<Image> {
+        final Key key;
+
+        SoftEntry(Key key, Image image, ReferenceQueue<Image> queue) {
+            super(image, queue);
+            this.key = key;
+        }
+    }
+
+    /**
+     * Snapshot of the cache statistics.
+     */
+    public static class Stats {
+        private final long hits;
+        private final long softHits;
+        private final long misses;
+        private final long evictions;
+        private final long loadFailures;
+        private final int entries;
+        private final int softEntries;
+        private final long residentBytes;
+        private final long maxBytes;
+
+        public Stats(long hits, long softHits, long misses, long evictions, long loadFailures, int entries,
+                int softEntries, long residentBytes, long maxBytes) {
+            this.hits = hits;
+            this.softHits = softHits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.loadFailures = loadFailures;
+            this.entries = entries;
+            this.softEntries = softEntries;
+            this.residentBytes = residentBytes;
+            this.maxBytes = maxBytes;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getSoftHits() {
+            return softHits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getLoadFailures() {
+            return loadFailures;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public int getSoftEntries() {
+            return softEntries;
+        }
+
+        public long getResidentBytes() {
+            return residentBytes;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        /**
+         * @return the share of lookups served from the cache, including soft
+         *         hits, between 0 and 1
+         */
+        public double getHitRate() {
+            long lookups = hits + softHits + misses;
+            return lookups == 0 ? 0.0 : (double) (hits + softHits) / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hit rate=%.1f%% (%d hits, %d soft hits, %d misses), entries=%d (+%d soft), "
+                    + "resident=%.1f/%.1f MB, evictions=%d, load failures=%d", getHitRate() * 100, hits, softHits,
+                    misses, entries, softEntries, residentBytes / 1048576.0, maxBytes / 1048576.0, evictions,
+                    loadFailures);
+        }
+    }
+}
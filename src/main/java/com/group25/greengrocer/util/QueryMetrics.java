@@ -0,0 +1,317 @@
+package com.group25.greengrocer.util;
+
+import com.group25.greengrocer.config.DbConfig;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Execution timing for every prepared statement run through the pool.
+ *
+ * The statement proxies created by StatementCache report each execution here
+ * together with the number of rows returned or affected and an estimate of
+ * the bytes read from the result set. For a query the measured latency runs
+ * from execute until the result set is closed, so it includes fetching.
+ *
+ * Latencies are kept per SQL text in a fixed, lock-free histogram with
+ * power-of-two microsecond buckets, which is enough to report p50/p95/p99
+ * with at most a factor-of-two error and costs a single atomic increment per
+ * execution.
+ *
+ * Executions slower than DbConfig.SLOW_QUERY_THRESHOLD_MS are written to
+ * stderr with their bound parameters and kept in a bounded in-memory log for
+ * the owner's diagnostics view. Text parameters of statements on the users
+ * table (usernames, contact details, password hashes) are replaced by their
+ * length, so credentials never reach the log.
+ */
+public class QueryMetrics {
+
+    /**
+     * Number of histogram buckets. Bucket i counts executions that took less
+     * than 2^i microseconds (the last bucket is open-ended), covering 1 us to
+     * about 9 minutes.
+     */
+    private static final int BUCKETS = 30;
+
+    /**
+     * Longest SQL text and number of parameters written to the slow-query
+     * log, so multi-row inserts with thousands of placeholders stay readable.
+     */
+    private static final int MAX_LOGGED_SQL_LENGTH = 300;
+
+    private static final int MAX_LOGGED_PARAMETERS = 20;
+
+    /**
+     * Statements whose text parameters are redacted in the slow-query log.
+     */
+    private static final Pattern SENSITIVE_SQL = Pattern.compile("\\busers\\b|password",
+            Pattern.CASE_INSENSITIVE);
+
+    private final Map<String, StatementMetrics> statements = new ConcurrentHashMap<>();
+
+    /**
+     * Most recent slow executions, newest first. Guarded by itself.
+     */
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    /**
+     * Records one execution of a statement.
+     *
+     * @param sql          the SQL text
+     * @param elapsedNanos execution time, including fetching for queries
+     * @param rows         rows returned or affected
+     * @param bytes        estimated bytes read from the result set
+     * @param parameters   the bound parameters, used for the slow-query log;
+     *                     may be null
+     */
+    public void record(String sql, long elapsedNanos, long rows, long bytes, Object[] parameters) {
+        statements.computeIfAbsent(sql, StatementMetrics::new).add(elapsedNanos, rows, bytes);
+
+        long elapsedMillis = elapsedNanos / 1_000_000;
+        if (DbConfig.SLOW_QUERY_THRESHOLD_MS >= 0 && elapsedMillis >= DbConfig.SLOW_QUERY_THRESHOLD_MS) {
+            SlowQuery slow = new SlowQuery(LocalDateTime.now(), abbreviate(sql), elapsedMillis, rows,
+                    formatParameters(parameters, SENSITIVE_SQL.matcher(sql).find()));
+            System.err.println("Slow query (" + elapsedMillis + " ms, " + rows + " rows): " + slow.getSql()
+                    + " params=" + slow.getParameters());
+            synchronized (slowQueries) {
+                slowQueries.addFirst(slow);
+                while (slowQueries.size() > DbConfig.SLOW_QUERY_LOG_SIZE) {
+                    slowQueries.removeLast();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the statement metrics ordered by total time spent, so the
+     * statements costing the most database time come first.
+     *
+     * @param limit maximum number of entries to return
+     * @return the top statements by total execution time
+     */
+    public List<StatementMetrics> getTopStatements(int limit) {
+        List<StatementMetrics> result = new ArrayList<>(statements.values());
+        result.sort((a, b) -> Long.compare(b.getTotalNanos(), a.getTotalNanos()));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * @return the most recent slow executions, newest first
+     */
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    /**
+     * Clears all collected metrics and the slow-query log.
+     */
+    public void reset() {
+        statements.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    private static String formatParameters(Object[] parameters, boolean redact) {
+        if (parameters == null) {
+            return "[]";
+        }
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 1; i < parameters.length; i++) {
+            if (i > 1) {
+                sb.append(", ");
+            }
+            if (i > MAX_LOGGED_PARAMETERS) {
+                sb.append("... ").append(parameters.length - i).append(" more");
+                break;
+            }
+            Object value = parameters[i];
+            if (value instanceof byte[]) {
+                sb.append("<").append(((byte[]) value).length).append(" bytes>");
+            } else if (value instanceof java.io.InputStream || value instanceof java.sql.Blob) {
+                sb.append("<stream>");
+            } else if (value instanceof String && redact) {
+                sb.append("<").append(((String) value).length()).append(" chars>");
+            } else if (value instanceof String) {
+                sb.append('\'').append(value).append('\'');
+            } else {
+                sb.append(value);
+            }
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String abbreviate(String sql) {
+        if (sql.length() <= MAX_LOGGED_SQL_LENGTH) {
+            return sql;
+        }
+        return sql.substring(0, MAX_LOGGED_SQL_LENGTH) + "... (" + sql.length() + " chars)";
+    }
+
+    /**
+     * Maps a latency to its histogram bucket.
+     */
+    private static int bucketOf(long elapsedNanos) {
+        long micros = Math.max(1, elapsedNanos / 1_000);
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    /**
+     * Aggregated timings of one SQL text.
+     */
+    public static class StatementMetrics {
+        private final String sql;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        public StatementMetrics(String sql) {
+            this.sql = sql;
+        }
+
+        void add(long elapsedNanos, long rowCount, long byteCount) {
+            executions.increment();
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+            rows.add(rowCount);
+            bytes.add(byteCount);
+            histogram.incrementAndGet(bucketOf(elapsedNanos));
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getExecutions() {
+            return executions.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public double getTotalMillis() {
+            return getTotalNanos() / 1_000_000.0;
+        }
+
+        public double getAverageMillis() {
+            long count = getExecutions();
+            return count == 0 ? 0.0 : getTotalMillis() / count;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos.get() / 1_000_000.0;
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        /**
+         * Estimates a latency percentile from the histogram. The value returned
+         * is the upper bound of the bucket containing the percentile, capped at
+         * the maximum observed latency.
+         *
+         * @param percentile a value between 0 and 100
+         * @return the estimated latency in milliseconds
+         */
+        public double getPercentileMillis(double percentile) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = histogram.get(i);
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0.0;
+            }
+            long rank = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    double upperMillis = (1L << i) / 1_000.0;
+                    return Math.min(upperMillis, getMaxMillis());
+                }
+            }
+            return getMaxMillis();
+        }
+
+        public double getP50Millis() {
+            return getPercentileMillis(50);
+        }
+
+        public double getP95Millis() {
+            return getPercentileMillis(95);
+        }
+
+        public double getP99Millis() {
+            return getPercentileMillis(99);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d, total=%.1fms, p50=%.2fms, p95=%.2fms, p99=%.2fms, max=%.2fms, "
+                    + "rows=%d, bytes=%d, sql=%s", getExecutions(), getTotalMillis(), getP50Millis(),
+                    getP95Millis(), getP99Millis(), getMaxMillis(), getRows(), getBytes(), sql);
+        }
+    }
+
+    /**
+     * One entry of the slow-query log.
+     */
+    public static class SlowQuery {
+        private final LocalDateTime time;
+        private final String sql;
+        private final long elapsedMillis;
+        private final long rows;
+        private final String parameters;
+
+        public SlowQuery(LocalDateTime time, String sql, long elapsedMillis, long rows, String parameters) {
+            this.time = time;
+            this.sql = sql;
+            this.elapsedMillis = elapsedMillis;
+            this.rows = rows;
+            this.parameters = parameters;
+        }
+
+        public LocalDateTime getTime() {
+            return time;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public String getParameters() {
+            return parameters;
+        }
+    }
+}
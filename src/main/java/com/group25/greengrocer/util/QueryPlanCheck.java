@@ -0,0 +1,231 @@
+package com.group25.greengrocer.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * EXPLAIN-based check that the hot DAO queries are served by an index.
+ *
+ * Each query in HOT_QUERIES is explained with representative parameters.
+ * On MySQL, a plan row with access type ALL (full table scan) and no usable index in
+ * possible_keys is a failure: the index pack from the migrations is missing
+ * or no longer matches the query. A full scan although an index was usable
+ * is only a warning, because on nearly empty tables MySQL prefers scanning;
+ * run the check against a realistically sized database for meaningful
+ * results. Text plans (H2) fail on any table scan, since H2 does not list
+ * the indexes it considered.
+ *
+ * Runs after the migrations when greengrocer.db.verifyQueryPlans is set, and
+ * can be run on its own (for example from a CI job) through main(), which
+ * exits with status 1 if any query fails the check.
+ */
+public class QueryPlanCheck {
+
+    /**
+     * A hot query and the parameters used to explain it.
+     */
+    static final class HotQuery {
+        final String name;
+        final String sql;
+        final Object[] parameters;
+
+        HotQuery(String name, String sql, Object... parameters) {
+            this.name = name;
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+    }
+
+    /**
+     * The DAO queries that must not fall back to a full table scan. Keep the
+     * SQL identical to the DAO so the check explains the real access path.
+     */
+    static final List<HotQuery> HOT_QUERIES = List.of(
+            new HotQuery("OrderDao.findByCustomerId",
+                    "SELECT * FROM orders WHERE customer_id = ? ORDER BY order_time DESC", 1L),
+            new HotQuery("OrderDao.findAvailableOrders",
+                    "SELECT * FROM orders WHERE status IN ('PLACED', 'READY') AND carrier_id IS NULL "
+                            + "ORDER BY requested_delivery_time ASC"),
+            new HotQuery("OrderDao.findByCarrierId",
+                    "SELECT * FROM orders WHERE carrier_id = ? AND status = 'ASSIGNED' "
+                            + "ORDER BY requested_delivery_time ASC", 1L),
+            new HotQuery("OrderDao.findCompletedByCarrierId",
+                    "SELECT * FROM orders WHERE carrier_id = ? AND status = 'DELIVERED' "
+                            + "ORDER BY delivered_time DESC", 1L),
+            new HotQuery("OrderDao.claimNextOrders",
+                    "SELECT * FROM orders WHERE carrier_id IS NULL AND status = 'PLACED' "
+                            + "ORDER BY requested_delivery_time ASC LIMIT ? FOR UPDATE SKIP LOCKED", 1L),
+            new HotQuery("StockReservationDao.heldQuantities",
+                    "SELECT COALESCE(SUM(CASE WHEN cart_id = ? THEN 0 ELSE quantity END), 0), "
+                            + "COALESCE(SUM(CASE WHEN cart_id = ? THEN quantity ELSE 0 END), 0) "
+                            + "FROM stock_reservations WHERE product_id = ? AND expires_at > CURRENT_TIMESTAMP(3)",
+                    "cart", "cart", 1L),
+            new HotQuery("OrderDao.findOrdersChangedSince",
+                    "SELECT * FROM orders WHERE updated_at >= ? ORDER BY updated_at ASC",
+                    java.sql.Timestamp.valueOf("2025-01-01 00:00:00")),
+            new HotQuery("OrderItemDao.findByOrderId",
+                    "SELECT oi.*, p.name as product_name FROM order_items oi "
+                            + "JOIN products p ON oi.product_id = p.id WHERE oi.order_id = ? ORDER BY p.name", 1L),
+            new HotQuery("InvoiceDao.findDueJobs",
+                    "SELECT order_id, attempts FROM invoice_jobs WHERE next_attempt_at <= ? "
+                            + "ORDER BY next_attempt_at LIMIT ?",
+                    java.sql.Timestamp.valueOf("2025-01-01 00:00:00"), 32),
+            new HotQuery("MessageDao.getMessagesForUser",
+                    "SELECT m.*, s.username as sender_name FROM messages m JOIN users s ON m.sender_id = s.id "
+                            + "WHERE m.sender_id = ? UNION "
+                            + "SELECT m.*, s.username as sender_name FROM messages m JOIN users s ON m.sender_id = s.id "
+                            + "WHERE m.receiver_id = ? ORDER BY created_at DESC", 1L, 1L),
+            new HotQuery("ProductDao.getAllProducts",
+                    "SELECT p.id, p.name, p.price, p.stock_qty, p.threshold_qty, p.unit, p.image_version, "
+                            + "p.updated_at, p.is_deleted, c.name as category_name, "
+                            + "(p.image_blob IS NOT NULL) as has_image FROM products p JOIN categories c ON p.category_id = c.id "
+                            + "WHERE p.is_deleted = 0 ORDER BY p.name ASC"),
+            new HotQuery("ProductDao.getProductsByCategory",
+                    "SELECT p.id, p.name, p.price, p.stock_qty, p.threshold_qty, p.unit, p.image_version, "
+                            + "p.updated_at, p.is_deleted, c.name as category_name, "
+                            + "(p.image_blob IS NOT NULL) as has_image FROM products p JOIN categories c ON p.category_id = c.id "
+                            + "WHERE c.name = ? AND p.is_deleted = 0 ORDER BY p.name ASC", "Vegetable"),
+            new HotQuery("ProductDao.getProductsChangedSince",
+                    "SELECT p.id, p.name, p.price, p.stock_qty, p.threshold_qty, p.unit, p.image_version, "
+                            + "p.updated_at, p.is_deleted, c.name as category_name, "
+                            + "(p.image_blob IS NOT NULL) as has_image FROM products p JOIN categories c ON p.category_id = c.id "
+                            + "WHERE p.updated_at >= ? ORDER BY p.updated_at ASC",
+                    java.sql.Timestamp.valueOf("2025-01-01 00:00:00")),
+            new HotQuery("ProductDao.getProductPage",
+                    "SELECT p.id, p.name, p.price, p.stock_qty, p.threshold_qty, p.unit, p.image_version, "
+                            + "p.updated_at, p.is_deleted, c.name as category_name, "
+                            + "(p.image_blob IS NOT NULL) as has_image FROM products p JOIN categories c ON p.category_id = c.id "
+                            + "WHERE c.name = ? AND p.is_deleted = 0 AND (p.name > ? OR (p.name = ? AND p.id > ?)) "
+                            + "ORDER BY p.name ASC, p.id ASC LIMIT ?", "Vegetable", "Carrot", "Carrot", 1, 20),
+            new HotQuery("ProductDao.getProductPageAt",
+                    "SELECT p.id, p.name, p.price, p.stock_qty, p.threshold_qty, p.unit, p.image_version, "
+                            + "p.updated_at, p.is_deleted, c.name as category_name, "
+                            + "(p.image_blob IS NOT NULL) as has_image FROM products p JOIN categories c ON p.category_id = c.id "
+                            + "JOIN (SELECT id FROM products WHERE is_deleted = 0 ORDER BY name ASC, id ASC LIMIT ? OFFSET ?) k "
+                            + "ON k.id = p.id ORDER BY p.name ASC, p.id ASC", 20, 100),
+            new HotQuery("RatingDao.getRatingsByCarrierId",
+                    "SELECT * FROM carrier_ratings WHERE carrier_id = ? ORDER BY created_at DESC", 1L),
+            new HotQuery("UserDao.getPendingCarriers",
+                    "SELECT id, username, password_hash FROM users WHERE role = 'carrier' AND status = 'PENDING'"));
+
+    private final Connection conn;
+
+    /**
+     * @param conn the connection to explain the queries on; it is not closed
+     */
+    public QueryPlanCheck(Connection conn) {
+        this.conn = conn;
+    }
+
+    /**
+     * Explains every hot query and collects the plan problems found.
+     *
+     * @param warnings receives full scans chosen although an index was usable;
+     *                 may be null
+     * @return one message per plan row that scans a table without a usable
+     *         index; empty if every hot query is indexed
+     * @throws SQLException if a query cannot be explained
+     */
+    public List<String> check(List<String> warnings) throws SQLException {
+        List<String> failures = new ArrayList<>();
+        for (HotQuery query : HOT_QUERIES) {
+            try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + query.sql)) {
+                for (int i = 0; i < query.parameters.length; i++) {
+                    stmt.setObject(i + 1, query.parameters[i]);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!hasColumn(rs, "type")) {
+                        checkTextPlan(query, rs, failures);
+                        continue;
+                    }
+                    while (rs.next()) {
+                        if (!"ALL".equalsIgnoreCase(rs.getString("type"))) {
+                            continue;
+                        }
+                        String table = rs.getString("table");
+                        String possibleKeys = rs.getString("possible_keys");
+                        if (possibleKeys == null || possibleKeys.isEmpty()) {
+                            failures.add(query.name + ": full scan of " + table + " (no usable index)");
+                        } else if (warnings != null) {
+                            warnings.add(query.name + ": optimizer chose a full scan of " + table
+                                    + " although " + possibleKeys + " could be used");
+                        }
+                    }
+                }
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Checks a plan returned as text, as by the embedded H2 database, where a
+     * full scan shows up as a "tableScan" comment after the table name.
+     */
+    private static void checkTextPlan(HotQuery query, ResultSet rs, List<String> failures) throws SQLException {
+        while (rs.next()) {
+            String plan = rs.getString(1);
+            if (plan == null) {
+                continue;
+            }
+            for (String line : plan.split("\\R")) {
+                if (line.contains(".tableScan")) {
+                    failures.add(query.name + ": full scan (" + line.trim() + ")");
+                }
+            }
+        }
+    }
+
+    private static boolean hasColumn(ResultSet rs, String column) throws SQLException {
+        java.sql.ResultSetMetaData meta = rs.getMetaData();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            if (column.equalsIgnoreCase(meta.getColumnLabel(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the check and prints the results to stdout/stderr.
+     *
+     * @param conn the connection to explain the queries on
+     * @return true if no hot query falls back to an unindexed full scan
+     */
+    public static boolean run(Connection conn) {
+        List<String> warnings = new ArrayList<>();
+        try {
+            List<String> failures = new QueryPlanCheck(conn).check(warnings);
+            warnings.forEach(w -> System.out.println("Query plan warning: " + w));
+            failures.forEach(f -> System.err.println("Query plan check FAILED: " + f));
+            if (failures.isEmpty()) {
+                System.out.println("Query plan check passed for " + HOT_QUERIES.size() + " hot queries");
+            }
+            return failures.isEmpty();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Migrates the configured database and checks the hot query plans.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        boolean passed;
+        try (Connection conn = DbAdapter.getConnection()) {
+            passed = run(conn);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            passed = false;
+        } finally {
+            DbAdapter.closeConnection();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+}
@@ -0,0 +1,306 @@
+package com.group25.greengrocer.util;
+
+import com.group25.greengrocer.config.DbConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Creates and upgrades the database schema from versioned SQL scripts.
+ *
+ * Migrations live on the classpath under /db/migration/ and are named
+ * V&lt;version&gt;__&lt;description&gt;.sql. Every applied version is recorded in
+ * the schema_version table together with a checksum of the script, so each
+ * migration runs exactly once per database and later edits to an already
+ * applied script are reported.
+ *
+ * Scripts are split into statements on semicolons at the end of a line; lines
+ * starting with "--" are comments. MySQL commits DDL implicitly, so a failed
+ * migration is not rolled back: the version is only recorded after all of its
+ * statements succeeded, and the script is retried on the next start.
+ *
+ * On MySQL, migrate() holds the named lock MIGRATION_LOCK while it reads
+ * schema_version and applies scripts, so workstations starting at the same
+ * time apply each migration once: the others wait, then find the versions
+ * already recorded.
+ *
+ * To adopt a database that was created by hand before migrations existed,
+ * "already exists" errors (duplicate table, column, index or foreign key) are
+ * logged and skipped instead of failing the migration.
+ *
+ * To add a migration, put the script into /db/migration/ and append its file
+ * name to MIGRATIONS.
+ */
+public class SchemaMigrator {
+
+    /**
+     * All migration scripts in the order they are applied.
+     */
+    static final String[] MIGRATIONS = {
+            "V1__baseline_schema.sql",
+            "V2__dao_access_path_indexes.sql",
+            "V3__product_image_version.sql",
+            "V4__product_image_variants.sql",
+            "V5__product_updated_at.sql",
+            "V6__invoice_queue.sql",
+            "V7__invoice_compression.sql",
+            "V8__order_updated_at.sql",
+            "V9__stock_reservations.sql"
+    };
+
+    private static final String MIGRATION_PATH = "/db/migration/";
+
+    /**
+     * Name of the MySQL lock serializing migrations across workstations.
+     */
+    private static final String MIGRATION_LOCK = "greengrocer_schema";
+
+    /**
+     * MySQL error codes meaning the object a statement creates already exists:
+     * table (1050), column (1060), index (1061) and foreign key (1826).
+     */
+    private static final Set<Integer> ALREADY_EXISTS_CODES = Set.of(1050, 1060, 1061, 1826);
+
+    /**
+     * SQL states meaning the object already exists, for drivers that do not
+     * use MySQL error codes: table (42S01), column (42S21) and index (42S11).
+     */
+    private static final Set<String> ALREADY_EXISTS_STATES = Set.of("42S01", "42S21", "42S11");
+
+    private final Connection conn;
+
+    /**
+     * @param conn the connection to migrate; it is not closed by the migrator
+     */
+    public SchemaMigrator(Connection conn) {
+        this.conn = conn;
+    }
+
+    /**
+     * Applies all migrations that have not been applied to the database yet.
+     *
+     * @return the number of migrations applied by this call
+     * @throws SQLException if a migration fails; migrations applied before the
+     *                      failing one stay recorded
+     */
+    public int migrate() throws SQLException {
+        boolean locked = acquireLock();
+        try {
+            return applyPending();
+        } finally {
+            if (locked) {
+                releaseLock();
+            }
+        }
+    }
+
+    /**
+     * Applies the pending migrations. Reads schema_version only once the lock
+     * is held, so versions applied by another workstation meanwhile are seen.
+     */
+    private int applyPending() throws SQLException {
+        ensureVersionTable();
+        Map<Integer, Long> applied = loadAppliedVersions();
+
+        int count = 0;
+        for (String fileName : MIGRATIONS) {
+            int version = versionOf(fileName);
+            String script = readScript(fileName);
+            long checksum = checksumOf(script);
+
+            Long appliedChecksum = applied.get(version);
+            if (appliedChecksum != null) {
+                if (appliedChecksum != checksum) {
+                    System.err.println("Migration " + fileName + " was changed after it was applied "
+                            + "(checksum " + appliedChecksum + " != " + checksum + "); not re-running it.");
+                }
+                continue;
+            }
+
+            long start = System.nanoTime();
+            for (String sql : splitStatements(script)) {
+                execute(fileName, sql);
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            recordVersion(version, fileName, checksum, elapsedMillis);
+            System.out.println("Applied migration " + fileName + " in " + elapsedMillis + " ms");
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the highest migration version recorded in the database.
+     *
+     * @return the current schema version, or 0 if no migration has been applied
+     * @throws SQLException if the version table cannot be read
+     */
+    public int currentVersion() throws SQLException {
+        ensureVersionTable();
+        return loadAppliedVersions().keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    /**
+     * Runs a SQL script from the classpath once, without recording a version.
+     * Used for data that is not part of the schema, such as the embedded
+     * profile's demo data.
+     *
+     * @param resourcePath the absolute classpath location of the script
+     * @throws SQLException if a statement fails
+     */
+    public void runScript(String resourcePath) throws SQLException {
+        String script = readResource(resourcePath);
+        for (String sql : splitStatements(script)) {
+            execute(resourcePath, sql);
+        }
+    }
+
+    /**
+     * Takes the migration lock on MySQL. Other databases (the embedded H2
+     * profile) are private to this process and need no lock.
+     *
+     * @return true if the lock was taken and must be released
+     */
+    private boolean acquireLock() throws SQLException {
+        if (!conn.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql")) {
+            return false;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, MIGRATION_LOCK);
+            stmt.setInt(2, DbConfig.MIGRATION_LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 1) {
+                    return true;
+                }
+            }
+        }
+        throw new SQLException("Timed out after " + DbConfig.MIGRATION_LOCK_TIMEOUT_SECONDS
+                + " s waiting for another workstation to finish the schema migrations");
+    }
+
+    private void releaseLock() {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, MIGRATION_LOCK);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("Could not release the schema migration lock: " + e.getMessage());
+        }
+    }
+
+    private void ensureVersionTable() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                    + "version INT NOT NULL PRIMARY KEY, "
+                    + "script VARCHAR(255) NOT NULL, "
+                    + "checksum BIGINT NOT NULL, "
+                    + "execution_ms BIGINT NOT NULL, "
+                    + "installed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        }
+    }
+
+    private Map<Integer, Long> loadAppliedVersions() throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT version, checksum FROM schema_version");
+                ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private void recordVersion(int version, String fileName, long checksum, long elapsedMillis)
+            throws SQLException {
+        String sql = "INSERT INTO schema_version (version, script, checksum, execution_ms) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, version);
+            stmt.setString(2, fileName);
+            stmt.setLong(3, checksum);
+            stmt.setLong(4, elapsedMillis);
+            stmt.executeUpdate();
+        }
+    }
+
+    private void execute(String fileName, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            if (ALREADY_EXISTS_CODES.contains(e.getErrorCode()) || ALREADY_EXISTS_STATES.contains(e.getSQLState())) {
+                System.out.println("Migration " + fileName + ": skipping, already present: " + e.getMessage());
+                return;
+            }
+            throw new SQLException("Migration " + fileName + " failed at: " + sql, e.getSQLState(),
+                    e.getErrorCode(), e);
+        }
+    }
+
+    private static String readScript(String fileName) throws SQLException {
+        return readResource(MIGRATION_PATH + fileName);
+    }
+
+    private static String readResource(String resourcePath) throws SQLException {
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream(resourcePath)) {
+            if (in == null) {
+                throw new SQLException("SQL script not found on classpath: " + resourcePath);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Could not read SQL script " + resourcePath, e);
+        }
+    }
+
+    /**
+     * Splits a script into statements. A statement ends with a semicolon at
+     * the end of a line; comment lines and blank lines are dropped.
+     */
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\r?\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            if (current.length() > 0) {
+                current.append('\n');
+            }
+            if (trimmed.endsWith(";")) {
+                current.append(line, 0, line.lastIndexOf(';'));
+                statements.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(line);
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static int versionOf(String fileName) {
+        int separator = fileName.indexOf("__");
+        if (!fileName.startsWith("V") || separator < 2) {
+            throw new IllegalArgumentException("Migration name must look like V<version>__<name>.sql: " + fileName);
+        }
+        return Integer.parseInt(fileName.substring(1, separator));
+    }
+
+    private static long checksumOf(String script) {
+        CRC32 crc = new CRC32();
+        crc.update(script.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
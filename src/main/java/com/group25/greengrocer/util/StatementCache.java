@@ -0,0 +1,519 @@
+package com.group25.greengrocer.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prepared statement cache for a single pooled connection.
+ *
+ * Prepared statements belong to the connection that created them, so every
+ * pooled connection owns one cache. Statements are keyed by their SQL text
+ * (plus the generated-keys flag) and kept in LRU order up to a fixed
+ * capacity. When the DAO closes a cached statement, the statement is not
+ * closed on the server: its parameters are cleared and it is parked in the
+ * cache so the next prepareStatement() call with the same SQL skips the
+ * parse and plan work.
+ *
+ * Hit and miss counters are recorded per SQL text in a map shared by all
+ * connections of the pool, so the numbers describe the whole application.
+ *
+ * Every statement handed out, cached or not, is also timed: executions are
+ * reported to QueryMetrics together with the bound parameters, the row count
+ * and the bytes read from the result set.
+ *
+ * A cache is only ever used by the borrower currently holding its
+ * connection, so it needs no synchronization of its own.
+ */
+public class StatementCache {
+
+    private final int capacity;
+
+    private final Map<String, StatementStats> stats;
+
+    private final QueryMetrics metrics;
+
+    private final LinkedHashMap<String, CachedStatement> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity the maximum number of statements kept per connection; 0
+     *                 disables caching
+     * @param stats    the shared per-SQL counters
+     * @param metrics  receives execution timings; null disables timing
+     */
+    public StatementCache(int capacity, Map<String, StatementStats> stats, QueryMetrics metrics) {
+        this.capacity = capacity;
+        this.stats = stats;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, reusing a cached one when
+     * possible.
+     *
+     * @param physical          the physical connection owning the statements
+     * @param owner             the connection handle the caller sees; returned
+     *                          from getConnection() on the statement
+     * @param sql               the SQL text
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS or
+     *                          Statement.NO_GENERATED_KEYS
+     * @return a statement proxy whose close() returns it to the cache
+     * @throws SQLException if the statement cannot be prepared
+     */
+    public PreparedStatement prepare(Connection physical, Connection owner, String sql, int autoGeneratedKeys)
+            throws SQLException {
+        StatementStats counters = stats.computeIfAbsent(sql, StatementStats::new);
+        if (capacity <= 0) {
+            counters.misses.increment();
+            return newProxy(prepareUncached(physical, sql, autoGeneratedKeys), null, sql, owner);
+        }
+
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? sql + "\u0000keys" : sql;
+        CachedStatement cached = entries.get(key);
+        if (cached != null && !cached.inUse && !cached.statement.isClosed()) {
+            counters.hits.increment();
+        } else {
+            counters.misses.increment();
+            PreparedStatement statement = prepareUncached(physical, sql, autoGeneratedKeys);
+            if (cached != null && cached.inUse) {
+                // Same SQL prepared twice on one lease: hand out an uncached statement
+                return newProxy(statement, null, sql, owner);
+            }
+            if (cached != null) {
+                entries.remove(key);
+            }
+            cached = new CachedStatement(key, statement);
+            cached.inUse = true;
+            entries.put(key, cached);
+            evictOverflow();
+        }
+
+        cached.inUse = true;
+        return newProxy(cached.statement, cached, sql, owner);
+    }
+
+    /**
+     * Closes statements the last borrower never closed. Called when the
+     * connection is returned to the pool.
+     */
+    public void reclaim() {
+        Iterator<CachedStatement> it = entries.values().iterator();
+        while (it.hasNext()) {
+            CachedStatement cached = it.next();
+            if (cached.inUse) {
+                it.remove();
+                closeQuietly(cached.statement);
+            }
+        }
+    }
+
+    /**
+     * Closes every cached statement. Called before the physical connection is
+     * closed.
+     */
+    public void close() {
+        entries.values().forEach(cached -> closeQuietly(cached.statement));
+        entries.clear();
+    }
+
+    /**
+     * @return the number of statements currently cached on this connection
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private PreparedStatement newProxy(PreparedStatement statement, CachedStatement cached, String sql,
+            Connection owner) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, new StatementHandle(statement, cached, sql, owner));
+    }
+
+    private PreparedStatement prepareUncached(Connection physical, String sql, int autoGeneratedKeys)
+            throws SQLException {
+        return autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS
+                ? physical.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                : physical.prepareStatement(sql);
+    }
+
+    /**
+     * Drops least recently used statements that are not in use until the cache
+     * fits its capacity.
+     */
+    private void evictOverflow() {
+        Iterator<CachedStatement> it = entries.values().iterator();
+        while (entries.size() > capacity && it.hasNext()) {
+            CachedStatement cached = it.next();
+            if (!cached.inUse) {
+                it.remove();
+                closeQuietly(cached.statement);
+            }
+        }
+    }
+
+    private void checkIn(CachedStatement cached) {
+        cached.inUse = false;
+        try {
+            if (cached.statement.isClosed() || entries.get(cached.key) != cached) {
+                entries.remove(cached.key, cached);
+                closeQuietly(cached.statement);
+                return;
+            }
+            cached.statement.clearParameters();
+            cached.statement.clearBatch();
+            cached.statement.clearWarnings();
+        } catch (SQLException e) {
+            entries.remove(cached.key, cached);
+            closeQuietly(cached.statement);
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // Statement is being thrown away anyway
+        }
+    }
+
+    /**
+     * A physical prepared statement kept in the cache.
+     */
+    private final class CachedStatement {
+
+        private final String key;
+
+        private final PreparedStatement statement;
+
+        private boolean inUse;
+
+        CachedStatement(String key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * Invocation handler behind a borrowed statement. close() checks a cached
+     * statement back into the cache (or closes an uncached one); executions
+     * are timed and bound parameters remembered for the slow-query log; every
+     * other call is forwarded.
+     */
+    private final class StatementHandle implements InvocationHandler {
+
+        private final PreparedStatement statement;
+
+        /**
+         * The cache entry, or null if the statement is not cached.
+         */
+        private final CachedStatement cached;
+
+        private final String sql;
+
+        private final Connection owner;
+
+        private Object[] parameters = new Object[8];
+
+        private ResultSetHandle openResult;
+
+        private boolean closed;
+
+        StatementHandle(PreparedStatement statement, CachedStatement cached, String sql, Connection owner) {
+            this.statement = statement;
+            this.cached = cached;
+            this.sql = sql;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        closeOpenResult();
+                        if (cached != null) {
+                            checkIn(cached);
+                        } else {
+                            statement.close();
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return (cached != null ? "CachedStatement[" : "Statement[") + statement + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement has already been closed");
+            }
+            if (metrics == null) {
+                return forward(method, args);
+            }
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                rememberParameter((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters = new Object[parameters.length];
+            }
+
+            switch (name) {
+                case "executeQuery": {
+                    closeOpenResult();
+                    long start = System.nanoTime();
+                    ResultSet rs = (ResultSet) forward(method, args);
+                    openResult = new ResultSetHandle(rs, sql, start, parameters.clone());
+                    return openResult.newProxy();
+                }
+                case "executeUpdate":
+                case "executeLargeUpdate": {
+                    closeOpenResult();
+                    long start = System.nanoTime();
+                    Object result = forward(method, args);
+                    metrics.record(sql, System.nanoTime() - start, ((Number) result).longValue(), 0,
+                            parameters);
+                    return result;
+                }
+                case "executeBatch":
+                case "executeLargeBatch": {
+                    closeOpenResult();
+                    long start = System.nanoTime();
+                    Object result = forward(method, args);
+                    metrics.record(sql, System.nanoTime() - start, sumUpdateCounts(result), 0, parameters);
+                    return result;
+                }
+                case "execute": {
+                    closeOpenResult();
+                    long start = System.nanoTime();
+                    Object result = forward(method, args);
+                    long updated = Boolean.TRUE.equals(result) ? 0 : Math.max(0, statement.getUpdateCount());
+                    metrics.record(sql, System.nanoTime() - start, updated, 0, parameters);
+                    return result;
+                }
+                default:
+                    return forward(method, args);
+            }
+        }
+
+        private Object forward(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void rememberParameter(int index, Object value) {
+            if (index <= 0 || index > 1024) {
+                return;
+            }
+            if (index >= parameters.length) {
+                parameters = java.util.Arrays.copyOf(parameters, Math.max(index + 1, parameters.length * 2));
+            }
+            parameters[index] = value;
+        }
+
+        private void closeOpenResult() {
+            if (openResult != null) {
+                openResult.finish();
+                openResult = null;
+            }
+        }
+
+        private long sumUpdateCounts(Object result) {
+            long total = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    total += Math.max(0, count);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    total += Math.max(0, count);
+                }
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Invocation handler behind a result set returned by a timed statement.
+     * Counts rows and estimates the bytes read by the caller; the execution
+     * is reported to QueryMetrics when the result set is closed, either by the
+     * caller or together with its statement.
+     */
+    private final class ResultSetHandle implements InvocationHandler {
+
+        private final ResultSet resultSet;
+
+        private final String sql;
+
+        private final long startNanos;
+
+        private final Object[] parameters;
+
+        private long rows;
+
+        private long bytes;
+
+        private boolean finished;
+
+        ResultSetHandle(ResultSet resultSet, String sql, long startNanos, Object[] parameters) {
+            this.resultSet = resultSet;
+            this.sql = sql;
+            this.startNanos = startNanos;
+            this.parameters = parameters;
+        }
+
+        ResultSet newProxy() {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class }, this);
+        }
+
+        /**
+         * Closes the physical result set and reports the execution once.
+         */
+        void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            try {
+                resultSet.close();
+            } catch (SQLException e) {
+                // Result is being discarded anyway
+            }
+            metrics.record(sql, System.nanoTime() - startNanos, rows, bytes, parameters);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    finish();
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            Object result;
+            try {
+                result = method.invoke(resultSet, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            if (name.equals("next")) {
+                if (Boolean.TRUE.equals(result)) {
+                    rows++;
+                }
+            } else if (name.startsWith("get") && args != null && args.length >= 1 && result != null) {
+                if (result instanceof String) {
+                    bytes += ((String) result).length();
+                } else if (result instanceof byte[]) {
+                    bytes += ((byte[]) result).length;
+                } else if (result instanceof InputStream) {
+                    return new CountingInputStream((InputStream) result);
+                } else if (result instanceof Number || result instanceof java.util.Date
+                        || result instanceof Boolean) {
+                    bytes += 8;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Adds the bytes the caller actually reads from a BLOB stream.
+         */
+        private final class CountingInputStream extends FilterInputStream {
+
+            CountingInputStream(InputStream in) {
+                super(in);
+            }
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytes++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    bytes += n;
+                }
+                return n;
+            }
+        }
+    }
+
+    /**
+     * Cache hit and miss counters for one SQL text.
+     */
+    public static class StatementStats {
+        private final String sql;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        public StatementStats(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        public double getHitRate() {
+            long total = getHits() + getMisses();
+            return total == 0 ? 0.0 : getHits() / (double) total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, hitRate=%.1f%%, sql=%s", getHits(), getMisses(),
+                    getHitRate() * 100, sql);
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+-- Baseline schema of the GreenGrocer database.
+--
+-- Reconstructed from the columns read and written by the DAOs. Every table is
+-- created with IF NOT EXISTS so the migration can also be applied to a
+-- database that was set up by hand before migrations existed.
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(50) NOT NULL,
+    password_hash VARCHAR(255) NOT NULL,
+    role VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'APPROVED',
+    full_name VARCHAR(100),
+    phone VARCHAR(30),
+    address_line VARCHAR(255),
+    city VARCHAR(100),
+    individual_loyalty_rate DECIMAL(6, 4),
+    license_front LONGBLOB,
+    license_back LONGBLOB,
+    profile_picture_blob LONGBLOB,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_users_username (username)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS categories (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(50) NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_categories_name (name)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS products (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(100) NOT NULL,
+    price DECIMAL(10, 2) NOT NULL,
+    stock_qty DECIMAL(10, 3) NOT NULL DEFAULT 0,
+    threshold_qty DECIMAL(10, 3) NOT NULL DEFAULT 0,
+    unit VARCHAR(10) NOT NULL DEFAULT 'KG',
+    category_id BIGINT NOT NULL,
+    image_blob LONGBLOB,
+    is_deleted TINYINT(1) NOT NULL DEFAULT 0,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_products_category FOREIGN KEY (category_id) REFERENCES categories (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS coupons (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    code VARCHAR(50) NOT NULL,
+    discount_type VARCHAR(20) NOT NULL,
+    discount_value DECIMAL(10, 2) NOT NULL,
+    min_order_total DECIMAL(10, 2) NOT NULL DEFAULT 0,
+    valid_from DATETIME,
+    valid_until DATETIME,
+    is_active TINYINT(1) NOT NULL DEFAULT 1,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_coupons_code (code)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS orders (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    customer_id BIGINT NOT NULL,
+    carrier_id BIGINT,
+    status VARCHAR(20) NOT NULL,
+    subtotal DECIMAL(10, 2) NOT NULL,
+    vat_rate DECIMAL(6, 4) NOT NULL,
+    vat_total DECIMAL(10, 2) NOT NULL,
+    discount_total DECIMAL(10, 2) NOT NULL DEFAULT 0,
+    total DECIMAL(10, 2) NOT NULL,
+    loyalty_discount_rate DECIMAL(6, 4) NOT NULL DEFAULT 0,
+    applied_coupon_id BIGINT,
+    order_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    requested_delivery_time DATETIME,
+    delivered_time DATETIME,
+    cancelled_time DATETIME,
+    note VARCHAR(500),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_orders_customer FOREIGN KEY (customer_id) REFERENCES users (id),
+    CONSTRAINT fk_orders_carrier FOREIGN KEY (carrier_id) REFERENCES users (id),
+    CONSTRAINT fk_orders_coupon FOREIGN KEY (applied_coupon_id) REFERENCES coupons (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS order_items (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    order_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    unit VARCHAR(10) NOT NULL,
+    quantity DECIMAL(10, 3) NOT NULL,
+    unit_price_snapshot DECIMAL(10, 2) NOT NULL,
+    line_total DECIMAL(10, 2) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES orders (id),
+    CONSTRAINT fk_order_items_product FOREIGN KEY (product_id) REFERENCES products (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS invoices (
+    order_id BIGINT NOT NULL,
+    pdf_blob LONGBLOB NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (order_id),
+    CONSTRAINT fk_invoices_order FOREIGN KEY (order_id) REFERENCES orders (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS messages (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    sender_id BIGINT NOT NULL,
+    receiver_id BIGINT NOT NULL,
+    subject VARCHAR(255),
+    body TEXT,
+    is_read TINYINT(1) NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_messages_sender FOREIGN KEY (sender_id) REFERENCES users (id),
+    CONSTRAINT fk_messages_receiver FOREIGN KEY (receiver_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS carrier_ratings (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    order_id BIGINT NOT NULL,
+    customer_id BIGINT NOT NULL,
+    carrier_id BIGINT NOT NULL,
+    rating INT NOT NULL,
+    comment VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_ratings_order FOREIGN KEY (order_id) REFERENCES orders (id),
+    CONSTRAINT fk_ratings_customer FOREIGN KEY (customer_id) REFERENCES users (id),
+    CONSTRAINT fk_ratings_carrier FOREIGN KEY (carrier_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS profile_img (
+    user_id BIGINT NOT NULL,
+    image_data LONGBLOB NOT NULL,
+    file_size INT NOT NULL,
+    file_type VARCHAR(50),
+    upload_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id),
+    CONSTRAINT fk_profile_img_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS app_settings (
+    k VARCHAR(50) NOT NULL,
+    v VARCHAR(255),
+    PRIMARY KEY (k)
+) ENGINE = InnoDB;
+
+-- The customer shop shows these two categories in fixed tabs
+INSERT IGNORE INTO categories (name) VALUES ('Vegetable'), ('Fruit');
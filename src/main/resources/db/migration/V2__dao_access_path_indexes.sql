@@ -0,0 +1,59 @@
+-- Composite indexes matched to the DAO access paths.
+--
+-- Each index names the DAO method(s) it serves. Single-column indexes on
+-- foreign keys that are only used for joins are created implicitly by InnoDB
+-- and are not repeated here; InnoDB drops an implicit foreign key index once
+-- a composite index below starts with the same column.
+
+-- OrderDao.findByCustomerId: WHERE customer_id = ? ORDER BY order_time DESC
+CREATE INDEX idx_orders_customer_time ON orders (customer_id, order_time);
+
+-- CustomerStatsDao.getAllCustomerStats, UserDao.getAllCustomerLoyalty:
+-- LEFT JOIN orders ON customer_id = u.id AND status = 'DELIVERED', SUM(total)
+CREATE INDEX idx_orders_customer_status_total ON orders (customer_id, status, total);
+
+-- OrderDao.findAvailableOrders: WHERE status IN ('PLACED', 'READY') AND
+-- carrier_id IS NULL ORDER BY requested_delivery_time
+-- OrderDao.findByCarrierId: WHERE carrier_id = ? AND status = 'ASSIGNED'
+-- ORDER BY requested_delivery_time
+CREATE INDEX idx_orders_carrier_status_requested ON orders (carrier_id, status, requested_delivery_time);
+
+-- OrderDao.findCompletedByCarrierId: WHERE carrier_id = ? AND
+-- status = 'DELIVERED' ORDER BY delivered_time DESC
+CREATE INDEX idx_orders_carrier_status_delivered ON orders (carrier_id, status, delivered_time);
+
+-- OrderDao.getRevenueByDate, OrderDao.getTopSellingProducts:
+-- WHERE status = 'DELIVERED', grouped by order day
+CREATE INDEX idx_orders_status_time ON orders (status, order_time);
+
+-- OrderDao.getAllOrders: ORDER BY order_time DESC
+CREATE INDEX idx_orders_time ON orders (order_time);
+
+-- OrderItemDao.findByOrderId and the order_items side of
+-- OrderDao.getTopSellingProducts (covering: no row lookup for quantity)
+CREATE INDEX idx_order_items_order_product_qty ON order_items (order_id, product_id, quantity);
+
+-- ProductDao.getAllProducts: WHERE is_deleted = 0 ORDER BY name
+CREATE INDEX idx_products_deleted_name ON products (is_deleted, name);
+
+-- ProductDao.getProductsByCategory: JOIN categories ... WHERE c.name = ?
+-- AND p.is_deleted = 0 ORDER BY p.name
+CREATE INDEX idx_products_category_deleted_name ON products (category_id, is_deleted, name);
+
+-- MessageDao.getMessagesForUser: UNION of WHERE sender_id = ? and
+-- WHERE receiver_id = ?, ORDER BY created_at DESC; one index per branch
+CREATE INDEX idx_messages_sender_created ON messages (sender_id, created_at);
+CREATE INDEX idx_messages_receiver_created ON messages (receiver_id, created_at);
+
+-- MessageDao.getAllMessages: ORDER BY created_at DESC
+CREATE INDEX idx_messages_created ON messages (created_at);
+
+-- UserDao.getCarriers, getPendingCarriers, getCustomerCount, getOwnerCount,
+-- CustomerStatsDao.getAllCustomerStats: WHERE role = ? [AND status = ?]
+CREATE INDEX idx_users_role_status ON users (role, status);
+
+-- RatingDao: WHERE carrier_id = ? ORDER BY created_at DESC, AVG(rating)
+CREATE INDEX idx_ratings_carrier_created ON carrier_ratings (carrier_id, created_at, rating);
+
+-- CouponDao.getAllCoupons: ORDER BY created_at DESC
+CREATE INDEX idx_coupons_created ON coupons (created_at);
@@ -0,0 +1,5 @@
+-- Version of the product image, incremented by ProductDao.updateProduct
+-- whenever a new image is uploaded. ProductImageCache keys decoded images by
+-- product id and image version, so a replaced image is never served from the
+-- cache.
+ALTER TABLE products ADD COLUMN image_version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,7 @@
+-- Thumbnails generated at upload by ImageUtil.createProductImageVariants.
+-- image_blob holds the normalized original (JPEG, at most 1024 px); the
+-- listings only read image_small, the owner's preview image_medium. Products
+-- uploaded before this migration have no thumbnails and fall back to
+-- image_blob until their image is uploaded again.
+ALTER TABLE products ADD COLUMN image_small MEDIUMBLOB NULL;
+ALTER TABLE products ADD COLUMN image_medium MEDIUMBLOB NULL;
@@ -0,0 +1,7 @@
+-- Change watermark for CatalogService: every insert or update of a product
+-- row, including soft deletes and stock reductions by placed orders, moves
+-- updated_at forward, so the in-memory catalog only re-reads changed rows.
+ALTER TABLE products ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+
+-- ProductDao.getProductsChangedSince: WHERE updated_at >= ?
+CREATE INDEX idx_products_updated_at ON products (updated_at);
@@ -0,0 +1,26 @@
+-- Invoices are rendered in the background by InvoiceService instead of on
+-- the checkout path. invoice_status tells whether an order's invoice is
+-- stored yet: PENDING while its job is queued, READY once the PDF is in
+-- invoices, FAILED after the job ran out of attempts, MISSING for orders
+-- that were never queued (bulk-loaded data). Invoices that are not READY
+-- are rendered on demand when downloaded.
+ALTER TABLE orders ADD COLUMN invoice_status VARCHAR(10) NOT NULL DEFAULT 'MISSING';
+
+-- Orders placed before the queue existed already have their invoice.
+UPDATE orders SET invoice_status = 'READY' WHERE id IN (SELECT order_id FROM invoices);
+
+-- One row per invoice still to be rendered, written in the checkout
+-- transaction and deleted once the invoice is stored. next_attempt_at is
+-- both the retry time and the lease of a claimed job: a worker that dies
+-- while rendering leaves the job to be picked up again at that time.
+CREATE TABLE IF NOT EXISTS invoice_jobs (
+    order_id BIGINT NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    last_error VARCHAR(500),
+    PRIMARY KEY (order_id),
+    CONSTRAINT fk_invoice_jobs_order FOREIGN KEY (order_id) REFERENCES orders (id)
+) ENGINE = InnoDB;
+
+-- InvoiceDao.findDueJobs: WHERE next_attempt_at <= ? ORDER BY next_attempt_at
+CREATE INDEX idx_invoice_jobs_next_attempt ON invoice_jobs (next_attempt_at);
@@ -0,0 +1,3 @@
+-- Invoices are stored deflated. compression tells InvoiceDao how to read a
+-- stored PDF back; invoices saved before this migration stay uncompressed.
+ALTER TABLE invoices ADD COLUMN compression VARCHAR(10) NOT NULL DEFAULT 'NONE';
@@ -0,0 +1,8 @@
+-- Change watermark for OrderChangeFeed: every insert or update of an order
+-- row, including carrier assignment, delivery and cancellation, moves
+-- updated_at forward, so open order views only receive the changed rows.
+ALTER TABLE orders ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+
+-- OrderDao.findOrdersChangedSince: WHERE updated_at >= ?
+-- OrderDao.getLatestUpdate: MAX(updated_at)
+CREATE INDEX idx_orders_updated_at ON orders (updated_at);
@@ -0,0 +1,18 @@
+-- Soft stock holds of open carts, shared by every workstation. A hold counts
+-- against the product's stock until expires_at; expired rows are ignored by
+-- the queries and deleted by StockReservationService's sweep.
+CREATE TABLE IF NOT EXISTS stock_reservations (
+    cart_id VARCHAR(36) NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity DECIMAL(10, 3) NOT NULL,
+    expires_at TIMESTAMP(3) NOT NULL,
+    PRIMARY KEY (cart_id, product_id),
+    CONSTRAINT fk_stock_reservations_product FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+-- StockReservationDao.reserve and getAvailable: WHERE product_id = ? AND
+-- expires_at > CURRENT_TIMESTAMP(3), SUM(quantity)
+CREATE INDEX idx_stock_reservations_product_expires ON stock_reservations (product_id, expires_at, quantity);
+
+-- StockReservationDao.deleteExpired: WHERE expires_at <= CURRENT_TIMESTAMP(3)
+CREATE INDEX idx_stock_reservations_expires ON stock_reservations (expires_at);
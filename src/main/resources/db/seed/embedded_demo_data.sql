@@ -0,0 +1,32 @@
+-- Demo data for the embedded database profile.
+--
+-- Loaded by DbAdapter when the embedded database has no users yet. Accounts
+-- (username / password): own / own, carr / carr, cust / cust. Passwords are
+-- stored as the same SHA-256 hex digest the login screen computes.
+
+INSERT INTO users (username, password_hash, role, status, full_name, phone, address_line, city) VALUES
+    ('own', '5b3975651c3cab92d044c096dc30a1c2d9525497457472de48c51ecb363d1f4a', 'owner', 'APPROVED',
+     'Demo Owner', '5550000001', 'Market Street 1', 'Istanbul'),
+    ('carr', 'f9356b0952e5681f9bb4969078d6762f1f3f3eb9e87b80d6544103ad918f074c', 'carrier', 'APPROVED',
+     'Demo Carrier', '5550000002', 'Depot Road 7', 'Istanbul'),
+    ('cust', '80d26609c5226268981e4a6d4ceddbc339d991841ae580e3180b56c8ade7651d', 'customer', 'APPROVED',
+     'Demo Customer', '5550000003', 'Garden Lane 12', 'Istanbul');
+
+INSERT INTO app_settings (k, v) VALUES ('LOYALTY_DISCOUNT_RATE', '0.05');
+
+INSERT INTO products (name, price, stock_qty, threshold_qty, unit, category_id)
+    SELECT 'Tomato', 2.50, 120, 10, 'KG', id FROM categories WHERE name = 'Vegetable';
+INSERT INTO products (name, price, stock_qty, threshold_qty, unit, category_id)
+    SELECT 'Cucumber', 1.80, 90, 10, 'KG', id FROM categories WHERE name = 'Vegetable';
+INSERT INTO products (name, price, stock_qty, threshold_qty, unit, category_id)
+    SELECT 'Potato', 1.20, 200, 20, 'KG', id FROM categories WHERE name = 'Vegetable';
+INSERT INTO products (name, price, stock_qty, threshold_qty, unit, category_id)
+    SELECT 'Lettuce', 1.50, 40, 5, 'PCS', id FROM categories WHERE name = 'Vegetable';
+INSERT INTO products (name, price, stock_qty, threshold_qty, unit, category_id)
+    SELECT 'Apple', 3.00, 150, 15, 'KG', id FROM categories WHERE name = 'Fruit';
+INSERT INTO products (name, price, stock_qty, threshold_qty, unit, category_id)
+    SELECT 'Banana', 3.50, 80, 10, 'KG', id FROM categories WHERE name = 'Fruit';
+INSERT INTO products (name, price, stock_qty, threshold_qty, unit, category_id)
+    SELECT 'Orange', 2.80, 110, 10, 'KG', id FROM categories WHERE name = 'Fruit';
+INSERT INTO products (name, price, stock_qty, threshold_qty, unit, category_id)
+    SELECT 'Watermelon', 6.00, 25, 3, 'PCS', id FROM categories WHERE name = 'Fruit';